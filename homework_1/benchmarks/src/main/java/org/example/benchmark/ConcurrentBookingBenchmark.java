@@ -0,0 +1,72 @@
+package org.example.benchmark;
+
+import org.example.model.Facility;
+import org.example.model.Workstation;
+import org.example.service.Coworking;
+import org.example.utils.MemberAlreadyExistsException;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking throughput with every thread booking its own facility. Bookings on different facilities must
+ * not contend, so throughput should grow with the thread count up to the number of cores; compare
+ * {@code -t 1} with {@code -t 4} and more.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ConcurrentBookingBenchmark {
+    static final int FACILITIES = 64;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        Coworking coworking;
+        List<Facility> facilities;
+        final AtomicInteger nextFacility = new AtomicInteger();
+
+        // A fresh coworking per iteration keeps the schedules from growing without bound
+        @Setup(Level.Iteration)
+        public void addFacilities() throws MemberAlreadyExistsException {
+            coworking = new Coworking();
+            facilities = new ArrayList<>(FACILITIES);
+            for (int i = 0; i < FACILITIES; i++) {
+                Facility facility = new Workstation(String.format("ws%07d", i), "Celeron");
+                coworking.addFacility(facility);
+                facilities.add(facility);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Own {
+        int facility;
+        LocalDateTime start;
+
+        @Setup(Level.Trial)
+        public void claim(Shared shared) {
+            facility = shared.nextFacility.getAndIncrement() % FACILITIES;
+        }
+
+        @Setup(Level.Iteration)
+        public void rewind() {
+            start = DataSet.ORIGIN;
+        }
+    }
+
+    @Benchmark
+    public boolean bookOwnFacility(Shared shared, Own own) {
+        LocalDateTime start = own.start;
+        own.start = start.plusHours(1);
+        return shared.coworking.addBooking(
+                null, shared.facilities.get(own.facility), start, start.plusMinutes(DataSet.PROBE_MINUTES)
+        );
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.benchmark;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.User;
+import org.example.model.Workstation;
+import org.example.service.Coworking;
+import org.example.service.SlotQuery;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.WrongPasswordException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoworkingBenchmark {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Benchmark
+    public boolean addAndRemoveBooking(CoworkingState state) {
+        Booking probe = state.probe();
+        Coworking coworking = state.dataSet.coworking;
+        boolean added = coworking.addBooking(probe.getUser(), probe.getFacility(), probe.getStart(), probe.getEnd());
+        if (added) {
+            coworking.removeBooking(probe.getFacility(), probe.getStart(), probe.getEnd(), state.dataSet.admin);
+        }
+        return added;
+    }
+
+    @Benchmark
+    public boolean rejectOverlappingBooking(CoworkingState state) {
+        Booking existing = state.existing();
+        return state.dataSet.coworking.addBooking(
+                existing.getUser(), existing.getFacility(),
+                existing.getStart().plusMinutes(1), existing.getEnd().plusMinutes(1)
+        );
+    }
+
+    @Benchmark
+    public boolean removeAndRestoreBooking(CoworkingState state) {
+        Booking existing = state.existing();
+        Coworking coworking = state.dataSet.coworking;
+        boolean removed = coworking.removeBooking(
+                existing.getFacility(), existing.getStart(), existing.getEnd(), state.dataSet.admin
+        );
+        coworking.addBooking(existing.getUser(), existing.getFacility(), existing.getStart(), existing.getEnd());
+        return removed;
+    }
+
+    @Benchmark
+    public Object getAvailableBookingSlots(CoworkingState state) {
+        return state.dataSet.coworking.getAvailableBookingSlots(state.date());
+    }
+
+    @Benchmark
+    public Object getAvailableBookingSlotsForWeek(CoworkingState state) {
+        return state.dataSet.coworking.getAvailableBookingSlots(state.date(), state.date().plusDays(6));
+    }
+
+    @Benchmark
+    public Object findAvailableSlots(CoworkingState state) {
+        return state.dataSet.coworking.findAvailableSlots(
+                new SlotQuery(state.date().atTime(9, 0), Duration.ofHours(2), 5)
+        );
+    }
+
+    @Benchmark
+    public Object viewAllBookings(CoworkingState state) {
+        return state.dataSet.coworking.viewAllBookings();
+    }
+
+    @Benchmark
+    public Object viewAllFacilities(CoworkingState state) {
+        return state.dataSet.coworking.viewAllFacilities();
+    }
+
+    @Benchmark
+    public Facility getFacility(CoworkingState state) throws MemberNotFoundException {
+        return state.dataSet.coworking.getFacility(state.facility().getIdNumber());
+    }
+
+    @Benchmark
+    public Facility addAndRemoveFacility(CoworkingState state) throws MemberAlreadyExistsException,
+            MemberNotFoundException {
+        String idNumber = "bench" + SEQUENCE.incrementAndGet();
+        state.dataSet.coworking.addFacility(new Workstation(idNumber, "Celeron"));
+        return state.dataSet.coworking.removeFacility(idNumber);
+    }
+
+    @Benchmark
+    public User authenticateUser(CoworkingState state) throws MemberNotFoundException, WrongPasswordException {
+        return state.dataSet.coworking.authenticateUser(state.user().getLogin(), DataSet.PASSWORD);
+    }
+
+    @Benchmark
+    public User getUser(CoworkingState state) throws MemberNotFoundException, WrongPasswordException {
+        return state.dataSet.coworking.getUser(state.user().getLogin(), DataSet.PASSWORD);
+    }
+
+    @Benchmark
+    public void registerAndRemoveUser(CoworkingState state, Blackhole blackhole) throws MemberAlreadyExistsException,
+            MemberNotFoundException, WrongPasswordException {
+        String login = "bench" + SEQUENCE.incrementAndGet();
+        state.dataSet.coworking.registerNewUser(login, DataSet.PASSWORD);
+        blackhole.consume(state.dataSet.coworking.removeUser(login, DataSet.PASSWORD));
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.benchmark;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shared data set for all benchmarks. Scale it from the command line, e.g.
+ * {@code -p facilities=1000 -p bookingsPerFacility=1000000 -p users=100000}. Compare
+ * {@code -p metrics=false,true} for the cost of the operation metrics.
+ */
+@State(Scope.Benchmark)
+public class CoworkingState {
+    @Param({"10", "1000"})
+    public int facilities;
+
+    @Param({"100"})
+    public int users;
+
+    @Param({"10", "1000"})
+    public int bookingsPerFacility;
+
+    @Param({"42"})
+    public long seed;
+
+    @Param({"false"})
+    public boolean metrics;
+
+    DataSet dataSet;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        dataSet = DataSet.generate(facilities, users, bookingsPerFacility, seed);
+        dataSet.coworking.getMetrics().setEnabled(metrics);
+    }
+
+    static <T> T pick(List<T> items) {
+        return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+
+    Booking probe() {
+        return pick(dataSet.probes);
+    }
+
+    Booking existing() {
+        return dataSet.existing.isEmpty() ? probe() : pick(dataSet.existing);
+    }
+
+    LocalDate date() {
+        return pick(dataSet.dates);
+    }
+
+    Facility facility() {
+        return pick(dataSet.facilities);
+    }
+
+    User user() {
+        return dataSet.users.isEmpty() ? dataSet.admin : pick(dataSet.users);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.benchmark;
+
+import org.example.model.*;
+import org.example.service.Coworking;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.PasswordHash;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic coworking populated with a given number of facilities, users and bookings per facility.
+ * Every booking is followed by a hole wide enough for one more 30-minute booking, so the probes can be
+ * booked and released again without disturbing the rest of the schedule.
+ */
+public class DataSet {
+    static final LocalDateTime ORIGIN = LocalDateTime.of(2024, 1, 1, 8, 0);
+    static final int PROBE_MINUTES = 30;
+    static final int PROBES = 1024;
+    static final String PASSWORD = "pwd";
+
+    final Coworking coworking;
+    final List<Facility> facilities;
+    final List<User> users;
+    final User admin;
+    final List<Booking> existing;
+    final List<Booking> probes;
+    final List<LocalDate> dates;
+
+    private DataSet(Coworking coworking, List<Facility> facilities, List<User> users, User admin) {
+        this.coworking = coworking;
+        this.facilities = facilities;
+        this.users = users;
+        this.admin = admin;
+        this.existing = new ArrayList<>(PROBES);
+        this.probes = new ArrayList<>(PROBES);
+        this.dates = new ArrayList<>(PROBES);
+    }
+
+    public static DataSet generate(int facilityCount, int userCount, int bookingsPerFacility, long seed) {
+        Random random = new Random(seed);
+        Coworking coworking = new Coworking();
+        List<Facility> facilities = new ArrayList<>(facilityCount);
+        List<User> users = new ArrayList<>(userCount);
+        User admin;
+        try {
+            for (int i = 0; i < facilityCount; i++) {
+                Facility facility = i % 10 == 0
+                        ? new ConferenceRoom(String.format("cr%07d", i), 4 + random.nextInt(30))
+                        : new Workstation(String.format("ws%07d", i), "Core i" + (3 + 2 * random.nextInt(4)));
+                coworking.addFacility(facility);
+                facilities.add(facility);
+            }
+            // One hash shared by every user keeps set-up from paying the key derivation per user
+            PasswordHash hash = PasswordHash.of(PASSWORD);
+            admin = User.withPasswordHash("admin", hash, true);
+            coworking.addUser(admin);
+            for (int i = 0; i < userCount; i++) {
+                User user = User.withPasswordHash(String.format("u%07d", i), hash, false);
+                coworking.addUser(user);
+                users.add(user);
+            }
+        } catch (MemberAlreadyExistsException e) {
+            throw new IllegalStateException(e);
+        }
+        DataSet dataSet = new DataSet(coworking, facilities, users, admin);
+        dataSet.addBookings(random, bookingsPerFacility);
+        return dataSet;
+    }
+
+    private void addBookings(Random random, int bookingsPerFacility) {
+        long total = (long) facilities.size() * bookingsPerFacility;
+        double sampleRate = Math.min(1.0, PROBES / (double) Math.max(1, total));
+        LocalDateTime latest = ORIGIN;
+        for (Facility facility : facilities) {
+            int gap = facility.getGapPolicy().maxGap();
+            LocalDateTime start = ORIGIN.plusMinutes(random.nextInt(24 * 60));
+            for (int i = 0; i < bookingsPerFacility; i++) {
+                LocalDateTime end = start.plusMinutes(30 + random.nextInt(8 * 60));
+                User user = users.isEmpty() ? admin : users.get(random.nextInt(users.size()));
+                coworking.addBooking(user, facility, start, end);
+                if (random.nextDouble() < sampleRate && existing.size() < PROBES) {
+                    existing.add(new Booking(user, facility, start, end));
+                    LocalDateTime probeStart = end.plusMinutes(gap);
+                    probes.add(new Booking(user, facility, probeStart, probeStart.plusMinutes(PROBE_MINUTES)));
+                }
+                start = end.plusMinutes(2L * gap + PROBE_MINUTES + random.nextInt(12 * 60));
+            }
+            if (start.isAfter(latest)) {
+                latest = start;
+            }
+        }
+        long days = Math.max(1, Duration.between(ORIGIN, latest).toDays());
+        for (int i = 0; i < PROBES; i++) {
+            dates.add(ORIGIN.toLocalDate().plusDays(random.nextInt((int) Math.min(Integer.MAX_VALUE, days))));
+        }
+        if (existing.isEmpty()) {
+            Facility facility = facilities.get(0);
+            LocalDateTime probeStart = latest.plusDays(1);
+            probes.add(new Booking(admin, facility, probeStart, probeStart.plusMinutes(PROBE_MINUTES)));
+        }
+    }
+}
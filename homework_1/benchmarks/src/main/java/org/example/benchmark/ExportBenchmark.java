@@ -0,0 +1,31 @@
+package org.example.benchmark;
+
+import org.example.persistence.BookingExport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full exports of the data set, written to a sink so only the encoding is measured. Scale the data set
+ * with e.g. {@code -p facilities=1000 -p bookingsPerFacility=10000} for ten million bookings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Benchmark
+    public long writeColumnar(CoworkingState state) throws IOException {
+        return BookingExport.writeColumnar(state.dataSet.coworking, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long writeCsv(CoworkingState state) throws IOException {
+        return BookingExport.writeCsv(state.dataSet.coworking, Writer.nullWriter());
+    }
+}
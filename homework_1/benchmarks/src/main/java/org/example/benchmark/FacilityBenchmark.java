@@ -0,0 +1,35 @@
+package org.example.benchmark;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FacilityBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class History {
+        Set<Booking> allBookings;
+
+        @Setup(Level.Trial)
+        public void snapshot(CoworkingState state) {
+            allBookings = state.dataSet.coworking.viewAllBookings();
+        }
+    }
+
+    @Benchmark
+    public TreeSet<Booking> getFreeBookingSlotsForDate(CoworkingState state, History history) {
+        Facility facility = state.facility();
+        LocalDate date = state.date();
+        return facility.getFreeBookingSlotsForDate(date, history.allBookings);
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.benchmark;
+
+import org.example.model.User;
+import org.example.service.Coworking;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.PasswordHash;
+import org.example.utils.WrongPasswordException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput: repeated logins of users whose password the credential cache has already seen,
+ * against a full key derivation at a given work factor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LoginBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Logins {
+        @Param({"10000", "210000"})
+        public int iterations;
+
+        @Param({"16"})
+        public int users;
+
+        Coworking coworking;
+        List<User> registered;
+
+        @Setup(Level.Trial)
+        public void register() throws MemberAlreadyExistsException, MemberNotFoundException,
+                WrongPasswordException {
+            coworking = new Coworking();
+            registered = new ArrayList<>(users);
+            PasswordHash hash = PasswordHash.of(DataSet.PASSWORD, iterations);
+            for (int i = 0; i < users; i++) {
+                User user = User.withPasswordHash(String.format("u%07d", i), hash, false);
+                coworking.addUser(user);
+                registered.add(user);
+            }
+            for (User user : registered) {
+                coworking.authenticateUser(user.getLogin(), DataSet.PASSWORD);
+            }
+        }
+
+        User user() {
+            return registered.get(ThreadLocalRandom.current().nextInt(registered.size()));
+        }
+    }
+
+    @Benchmark
+    public User cachedLogin(Logins logins) throws MemberNotFoundException, WrongPasswordException {
+        return logins.coworking.authenticateUser(logins.user().getLogin(), DataSet.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean passwordCheck(Logins logins) {
+        return logins.user().checkPassword(DataSet.PASSWORD);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.benchmark;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.User;
+import org.example.view.ResponseBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBuilderBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Views {
+        List<Facility> facilities;
+        Map<Facility, TreeSet<Booking>> freeSlots;
+
+        @Setup(Level.Trial)
+        public void prepare(CoworkingState state) {
+            facilities = state.dataSet.coworking.viewAllFacilities();
+            freeSlots = state.dataSet.coworking.getAvailableBookingSlots(state.date());
+        }
+    }
+
+    @Benchmark
+    public String listFacilities(Views views) {
+        return ResponseBuilder.listFacilities(views.facilities);
+    }
+
+    @Benchmark
+    public String listFreeSlots(Views views) {
+        return ResponseBuilder.listFreeSlots(views.freeSlots);
+    }
+
+    @Benchmark
+    public String listUserBookings(CoworkingState state) {
+        return ResponseBuilder.listUserBookings(state.user(), state.dataSet.coworking);
+    }
+
+    @Benchmark
+    public String listUserBookingsAsAdmin(CoworkingState state) {
+        User user = state.user();
+        return ResponseBuilder.listUserBookings(state.dataSet.admin, user.getLogin(), state.dataSet.coworking);
+    }
+
+    @Benchmark
+    public String listAllBookings(CoworkingState state) {
+        return ResponseBuilder.listAllBookings(state.dataSet.admin, state.dataSet.coworking);
+    }
+
+    @Benchmark
+    public String writeAllBookings(CoworkingState state) throws IOException {
+        return ResponseBuilder.writeAllBookings(
+                state.dataSet.admin, state.dataSet.coworking, Writer.nullWriter(), null, Integer.MAX_VALUE
+        );
+    }
+
+    @Benchmark
+    public String writeAllBookingsPage(CoworkingState state) throws IOException {
+        return ResponseBuilder.writeAllBookings(
+                state.dataSet.admin, state.dataSet.coworking, Writer.nullWriter(), null, PAGE_SIZE
+        );
+    }
+
+    @Benchmark
+    public String listFacilityBookings(CoworkingState state) {
+        return ResponseBuilder.listFacilityBookings(
+                state.dataSet.admin, state.facility().getIdNumber(), state.dataSet.coworking
+        );
+    }
+}
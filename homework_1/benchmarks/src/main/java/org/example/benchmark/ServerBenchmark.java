@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import org.example.model.Workstation;
+import org.example.server.CoworkingServer;
+import org.example.service.Coworking;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request throughput of the HTTP server with every thread holding a keep-alive connection of its own;
+ * compare {@code -t 64} with {@code -t 1000} and more to see it hold up under many clients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.maxIdleConnections=10000")
+@Threads(64)
+public class ServerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        CoworkingServer server;
+        byte[] request;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            Coworking coworking = new Coworking();
+            coworking.registerNewUser("u1", DataSet.PASSWORD);
+            coworking.addFacility(new Workstation("ws001", "Celeron"));
+            for (int i = 0; i < 50; i++) {
+                var start = DataSet.ORIGIN.plusHours(i * 2);
+                coworking.addBooking(null, coworking.getFacility("ws001"), start, start.plusHours(1));
+            }
+            server = new CoworkingServer(coworking, new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            String credentials = Base64.getEncoder()
+                    .encodeToString(("u1:" + DataSet.PASSWORD).getBytes(StandardCharsets.UTF_8));
+            request = ("GET /availability?date=" + DataSet.ORIGIN.toLocalDate() + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Authorization: Basic " + credentials + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            server.stop(0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Connection {
+        Socket socket;
+        OutputStream out;
+        BufferedReader in;
+
+        @Setup(Level.Trial)
+        public void connect(Server server) throws IOException {
+            socket = new Socket("127.0.0.1", server.server.getPort());
+            out = socket.getOutputStream();
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Benchmark
+    public int availability(Server server, Connection connection) throws IOException {
+        connection.out.write(server.request);
+        connection.out.flush();
+        return readResponse(connection.in);
+    }
+
+    /**
+     * Reads one keep-alive response and returns its status.
+     */
+    private static int readResponse(BufferedReader in) throws IOException {
+        int status = Integer.parseInt(in.readLine().split(" ")[1]);
+        int length = 0;
+        for (String line = in.readLine(); !line.isEmpty(); line = in.readLine()) {
+            int colon = line.indexOf(':');
+            if (line.substring(0, colon).equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(line.substring(colon + 1).trim());
+            }
+        }
+        char[] body = new char[length];
+        int read = 0;
+        while (read < length) {
+            read += in.read(body, read, length - read);
+        }
+        return status;
+    }
+}
@@ -4,8 +4,15 @@ import org.example.model.ConferenceRoom;
 import org.example.model.Facility;
 import org.example.model.User;
 import org.example.model.Workstation;
+import org.example.persistence.BookingExport;
+import org.example.persistence.BookingJournal;
+import org.example.persistence.MappedBookingArchive;
+import org.example.server.CoworkingServer;
+import org.example.service.BookingResult;
 import org.example.service.Coworking;
+import org.example.service.SlotQuery;
 import org.example.utils.Initializer;
+import org.example.utils.JournalFailedException;
 import org.example.utils.MemberAlreadyExistsException;
 import org.example.utils.MemberNotFoundException;
 import org.example.utils.WrongPasswordException;
@@ -13,8 +20,17 @@ import org.example.view.ResponseBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
@@ -24,6 +40,8 @@ public class Main {
     private static final Scanner SCANNER = new Scanner(System.in);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yy-MM-dd");
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yy-MM-dd HH:mm");
+    private static final int PAGE_SIZE = 50;
+    private static final String MAX_IDLE_CONNECTIONS = "sun.net.httpserver.maxIdleConnections";
 
     private static final String COMMANDS =
             """
@@ -41,12 +59,113 @@ public class Main {
 
     public static void main(String[] args) {
         System.out.println("Hello! Welcome to Coworking!");
-        Initializer.populate(coworking);
+        Path dataDirectory = Path.of(System.getProperty("coworking.data", "coworking-data"));
+        openJournal(dataDirectory);
+        if (coworking.viewAllUsers().isEmpty()) {
+            Initializer.populate(coworking);
+        }
+        // Archiving is opt-in, but an archive from an earlier run holds bookings the journal no longer has
+        boolean archiving = Boolean.getBoolean("coworking.archive");
+        Path archiveDirectory = dataDirectory.resolve("archive");
+        if (archiving || Files.exists(archiveDirectory)) {
+            openArchive(archiveDirectory, archiving);
+        }
+        String metricsInterval = System.getProperty("coworking.metrics");
+        if (metricsInterval != null) {
+            enableMetrics(Duration.ofSeconds(Long.parseLong(metricsInterval)));
+        }
 
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            return;
+        }
+        if (args.length > 2 && args[0].equals("--export")) {
+            export(args[1], Path.of(args[2]));
+            return;
+        }
         loginOrRegister();
 
     }
 
+    private static void openJournal(Path directory) {
+        try {
+            BookingJournal journal = BookingJournal.open(directory, coworking);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close the booking journal: " + e.getMessage());
+                }
+            }));
+        } catch (IOException e) {
+            System.out.println("Failed to open the booking journal, changes won't be saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Attaches the archive in {@code directory} and, if {@code archivePast}, moves the bookings that ended
+     * before today there, closing the past for new bookings.
+     */
+    private static void openArchive(Path directory, boolean archivePast) {
+        try {
+            MappedBookingArchive archive = MappedBookingArchive.open(directory);
+            coworking.attachArchive(archive);
+            LocalDateTime today = LocalDate.now().atStartOfDay();
+            if (archivePast && (archive.getCutoff() == null || today.isAfter(archive.getCutoff()))) {
+                coworking.archiveBookingsBefore(today);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Failed to open the booking archive, past bookings stay in memory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Turns on the operation metrics, publishes them over JMX and dumps them to stderr every {@code interval}.
+     */
+    private static void enableMetrics(Duration interval) {
+        coworking.getMetrics().setEnabled(true);
+        try {
+            coworking.getMetrics().registerMBeans("main");
+        } catch (JMException e) {
+            System.out.println("Failed to publish the metrics over JMX: " + e.getMessage());
+        }
+        coworking.getMetrics().dumpEvery(interval, System.err::print);
+    }
+
+    private static void serve(int port) {
+        // Keeps thousands of keep-alive clients connected, see CoworkingServer
+        if (System.getProperty(MAX_IDLE_CONNECTIONS) == null) {
+            System.setProperty(MAX_IDLE_CONNECTIONS, "10000");
+        }
+        try {
+            CoworkingServer server = new CoworkingServer(coworking, new InetSocketAddress(port));
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            System.out.println("Serving the coworking API on port " + server.getPort());
+        } catch (IOException e) {
+            System.out.println("Failed to start the HTTP server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Dumps every booking to {@code file}, as {@code csv} or in the {@code columnar} format of
+     * {@link BookingExport}.
+     */
+    private static void export(String format, Path file) {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long rows = switch (format) {
+                case "csv" -> BookingExport.writeCsv(coworking, out);
+                case "columnar" -> BookingExport.writeColumnar(coworking, out);
+                default -> throw new IllegalArgumentException("Unknown export format " + format + ", use csv or columnar");
+            };
+            System.out.println("Exported " + rows + " bookings to " + file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Export failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
     static void loginOrRegister() {
         User user = null;
         while (user == null) {
@@ -103,15 +222,19 @@ public class Main {
             if (command.isEmpty()) {
                 break;
             }
-            switch (command) {
-                case "1" -> viewFacilities();
-                case "2" -> checkAvailability();
-                case "3" -> placeBooking(user);
-                case "4" -> viewOwnBookings(user);
-                case "5", "7" -> removeBooking(user);
-                case "6" -> viewBookingsAsAdmin(user);
-                case "8" -> manageFacilities(user);
-                default -> System.out.println("Unknown command. Please try again.");
+            try {
+                switch (command) {
+                    case "1" -> viewFacilities();
+                    case "2" -> checkAvailability();
+                    case "3" -> placeBooking(user);
+                    case "4" -> viewOwnBookings(user);
+                    case "5", "7" -> removeBooking(user);
+                    case "6" -> viewBookingsAsAdmin(user);
+                    case "8" -> manageFacilities(user);
+                    default -> System.out.println("Unknown command. Please try again.");
+                }
+            } catch (JournalFailedException e) {
+                System.out.println(e.getMessage());
             }
         }
         loginOrRegister();
@@ -123,6 +246,11 @@ public class Main {
     }
 
     private static void checkAvailability() {
+        System.out.println("Choose action:\n1 - List free slots for a date\n2 - Find the earliest free slots");
+        if (SCANNER.nextLine().trim().equals("2")) {
+            findSlots();
+            return;
+        }
         System.out.println("Please enter date (YY-MM-DD):");
         String textDate = SCANNER.nextLine();
         LocalDate parsedDate = LocalDate.parse(textDate, DATE_FORMATTER);
@@ -130,6 +258,36 @@ public class Main {
         System.out.println(response);
     }
 
+    private static void findSlots() {
+        System.out.println(
+                "Please enter duration in minutes and earliest start datetime (YY-MM-DD HH:MM), optionally followed by " +
+                        "facility type (ws / cr), minimum seats and time of day (HH:MM-HH:MM), separated by commas:"
+        );
+        String[] input = SCANNER.nextLine().split(",");
+        SlotQuery query;
+        try {
+            query = new SlotQuery(
+                    LocalDateTime.parse(input[1].trim(), DATE_TIME_FORMATTER),
+                    Duration.ofMinutes(Long.parseLong(input[0].trim())),
+                    5
+            );
+            if (input.length > 2 && !input[2].isBlank()) {
+                query.ofType(input[2].trim().equalsIgnoreCase("cr") ? ConferenceRoom.class : Workstation.class);
+            }
+            if (input.length > 3 && !input[3].isBlank()) {
+                query.withMinSeats(Integer.parseInt(input[3].trim()));
+            }
+            if (input.length > 4 && !input[4].isBlank()) {
+                String[] window = input[4].trim().split("-");
+                query.between(LocalTime.parse(window[0].trim()), LocalTime.parse(window[1].trim()));
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | DateTimeParseException e) {
+            System.out.println("Wrong search parameters. Please try again.");
+            return;
+        }
+        System.out.println(ResponseBuilder.listSlotCandidates(coworking.findAvailableSlots(query)));
+    }
+
     private static void placeBooking(User user) {
         System.out.println(
                 "Please enter facility number, start datetime (YY-MM-DD HH:MM), end datetime (YY-MM-DD HH:MM), " +
@@ -143,11 +301,10 @@ public class Main {
         if (parsed == null) {
             return;
         }
-        String response = coworking.addBooking(
+        BookingResult result = coworking.book(
                 user, (Facility) parsed.get("facility"),
-                (LocalDateTime) parsed.get("start"), (LocalDateTime) parsed.get("end")) ?
-                "Booking placed successfully." : "Something went wrong. Please consider retry.";
-        System.out.println(response);
+                (LocalDateTime) parsed.get("start"), (LocalDateTime) parsed.get("end"));
+        System.out.println(ResponseBuilder.describeBookingResult(result));
     }
 
     private static void viewOwnBookings(User user)  {
@@ -191,10 +348,8 @@ public class Main {
         switch (input[0]) {
             case "user" -> viewLoginBookings(admin, input[1]);
             case "facility" -> viewFacilityBookings(admin, input[1]);
-            default -> {
-                String response = ResponseBuilder.listAllBookings(admin, coworking);
-                System.out.println(response);
-            }
+            default -> printPages((out, cursor, limit) ->
+                    ResponseBuilder.writeAllBookings(admin, coworking, out, cursor, limit));
         }
     }
 
@@ -270,7 +425,7 @@ public class Main {
         if (newSeats == -1) {
             return "Edit cancelled.";
         }
-        room.setSeats(newSeats);
+        coworking.editConferenceRoom(room, newSeats);
         return String.format(
                 "Conference room `%S` edited. The number of seats is set to %d.\n",
                 room.getIdNumber(), room.getSeats()
@@ -283,7 +438,7 @@ public class Main {
         if (newDescription.isEmpty()) {
             return "";
         }
-        workstation.setDescription(newDescription);
+        coworking.editWorkstation(workstation, newDescription);
         return String.format(
                 "Workstation's `%S` description set to `%s`\n",
                 workstation.getIdNumber(), workstation.getDescription()
@@ -301,8 +456,31 @@ public class Main {
 
     private static void viewFacilityBookings(@NotNull User admin, String idNumber) {
         if (!admin.isAdmin()) return;
-        String response = ResponseBuilder.listFacilityBookings(admin, idNumber, coworking);
-        System.out.println(response);
+        printPages((out, cursor, limit) ->
+                ResponseBuilder.writeFacilityBookings(admin, idNumber, coworking, out, cursor, limit));
+    }
+
+    private interface Page {
+        String write(Appendable out, String cursor, int limit) throws IOException;
+    }
+
+    /**
+     * Streams a listing to the console a page at a time, asking before each further page.
+     */
+    private static void printPages(Page page) {
+        String cursor = null;
+        do {
+            try {
+                cursor = page.write(System.out, cursor, PAGE_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (cursor != null) {
+                System.out.println("Enter to show more, `q` to stop.");
+                if (SCANNER.nextLine().trim().equalsIgnoreCase("q")) return;
+            }
+        } while (cursor != null);
+        System.out.println();
     }
 
     private static void viewLoginBookings(User admin, String userLogin) {
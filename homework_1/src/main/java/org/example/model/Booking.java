@@ -1,11 +1,21 @@
 package org.example.model;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
+/**
+ * Besides the times it was created with, a booking keeps its start rounded down and its end rounded
+ * up to whole minutes since the epoch, so overlap checks and free-slot sweeps are plain integer
+ * arithmetic and never create {@link LocalDateTime}s.
+ */
 public class Booking implements Comparable<Booking> {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
     private final Facility facility;
     private final LocalDateTime start;
     private final LocalDateTime end;
+    private final long startMinute;
+    private final long endMinute;
     private final User user;
 
     public Booking(User user, Facility facility, LocalDateTime start, LocalDateTime end) {
@@ -16,6 +26,8 @@ public class Booking implements Comparable<Booking> {
         this.facility = facility;
         this.start = start;
         this.end = end;
+        this.startMinute = toEpochMinute(start, false);
+        this.endMinute = toEpochMinute(end, true);
     }
 
     public Facility getFacility() {
@@ -30,14 +42,35 @@ public class Booking implements Comparable<Booking> {
         return end;
     }
 
+    public long getStartMinute() {
+        return startMinute;
+    }
+
+    public long getEndMinute() {
+        return endMinute;
+    }
+
     public User getUser() {
         return user;
     }
 
-    public boolean isOverlapping(Booking other) { // TODO: add facility-specific gap
-        int gap = facility.INTER_BOOKING_GAP;
-        return getEnd().isAfter(other.getStart().minusMinutes(gap))
-                && getStart().isBefore(other.getEnd().plusMinutes(gap));
+    /**
+     * Whether the two bookings come closer than the gap the facility needs after the earlier of them.
+     */
+    public boolean isOverlapping(Booking other) {
+        GapPolicy gaps = facility.getGapPolicy();
+        return endMinute + gaps.gapAfter(endMinute) > other.startMinute
+                && other.endMinute + gaps.gapAfter(other.endMinute) > startMinute;
+    }
+
+    public static long toEpochMinute(LocalDateTime time, boolean roundUp) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(seconds, 60);
+        return roundUp && (Math.floorMod(seconds, 60) != 0 || time.getNano() != 0) ? minute + 1 : minute;
+    }
+
+    public static LocalDateTime ofEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
     }
 
     @Override
@@ -55,8 +88,11 @@ public class Booking implements Comparable<Booking> {
 
     @Override
     public int compareTo(Booking other) {  // TODO: include end
+        // The minute fields order like the times they are rounded from, so only ties need the times
+        if (startMinute != other.startMinute) return Long.compare(startMinute, other.startMinute);
         if (getStart().isBefore(other.getStart())) return -1;
         if (getStart().isAfter(other.getStart())) return 1;
+        if (endMinute != other.endMinute) return Long.compare(endMinute, other.endMinute);
         if (getEnd().isBefore(other.getEnd())) return -1;
         if (getEnd().isAfter(other.getEnd())) return 1;
         return facility.compareTo(other.getFacility());
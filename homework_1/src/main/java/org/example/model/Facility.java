@@ -1,13 +1,18 @@
 package org.example.model;
 
-import java.time.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 public abstract class Facility implements Comparable<Facility> {
-    public int INTER_BOOKING_GAP = 15;
     private final String idNumber;
+    private volatile GapPolicy typeGapPolicy = GapPolicy.DEFAULT;
+    private volatile GapPolicy gapPolicy;
 
     public Facility(String idNumber) {
         this.idNumber = idNumber;
@@ -17,64 +22,109 @@ public abstract class Facility implements Comparable<Facility> {
         return idNumber;
     }
 
+    /**
+     * The facility's own gap policy, or else the one of its type.
+     */
+    public GapPolicy getGapPolicy() {
+        GapPolicy own = gapPolicy;
+        return own != null ? own : typeGapPolicy;
+    }
+
+    /**
+     * Sets the facility's own gap policy, {@code null} to follow its type again. Bookings already made
+     * are not checked against it; {@code Coworking.setGapPolicy} does that.
+     */
+    public void setGapPolicy(GapPolicy gapPolicy) {
+        this.gapPolicy = gapPolicy;
+    }
+
+    public boolean hasOwnGapPolicy() {
+        return gapPolicy != null;
+    }
+
+    public void setTypeGapPolicy(GapPolicy typeGapPolicy) {
+        this.typeGapPolicy = typeGapPolicy == null ? GapPolicy.DEFAULT : typeGapPolicy;
+    }
+
     public TreeSet<Booking> getFreeBookingSlotsForDate(LocalDate date, Collection<Booking> allBookings) {
-        LocalDateTime startOfDay = LocalDateTime.of(date, LocalTime.MIN);
-        LocalDateTime endOfDay =  LocalDateTime.of(date, LocalTime.MAX);
-        TreeSet<Booking> freeSlots = new TreeSet<>();
-        TreeSet<Booking> bookedSlots = getBookingsForDate(date, allBookings);
-        if (bookedSlots.isEmpty()) {
-            Booking freeSlot = new Booking(null, this, startOfDay, endOfDay);
-            freeSlots.add(freeSlot);
-            return freeSlots;
-        }
-        Booking first = bookedSlots.first();
-        if (first.getStart().isBefore(startOfDay.plusMinutes(INTER_BOOKING_GAP))
-                && first.getEnd().isAfter(endOfDay.minusMinutes(INTER_BOOKING_GAP))) {
-            return freeSlots;
-        }
-        LocalDateTime begin = first.getStart().isBefore(startOfDay.minusMinutes(INTER_BOOKING_GAP)) ?
-                first.getEnd().plusMinutes(INTER_BOOKING_GAP) : startOfDay;
-        LocalDateTime end = first.getEnd().isAfter(endOfDay.plusMinutes(INTER_BOOKING_GAP)) ?
-                first.getStart().minusMinutes(INTER_BOOKING_GAP) : endOfDay;
-        if (first.getStart().isBefore(startOfDay.minusMinutes(INTER_BOOKING_GAP))) {
-            bookedSlots.pollFirst();
+        return getFreeBookingSlotsForDates(date, date, allBookings).get(date);
+    }
+
+    /**
+     * Free slots of every date from {@code first} to {@code last} inclusive, found in a single sweep in
+     * epoch minutes: every booking blocks its own time, the gap it needs after it and the gap a booking
+     * before it would need, and what is left is cut at midnights into per-day slots. A slot shorter than
+     * the gap after it is dropped unless it runs to the end of its day.
+     */
+    public SortedMap<LocalDate, TreeSet<Booking>> getFreeBookingSlotsForDates(
+            LocalDate first, LocalDate last, Collection<Booking> allBookings
+    ) {
+        GapPolicy gaps = getGapPolicy();
+        long spanStart = first.toEpochDay() * Booking.MINUTES_PER_DAY;
+        long spanEnd = (last.toEpochDay() + 1) * Booking.MINUTES_PER_DAY;
+        long[] starts = new long[allBookings.size()];
+        long[] ends = new long[starts.length];
+        int count = 0;
+        for (Booking booking : allBookings) {
+            if (booking.getFacility() != this
+                    || booking.getEndMinute() + gaps.gapAfter(booking.getEndMinute()) <= spanStart
+                    || booking.getStartMinute() - gaps.maxGap() >= spanEnd) {
+                continue;
+            }
+            starts[count] = booking.getStartMinute();
+            ends[count++] = booking.getEndMinute();
         }
-        if (bookedSlots.isEmpty()) {
-            Booking freeSlot = new Booking(null, this, begin, end);
-            freeSlots.add(freeSlot);
-            return freeSlots;
+        // bookings of one facility never overlap, so sorting starts and ends apart keeps them paired
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+        SortedMap<LocalDate, TreeSet<Booking>> freeSlots = new TreeMap<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            freeSlots.put(date, new TreeSet<>());
         }
-        while (!bookedSlots.isEmpty()) {
-            var nextBookedSlot = bookedSlots.pollFirst();
-            end = nextBookedSlot.getStart().minusMinutes(INTER_BOOKING_GAP);
-            try {
-                var freeSlot = new Booking(null, this, begin, end);
-                if (Duration.between(freeSlot.getStart(), freeSlot.getEnd()).toMinutes() >= INTER_BOOKING_GAP) {
-                    freeSlots.add(freeSlot);
-                }
-            } catch (IllegalArgumentException ignored) {}
-            begin = nextBookedSlot.getEnd().plusMinutes(INTER_BOOKING_GAP);
+        long free = spanStart;
+        for (int i = 0; i < count; i++) {
+            long blocked = gaps.latestEndBefore(starts[i]);
+            if (blocked >= spanEnd) break;
+            if (blocked > free) {
+                addFreeSlots(freeSlots, free, blocked, gaps);
+            }
+            free = Math.max(free, ends[i] + gaps.gapAfter(ends[i]));
         }
-        if (begin.isBefore(endOfDay)) {
-            freeSlots.add(new Booking(null, this, begin, endOfDay));
+        if (free < spanEnd) {
+            addFreeSlots(freeSlots, free, spanEnd, gaps);
         }
         return freeSlots;
     }
 
-    public TreeSet<Booking> getBookingsForDate(LocalDate date, Collection<Booking> allBookings) {
-        Booking dummy = getDummyBooking(date);
-        return allBookings.stream()
-                .filter(boo -> boo.getFacility().equals(this))
-                .filter(boo -> boo.equals(dummy))
-                .collect(Collectors.toCollection(TreeSet::new));
+    private void addFreeSlots(SortedMap<LocalDate, TreeSet<Booking>> freeSlots, long from, long to, GapPolicy gaps) {
+        while (from < to) {
+            long day = Math.floorDiv(from, Booking.MINUTES_PER_DAY);
+            long dayEnd = (day + 1) * Booking.MINUTES_PER_DAY;
+            long end = Math.min(to, dayEnd);
+            if (end == dayEnd || end - from >= gaps.gapAfter(end)) {
+                LocalDate date = LocalDate.ofEpochDay(day);
+                freeSlots.get(date).add(new Booking(
+                        null, this,
+                        Booking.ofEpochMinute(from),
+                        end == dayEnd ? LocalDateTime.of(date, LocalTime.MAX) : Booking.ofEpochMinute(end)
+                ));
+            }
+            from = end;
+        }
     }
 
-    private Booking getDummyBooking(LocalDate date) {
-        return new Booking(
-                null, this,
-                LocalDateTime.of(date.minusDays(1), LocalTime.MIN.minusMinutes(INTER_BOOKING_GAP)),
-                LocalDateTime.of(date.plusDays(1), LocalTime.MIN.plusMinutes(INTER_BOOKING_GAP))
-        );
+    public TreeSet<Booking> getBookingsForDate(LocalDate date, Collection<Booking> allBookings) {
+        int margin = 2 * getGapPolicy().maxGap();
+        long dayStart = date.toEpochDay() * Booking.MINUTES_PER_DAY;
+        long dayEnd = dayStart + Booking.MINUTES_PER_DAY;
+        TreeSet<Booking> bookings = new TreeSet<>();
+        for (Booking booking : allBookings) {
+            if (booking.getFacility() == this
+                    && booking.getEndMinute() > dayStart - margin && booking.getStartMinute() < dayEnd + margin) {
+                bookings.add(booking);
+            }
+        }
+        return bookings;
     }
 
     @Override
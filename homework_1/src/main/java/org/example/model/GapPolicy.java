@@ -0,0 +1,129 @@
+package org.example.model;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * How many minutes a facility must stay free after a booking ends before the next one may start, e.g. for
+ * cleaning. The gap may depend on the time of day the booking ends, never on the date: it is a table of
+ * minutes of the day, each gap applying from its minute to the next one's. Lookups are array arithmetic
+ * on epoch minutes, so overlap checks stay free of allocations.
+ */
+public final class GapPolicy {
+    public static final int DEFAULT_GAP = 15;
+    public static final GapPolicy DEFAULT = fixed(DEFAULT_GAP);
+
+    // minutes of the day the gaps apply from, ascending and starting at midnight
+    private final int[] from;
+    private final int[] gaps;
+    private final int maxGap;
+
+    private GapPolicy(int[] from, int[] gaps) {
+        this.from = from;
+        this.gaps = gaps;
+        this.maxGap = Arrays.stream(gaps).max().orElseThrow();
+    }
+
+    public static GapPolicy fixed(int gap) {
+        return new GapPolicy(new int[] {0}, new int[] {checkGap(gap)});
+    }
+
+    /**
+     * A gap that changes at the given times of day. Before the first of them the gap of the last applies,
+     * as if carried over from the day before.
+     */
+    public static GapPolicy byTimeOfDay(SortedMap<LocalTime, Integer> gapsFrom) {
+        if (gapsFrom.isEmpty()) {
+            throw new IllegalArgumentException("No gaps given");
+        }
+        boolean fromMidnight = gapsFrom.firstKey().equals(LocalTime.MIDNIGHT);
+        int size = gapsFrom.size() + (fromMidnight ? 0 : 1);
+        int[] from = new int[size];
+        int[] gaps = new int[size];
+        int i = fromMidnight ? 0 : 1;
+        for (Map.Entry<LocalTime, Integer> entry : gapsFrom.entrySet()) {
+            from[i] = entry.getKey().toSecondOfDay() / 60;
+            gaps[i++] = checkGap(entry.getValue());
+            if (i > 1 && from[i - 1] == from[i - 2]) {
+                throw new IllegalArgumentException("Gaps must change on whole minutes");
+            }
+        }
+        if (!fromMidnight) {
+            gaps[0] = gaps[size - 1];
+        }
+        return new GapPolicy(from, gaps);
+    }
+
+    private static int checkGap(int gap) {
+        if (gap < 0 || gap >= Booking.MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Gap must be from 0 to under a day");
+        }
+        return gap;
+    }
+
+    /**
+     * The gap after a booking ending at {@code endMinute}.
+     */
+    public int gapAfter(long endMinute) {
+        if (gaps.length == 1) return gaps[0];
+        return gaps[piece(Math.floorMod(endMinute, Booking.MINUTES_PER_DAY))];
+    }
+
+    /**
+     * The latest end, in epoch minutes, up to which every booking leaves its gap before {@code startMinute}.
+     * Where the gap drops, a booking ending a little later can fit even though one ending earlier would
+     * not; such ends are left out, so that any slot ending by the returned minute is free.
+     */
+    public long latestEndBefore(long startMinute) {
+        if (gaps.length == 1) return startMinute - gaps[0];
+        // ends from startMinute - maxGap on, the first one whose gap reaches past startMinute
+        long end = startMinute - maxGap + 1;
+        while (true) {
+            long day = Math.floorDiv(end, Booking.MINUTES_PER_DAY) * Booking.MINUTES_PER_DAY;
+            int piece = piece((int) (end - day));
+            long tooLate = Math.max(end, startMinute - gaps[piece] + 1);
+            long pieceEnd = day + (piece + 1 < from.length ? from[piece + 1] : Booking.MINUTES_PER_DAY);
+            if (tooLate < pieceEnd) {
+                return tooLate - 1;
+            }
+            end = pieceEnd;
+        }
+    }
+
+    /**
+     * The longest gap at any time of day, for widening searches for neighbouring bookings.
+     */
+    public int maxGap() {
+        return maxGap;
+    }
+
+    /**
+     * The gaps by the time of day they apply from, starting at midnight; {@link #byTimeOfDay} turns it
+     * back into this policy.
+     */
+    public SortedMap<LocalTime, Integer> getGapsFrom() {
+        SortedMap<LocalTime, Integer> gapsFrom = new TreeMap<>();
+        for (int i = 0; i < gaps.length; i++) {
+            gapsFrom.put(LocalTime.ofSecondOfDay(from[i] * 60L), gaps[i]);
+        }
+        return gapsFrom;
+    }
+
+    private int piece(int minuteOfDay) {
+        int index = Arrays.binarySearch(from, minuteOfDay);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    @Override
+    public String toString() {
+        if (gaps.length == 1) return "GapPolicy{" + gaps[0] + '}';
+        StringBuilder text = new StringBuilder("GapPolicy{");
+        for (int i = 0; i < gaps.length; i++) {
+            text.append(i == 0 ? "" : ", ").append(LocalTime.ofSecondOfDay(from[i] * 60L)).append('=').append(gaps[i]);
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The same time of day on the chosen days of the week, from {@code firstDate} to {@code lastDate}
+ * inclusive.
+ */
+public class Recurrence {
+    private final EnumSet<DayOfWeek> days;
+    private final LocalTime start;
+    private final LocalTime end;
+    private final LocalDate firstDate;
+    private final LocalDate lastDate;
+
+    public Recurrence(Set<DayOfWeek> days, LocalTime start, LocalTime end, LocalDate firstDate, LocalDate lastDate) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End time is before or equal to start time");
+        }
+        if (lastDate.isBefore(firstDate)) {
+            throw new IllegalArgumentException("Last date is before first date");
+        }
+        this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+        this.start = start;
+        this.end = end;
+        this.firstDate = firstDate;
+        this.lastDate = lastDate;
+    }
+
+    public Set<DayOfWeek> getDays() {
+        return EnumSet.copyOf(days);
+    }
+
+    public LocalTime getStart() {
+        return start;
+    }
+
+    public LocalTime getEnd() {
+        return end;
+    }
+
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public boolean occursOn(LocalDate date) {
+        return !date.isBefore(firstDate) && !date.isAfter(lastDate) && days.contains(date.getDayOfWeek());
+    }
+
+    /**
+     * The first date from {@code from} on with an occurrence, or {@code null}. Looks at no more than a week.
+     */
+    public LocalDate nextDate(LocalDate from) {
+        LocalDate date = from.isBefore(firstDate) ? firstDate : from;
+        for (int i = 0; i < 7 && !date.isAfter(lastDate); i++, date = date.plusDays(1)) {
+            if (days.contains(date.getDayOfWeek())) {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether an occurrence of this rule comes closer than the gap after the earlier one to one of {@code other}.
+     * Both rules repeat weekly, so only same-day and neighbouring-day pairs within the first week of the
+     * common date range need to be compared.
+     */
+    public boolean overlaps(Recurrence other, GapPolicy gaps) {
+        int gapAfter = gaps.gapAfter(endMinute());
+        int otherGapAfter = gaps.gapAfter(other.endMinute());
+        for (int delta = -1; delta <= 1; delta++) {
+            int shift = delta * Booking.MINUTES_PER_DAY;
+            if (startMinute() >= other.endMinute() + shift + otherGapAfter
+                    || other.startMinute() + shift >= endMinute() + gapAfter) {
+                continue;
+            }
+            LocalDate from = max(firstDate, other.firstDate.minusDays(delta));
+            LocalDate to = min(lastDate, other.lastDate.minusDays(delta));
+            for (int i = 0; i < 7 && !from.plusDays(i).isAfter(to); i++) {
+                LocalDate date = from.plusDays(i);
+                if (days.contains(date.getDayOfWeek()) && other.days.contains(date.plusDays(delta).getDayOfWeek())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    int startMinute() {
+        return start.toSecondOfDay() / 60;
+    }
+
+    int endMinute() {
+        int seconds = end.toSecondOfDay();
+        return seconds / 60 + (seconds % 60 != 0 || end.getNano() != 0 ? 1 : 0);
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    public List<Booking> expand(User user, Facility facility) {
+        List<Booking> bookings = new ArrayList<>();
+        for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+            if (days.contains(date.getDayOfWeek())) {
+                bookings.add(new Booking(user, facility, date.atTime(start), date.atTime(end)));
+            }
+        }
+        return bookings;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Recurrence other)) return false;
+        return days.equals(other.days) && start.equals(other.start) && end.equals(other.end)
+                && firstDate.equals(other.firstDate) && lastDate.equals(other.lastDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(days, start, end, firstDate, lastDate);
+    }
+
+    @Override
+    public String toString() {
+        return "Recurrence{" + days + ' ' + start + '-' + end + ", " + firstDate + ".." + lastDate + '}';
+    }
+}
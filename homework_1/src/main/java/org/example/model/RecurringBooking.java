@@ -0,0 +1,124 @@
+package org.example.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A standing reservation of one facility following a {@link Recurrence}. It is stored as a single rule;
+ * its occurrences are only materialised as {@link Booking}s for the window being looked at, and
+ * conflict checks work out the one or two occurrences that could clash instead of expanding the rule.
+ */
+public class RecurringBooking {
+    private final User user;
+    private final Facility facility;
+    private final Recurrence recurrence;
+
+    public RecurringBooking(User user, Facility facility, Recurrence recurrence) {
+        this.user = user;
+        this.facility = facility;
+        this.recurrence = recurrence;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Facility getFacility() {
+        return facility;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * The first occurrence, or {@code null} if none of the rule's days falls into its date range.
+     */
+    public Booking getFirstOccurrence() {
+        LocalDate date = recurrence.nextDate(recurrence.getFirstDate());
+        return date == null ? null : occurrenceOn(date);
+    }
+
+    /**
+     * The first occurrence starting at or after {@code from}, or {@code null}.
+     */
+    public Booking nextOccurrence(LocalDateTime from) {
+        LocalDate date = recurrence.nextDate(from.toLocalDate());
+        if (date != null && date.atTime(recurrence.getStart()).isBefore(from)) {
+            date = recurrence.nextDate(date.plusDays(1));
+        }
+        return date == null ? null : occurrenceOn(date);
+    }
+
+    /**
+     * Occurrences ending after {@code from} and starting before {@code to}, in start order.
+     */
+    public List<Booking> occurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        List<Booking> occurrences = new ArrayList<>();
+        LocalDate last = to.toLocalDate();
+        for (LocalDate date = recurrence.nextDate(from.toLocalDate());
+             date != null && !date.isAfter(last);
+             date = recurrence.nextDate(date.plusDays(1))) {
+            Booking occurrence = occurrenceOn(date);
+            if (occurrence.getEnd().isAfter(from) && occurrence.getStart().isBefore(to)) {
+                occurrences.add(occurrence);
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * The occurrence {@code booking} overlaps, or {@code null}. Occurrences never span midnight and gaps are
+     * shorter than a day, so at most the first two from the day the longest gap before {@code booking}
+     * starts on can end in time for it, and the first one that does not is the last one to check.
+     */
+    public Booking findOverlapping(Booking booking) {
+        GapPolicy gaps = facility.getGapPolicy();
+        long from = booking.getStartMinute() - gaps.maxGap();
+        for (LocalDate date = recurrence.nextDate(Booking.ofEpochMinute(from).toLocalDate());
+             date != null;
+             date = recurrence.nextDate(date.plusDays(1))) {
+            Booking occurrence = occurrenceOn(date);
+            if (occurrence.isOverlapping(booking)) {
+                return occurrence;
+            }
+            if (occurrence.getEndMinute() + gaps.gapAfter(occurrence.getEndMinute()) > booking.getStartMinute()) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public boolean overlaps(RecurringBooking other) {
+        return recurrence.overlaps(other.recurrence, facility.getGapPolicy());
+    }
+
+    private Booking occurrenceOn(LocalDate date) {
+        return new Booking(user, facility, date.atTime(recurrence.getStart()), date.atTime(recurrence.getEnd()));
+    }
+
+    /**
+     * Like {@link Booking#equals}, the user is not part of a rule's identity.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecurringBooking other)) return false;
+        return facility.equals(other.facility) && recurrence.equals(other.recurrence);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * facility.hashCode() + recurrence.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "RecurringBooking {" + user +
+                ", facility=" + facility.getIdNumber() +
+                ", " + recurrence +
+                '}';
+    }
+}
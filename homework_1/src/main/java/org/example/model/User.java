@@ -1,30 +1,55 @@
 package org.example.model;
 
+import org.example.utils.PasswordHash;
+
 public class User {
     private final String login;
-    private String password;
+    private volatile PasswordHash passwordHash;
     private boolean isAdmin = false;
 
     public User(String login, String password) {
-        this.login = login;
-        this.password = password;
+        this(login, PasswordHash.of(password), false);
     }
 
     public User(String login, String password, boolean isAdmin) {
-        this(login, password);
+        this(login, PasswordHash.of(password), isAdmin);
+    }
+
+    private User(String login, PasswordHash passwordHash, boolean isAdmin) {
+        this.login = login;
+        this.passwordHash = passwordHash;
         this.isAdmin = isAdmin;
     }
 
+    /**
+     * A user restored from a stored hash, without hashing anything.
+     */
+    public static User withPasswordHash(String login, PasswordHash passwordHash, boolean isAdmin) {
+        return new User(login, passwordHash, isAdmin);
+    }
+
+    /**
+     * A user that stands in for a login, e.g. the owner of an archived booking; no password matches it.
+     */
+    public static User withoutPassword(String login, boolean isAdmin) {
+        return new User(login, (PasswordHash) null, isAdmin);
+    }
+
     public String getLogin() {
         return login;
     }
 
-    public String getPassword() {
-        return password;
+    public PasswordHash getPasswordHash() {
+        return passwordHash;
     }
 
     public void setPassword(String password) {
-        this.password = password;
+        this.passwordHash = PasswordHash.of(password);
+    }
+
+    public boolean checkPassword(String password) {
+        PasswordHash hash = passwordHash;
+        return hash != null && hash.matches(password);
     }
 
     public boolean isAdmin() {
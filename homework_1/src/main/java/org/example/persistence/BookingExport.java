@@ -0,0 +1,290 @@
+package org.example.persistence;
+
+import org.example.model.Booking;
+import org.example.model.User;
+import org.example.service.Coworking;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk export of bookings for analytics, streamed from {@link Coworking#iterateBookings} so memory
+ * stays bounded by one block whatever the number of bookings.
+ * <p>
+ * The columnar format is a header ({@code int} magic, {@code int} version) followed by blocks of up to
+ * {@value #BLOCK_ROWS} bookings and an {@code int 0} terminator. A block is
+ * <pre>
+ * int rows, long base start minute,
+ * int n, n x UTF facility ids, int m, m x UTF logins   (dictionary entries first used in this block)
+ * 4 x (int byte length, column)                        facility, user, start, duration
+ * </pre>
+ * Columns hold varints: facility codes, user codes plus one (0 for no user), start minutes as zigzag
+ * deltas from the previous row (the first from the base) and durations in minutes. Codes number the
+ * dictionary entries in order of appearance across the whole export. Times are minutes since the epoch
+ * (UTC), so sub-minute parts are dropped.
+ */
+public final class BookingExport {
+    static final int MAGIC = 0x43574B58;
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 65_536;
+
+    private static final String CSV_HEADER = "facility,user,start,end\n";
+
+    public interface RowConsumer {
+        void accept(String facility, String user, LocalDateTime start, LocalDateTime end);
+    }
+
+    private BookingExport() {}
+
+    public static long writeColumnar(Coworking coworking, OutputStream out) throws IOException {
+        return writeColumnar(coworking.iterateBookings(null), out);
+    }
+
+    /**
+     * Writes {@code bookings} in the columnar format and returns how many were written. Bookings in
+     * start order, as {@link Coworking#iterateBookings} yields them, give the smallest start deltas.
+     */
+    public static long writeColumnar(Iterator<Booking> bookings, OutputStream out) throws IOException {
+        return writeColumnar(bookings, out, BLOCK_ROWS);
+    }
+
+    static long writeColumnar(Iterator<Booking> bookings, OutputStream out, int blockRows) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        Block block = new Block();
+        long rows = 0;
+        while (bookings.hasNext()) {
+            block.add(bookings.next());
+            rows++;
+            if (block.rows == blockRows) {
+                block.writeTo(data);
+            }
+        }
+        if (block.rows > 0) {
+            block.writeTo(data);
+        }
+        data.writeInt(0);
+        data.flush();
+        return rows;
+    }
+
+    /**
+     * Reads a columnar export back, handing every booking to {@code consumer}; returns the number read.
+     */
+    public static long readColumnar(InputStream in, RowConsumer consumer) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a booking export");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported booking export version " + version);
+        }
+        List<String> facilities = new ArrayList<>();
+        List<String> users = new ArrayList<>();
+        long total = 0;
+        for (int rows = data.readInt(); rows > 0; rows = data.readInt()) {
+            long start = data.readLong();
+            for (int i = data.readInt(); i > 0; i--) {
+                facilities.add(data.readUTF());
+            }
+            for (int i = data.readInt(); i > 0; i--) {
+                users.add(data.readUTF());
+            }
+            Column facilityColumn = Column.read(data);
+            Column userColumn = Column.read(data);
+            Column startColumn = Column.read(data);
+            Column durationColumn = Column.read(data);
+            for (int row = 0; row < rows; row++) {
+                start += Column.unzigzag(startColumn.readVarLong());
+                long end = start + durationColumn.readVarLong();
+                int user = (int) userColumn.readVarLong();
+                consumer.accept(
+                        facilities.get((int) facilityColumn.readVarLong()),
+                        user == 0 ? null : users.get(user - 1),
+                        Booking.ofEpochMinute(start),
+                        Booking.ofEpochMinute(end)
+                );
+            }
+            total += rows;
+        }
+        return total;
+    }
+
+    public static long writeCsv(Coworking coworking, Writer out) throws IOException {
+        return writeCsv(coworking.iterateBookings(null), out);
+    }
+
+    /**
+     * Writes {@code bookings} as CSV with a {@code facility,user,start,end} header and ISO-8601 times;
+     * bookings without a user have an empty user field.
+     */
+    public static long writeCsv(Iterator<Booking> bookings, Writer out) throws IOException {
+        Writer csv = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+        csv.write(CSV_HEADER);
+        long rows = 0;
+        while (bookings.hasNext()) {
+            Booking booking = bookings.next();
+            writeCsvField(csv, booking.getFacility().getIdNumber());
+            csv.write(',');
+            if (booking.getUser() != null) {
+                writeCsvField(csv, booking.getUser().getLogin());
+            }
+            csv.write(',');
+            csv.write(booking.getStart().toString());
+            csv.write(',');
+            csv.write(booking.getEnd().toString());
+            csv.write('\n');
+            rows++;
+        }
+        csv.flush();
+        return rows;
+    }
+
+    public static long writeCsv(Coworking coworking, OutputStream out) throws IOException {
+        return writeCsv(coworking, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private static void writeCsvField(Writer csv, String value) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+
+    /**
+     * The rows of one block, column by column, plus the dictionary entries they introduce.
+     */
+    private static final class Block {
+        final Map<String, Integer> facilityCodes = new HashMap<>();
+        final Map<String, Integer> userCodes = new HashMap<>();
+        final List<String> newFacilities = new ArrayList<>();
+        final List<String> newUsers = new ArrayList<>();
+        final Column facilities = new Column();
+        final Column users = new Column();
+        final Column starts = new Column();
+        final Column durations = new Column();
+        int rows;
+        long base;
+        long previousStart;
+
+        void add(Booking booking) {
+            if (rows == 0) {
+                base = booking.getStartMinute();
+                previousStart = base;
+            }
+            facilities.writeVarLong(code(facilityCodes, newFacilities, booking.getFacility().getIdNumber()));
+            User user = booking.getUser();
+            users.writeVarLong(user == null ? 0 : code(userCodes, newUsers, user.getLogin()) + 1L);
+            starts.writeVarLong(Column.zigzag(booking.getStartMinute() - previousStart));
+            durations.writeVarLong(booking.getEndMinute() - booking.getStartMinute());
+            previousStart = booking.getStartMinute();
+            rows++;
+        }
+
+        private static int code(Map<String, Integer> codes, List<String> added, String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put(value, code);
+                added.add(value);
+            }
+            return code;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(rows);
+            out.writeLong(base);
+            out.writeInt(newFacilities.size());
+            for (String facility : newFacilities) {
+                out.writeUTF(facility);
+            }
+            out.writeInt(newUsers.size());
+            for (String user : newUsers) {
+                out.writeUTF(user);
+            }
+            for (Column column : List.of(facilities, users, starts, durations)) {
+                column.writeTo(out);
+                column.clear();
+            }
+            newFacilities.clear();
+            newUsers.clear();
+            rows = 0;
+        }
+    }
+
+    private static final class Column {
+        private byte[] bytes;
+        private int size;
+        private int position;
+
+        Column() {
+            this(new byte[1 << 12], 0);
+        }
+
+        private Column(byte[] bytes, int size) {
+            this.bytes = bytes;
+            this.size = size;
+        }
+
+        static Column read(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new Column(bytes, bytes.length);
+        }
+
+        static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        void writeVarLong(long value) {
+            if (bytes.length - size < 10) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position == size) {
+                    throw new EOFException("Truncated column");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            out.write(bytes, 0, size);
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
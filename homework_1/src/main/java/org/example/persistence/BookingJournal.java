@@ -0,0 +1,438 @@
+package org.example.persistence;
+
+import org.example.model.Booking;
+import org.example.model.RecurringBooking;
+import org.example.model.Facility;
+import org.example.model.GapPolicy;
+import org.example.model.User;
+import org.example.service.Coworking;
+import org.example.service.CoworkingListener;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of every {@link Coworking} mutation, plus periodic compact snapshots.
+ * <p>
+ * Records are framed as {@code length, crc32, payload} and appended to the current segment
+ * {@code journal-<first sequence>.log}. Appends only go to the page cache; a background task forces
+ * them to disk every {@code syncIntervalMillis}, so one fsync covers every record of the interval and
+ * at most that interval is lost on a crash. A torn record at the tail is detected by its checksum and
+ * cut off on recovery.
+ * <p>
+ * A snapshot first rolls the journal over to a new segment starting at sequence {@code s}, then writes
+ * the whole state to {@code snapshot.bin} tagged with {@code s} while writers carry on, and finally drops
+ * the segments before {@code s}. Recovery loads the snapshot and replays only the segments from {@code s},
+ * so startup time follows the journal tail rather than the total history.
+ * <p>
+ * Bookings moved to a {@link org.example.service.BookingArchive} are journaled as removals: from then on
+ * the archive is what keeps them.
+ * <p>
+ * Records are written after the change they describe is made in memory. Once a write, sync or rollover
+ * fails, the journal keeps the failure, stops writing and {@link Coworking#stopWrites stops} the coworking
+ * taking further changes, so at most the changes already made are left unsaved.
+ */
+public class BookingJournal implements CoworkingListener, Closeable {
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+    public static final long DEFAULT_SNAPSHOT_THRESHOLD = 100_000;
+
+    static final String SNAPSHOT = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x43574B53;
+
+    private final Path directory;
+    private final Coworking coworking;
+    private final long snapshotThreshold;
+    private final ScheduledExecutorService scheduler;
+    private final Object snapshotLock = new Object();
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private DataOutputStream out;
+    private long nextSequence;
+    private long recordsSinceSnapshot;
+    private boolean dirty;
+    private boolean closed;
+    private IOException failure;
+    private long replayedRecords;
+
+    private BookingJournal(Path directory, Coworking coworking, long snapshotThreshold) {
+        this.directory = directory;
+        this.coworking = coworking;
+        this.snapshotThreshold = snapshotThreshold;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static BookingJournal open(Path directory, Coworking coworking) throws IOException {
+        return open(directory, coworking, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_THRESHOLD);
+    }
+
+    /**
+     * Restores the state found in {@code directory} into {@code coworking} and starts journaling its
+     * further mutations.
+     */
+    public static BookingJournal open(
+            Path directory, Coworking coworking, long syncIntervalMillis, long snapshotThreshold
+    ) throws IOException {
+        Files.createDirectories(directory);
+        BookingJournal journal = new BookingJournal(directory, coworking, snapshotThreshold);
+        journal.recover();
+        journal.openSegment(journal.nextSequence);
+        coworking.addListener(journal);
+        journal.scheduler.scheduleWithFixedDelay(
+                journal::maintain, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS
+        );
+        return journal;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * The failure that stopped the journal, or {@code null} while it works.
+     */
+    public synchronized IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void userAdded(User user) {
+        append(JournalCodec.userAdded(user));
+    }
+
+    @Override
+    public void userRemoved(User user) {
+        append(JournalCodec.userRemoved(user));
+    }
+
+    @Override
+    public void facilityAdded(Facility facility) {
+        append(JournalCodec.facilityAdded(facility));
+    }
+
+    @Override
+    public void facilityRemoved(Facility facility) {
+        append(JournalCodec.facilityRemoved(facility));
+    }
+
+    @Override
+    public void facilityEdited(Facility facility) {
+        append(JournalCodec.facilityEdited(facility));
+    }
+
+    @Override
+    public void gapPolicySet(Facility facility, GapPolicy policy) {
+        append(JournalCodec.gapPolicySet(facility, policy));
+    }
+
+    @Override
+    public void gapPolicySet(Class<? extends Facility> type, GapPolicy policy) {
+        append(JournalCodec.gapPolicySet(type, policy));
+    }
+
+    @Override
+    public void bookingAdded(Booking booking) {
+        append(JournalCodec.bookingAdded(booking));
+    }
+
+    /**
+     * One record for the whole batch, so a crash never leaves part of it to be replayed.
+     */
+    @Override
+    public void bookingsAdded(List<Booking> bookings) {
+        append(JournalCodec.bookingsAdded(bookings));
+    }
+
+    @Override
+    public void bookingRemoved(Booking booking) {
+        append(JournalCodec.bookingRemoved(booking));
+    }
+
+    @Override
+    public void bookingArchived(Booking booking) {
+        append(JournalCodec.bookingRemoved(booking));
+    }
+
+    @Override
+    public void recurringBookingAdded(RecurringBooking rule) {
+        append(JournalCodec.recurringBookingAdded(rule));
+    }
+
+    @Override
+    public void recurringBookingRemoved(RecurringBooking rule) {
+        append(JournalCodec.recurringBookingRemoved(rule));
+    }
+
+    private synchronized void append(byte[] record) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (failure != null) return;
+        try {
+            writeRecord(out, record, crc);
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        nextSequence++;
+        recordsSinceSnapshot++;
+        dirty = true;
+    }
+
+    public void sync() throws IOException {
+        FileChannel toForce;
+        synchronized (this) {
+            if (!dirty || closed || failure != null) return;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+            dirty = false;
+            toForce = channel;
+        }
+        try {
+            toForce.force(false);
+        } catch (ClosedChannelException ignored) {
+            // rolled over meanwhile, and closing the segment forced it already
+        } catch (IOException e) {
+            synchronized (this) {
+                fail(e);
+            }
+            throw e;
+        }
+    }
+
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long sequence;
+            synchronized (this) {
+                if (closed || failure != null) return;
+                sequence = nextSequence;
+                try {
+                    closeSegment();
+                    openSegment(sequence);
+                } catch (IOException e) {
+                    fail(e);
+                    throw e;
+                }
+                recordsSinceSnapshot = 0;
+            }
+            writeSnapshot(sequence);
+            deleteSegmentsBefore(sequence);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        coworking.removeListener(this);
+        scheduler.shutdownNow();
+        synchronized (snapshotLock) {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                if (failure == null) {
+                    closeSegment();
+                } else {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Syncs and snapshots when due. Failures to save are kept by {@link #fail}; a failed snapshot leaves
+     * the journal intact and is retried once the next one is due.
+     */
+    private void maintain() {
+        try {
+            sync();
+            boolean due;
+            synchronized (this) {
+                due = recordsSinceSnapshot >= snapshotThreshold;
+            }
+            if (due) {
+                snapshot();
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // kept as the failure, or to be retried; throwing would cancel the schedule
+        }
+    }
+
+    private void fail(IOException e) {
+        failure = e;
+        coworking.stopWrites("Changes can no longer be saved: " + e.getMessage(), e);
+    }
+
+    private void recover() throws IOException {
+        long snapshotSequence = 0;
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a coworking snapshot: " + snapshot);
+                }
+                snapshotSequence = in.readLong();
+                byte[] record;
+                while ((record = readRecord(in, crc)) != null) {
+                    JournalCodec.apply(record, coworking);
+                }
+            }
+        }
+        long sequence = snapshotSequence;
+        List<Long> starts = listSegmentStarts();
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long nextStart = i + 1 < starts.size() ? starts.get(i + 1) : Long.MAX_VALUE;
+            if (nextStart <= snapshotSequence) continue;
+            sequence = Math.max(sequence, replaySegment(segmentPath(start), start, snapshotSequence));
+        }
+        nextSequence = sequence;
+    }
+
+    private long replaySegment(Path segment, long start, long fromSequence) throws IOException {
+        long sequence = start;
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            byte[] record;
+            while ((record = readRecord(in, crc)) != null) {
+                if (sequence >= fromSequence) {
+                    JournalCodec.apply(record, coworking);
+                    replayedRecords++;
+                }
+                sequence++;
+                validLength += Integer.BYTES * 2L + record.length;
+            }
+        }
+        if (Files.size(segment) > validLength) {
+            try (FileChannel truncate = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                truncate.truncate(validLength);
+            }
+        }
+        return sequence;
+    }
+
+    private void writeSnapshot(long sequence) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel snapshotChannel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream snapshotOut = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(snapshotChannel), 1 << 16)
+            );
+            CRC32 snapshotCrc = new CRC32();
+            snapshotOut.writeInt(SNAPSHOT_MAGIC);
+            snapshotOut.writeLong(sequence);
+            for (User user : coworking.viewAllUsers()) {
+                writeRecord(snapshotOut, JournalCodec.userAdded(user), snapshotCrc);
+            }
+            List<Facility> facilities = List.copyOf(coworking.viewAllFacilities());
+            for (Facility facility : facilities) {
+                writeRecord(snapshotOut, JournalCodec.facilityAdded(facility), snapshotCrc);
+                // Bookings made before a gap was widened need not keep it, so they are restored with no
+                // gaps and the policies are set after them
+                writeRecord(snapshotOut, JournalCodec.gapPolicySet(facility, GapPolicy.fixed(0)), snapshotCrc);
+            }
+            for (Booking booking : coworking.viewScheduledBookings()) {
+                writeRecord(snapshotOut, JournalCodec.bookingAdded(booking), snapshotCrc);
+            }
+            for (RecurringBooking rule : coworking.viewRecurringBookings()) {
+                writeRecord(snapshotOut, JournalCodec.recurringBookingAdded(rule), snapshotCrc);
+            }
+            for (var entry : coworking.viewTypeGapPolicies().entrySet()) {
+                writeRecord(snapshotOut, JournalCodec.gapPolicySet(entry.getKey(), entry.getValue()), snapshotCrc);
+            }
+            for (Facility facility : facilities) {
+                GapPolicy own = facility.hasOwnGapPolicy() ? facility.getGapPolicy() : null;
+                writeRecord(snapshotOut, JournalCodec.gapPolicySet(facility, own), snapshotCrc);
+            }
+            snapshotOut.flush();
+            snapshotChannel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteSegmentsBefore(long sequence) throws IOException {
+        for (long start : listSegmentStarts()) {
+            if (start < sequence) {
+                Files.deleteIfExists(segmentPath(start));
+            }
+        }
+    }
+
+    private void openSegment(long start) throws IOException {
+        channel = FileChannel.open(segmentPath(start),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    }
+
+    private void closeSegment() throws IOException {
+        out.flush();
+        channel.force(false);
+        channel.close();
+        dirty = false;
+    }
+
+    private List<Long> listSegmentStarts() throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> starts.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())
+                    )));
+        }
+        starts.sort(null);
+        return starts;
+    }
+
+    private Path segmentPath(long start) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] record, CRC32 crc) throws IOException {
+        crc.reset();
+        crc.update(record);
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.write(record);
+    }
+
+    /**
+     * Reads one framed record, or returns {@code null} at the end of the stream or at a torn record.
+     */
+    private static byte[] readRecord(DataInputStream in, CRC32 crc) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > (1 << 20)) return null;
+            byte[] record = new byte[length];
+            in.readFully(record);
+            crc.reset();
+            crc.update(record);
+            return (int) crc.getValue() == checksum ? record : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
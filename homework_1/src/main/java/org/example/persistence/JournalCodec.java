@@ -0,0 +1,345 @@
+package org.example.persistence;
+
+import org.example.model.*;
+import org.example.service.Coworking;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.PasswordHash;
+
+import java.io.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Binary encoding of journal and snapshot records, and their replay against a {@link Coworking}.
+ * Replay is tolerant: a record that no longer applies (a booking that is already there or already
+ * gone, a user that already exists) is skipped, which is what lets a snapshot taken while writes
+ * continue be reconciled by the journal tail that follows it.
+ */
+class JournalCodec {
+    /** Written by older journals, which kept the password in plain text; it is hashed on replay. */
+    static final byte USER_ADDED = 1;
+    static final byte USER_REMOVED = 2;
+    static final byte FACILITY_ADDED = 3;
+    static final byte FACILITY_REMOVED = 4;
+    static final byte FACILITY_EDITED = 5;
+    static final byte BOOKING_ADDED = 6;
+    static final byte BOOKING_REMOVED = 7;
+    static final byte RECURRING_BOOKING_ADDED = 8;
+    static final byte RECURRING_BOOKING_REMOVED = 9;
+    static final byte USER_WITH_HASH_ADDED = 10;
+    static final byte FACILITY_GAP_POLICY_SET = 11;
+    static final byte TYPE_GAP_POLICY_SET = 12;
+    static final byte BOOKINGS_ADDED = 13;
+
+    private static final User REPLAY_ADMIN = User.withoutPassword("journal", true);
+
+    private static final byte WORKSTATION = 'W';
+    private static final byte CONFERENCE_ROOM = 'C';
+    private static final byte ANY_FACILITY = 'F';
+
+    private JournalCodec() {}
+
+    static byte[] userAdded(User user) {
+        return encode(USER_WITH_HASH_ADDED, out -> {
+            out.writeUTF(user.getLogin());
+            out.writeBoolean(user.getPasswordHash() != null);
+            if (user.getPasswordHash() != null) {
+                out.writeUTF(user.getPasswordHash().toString());
+            }
+            out.writeBoolean(user.isAdmin());
+        });
+    }
+
+    static byte[] userRemoved(User user) {
+        return encode(USER_REMOVED, out -> out.writeUTF(user.getLogin()));
+    }
+
+    static byte[] facilityAdded(Facility facility) {
+        return encode(FACILITY_ADDED, out -> writeFacility(out, facility));
+    }
+
+    static byte[] facilityEdited(Facility facility) {
+        return encode(FACILITY_EDITED, out -> writeFacility(out, facility));
+    }
+
+    static byte[] facilityRemoved(Facility facility) {
+        return encode(FACILITY_REMOVED, out -> out.writeUTF(facility.getIdNumber()));
+    }
+
+    static byte[] gapPolicySet(Facility facility, GapPolicy policy) {
+        return encode(FACILITY_GAP_POLICY_SET, out -> {
+            out.writeUTF(facility.getIdNumber());
+            writeGapPolicy(out, policy);
+        });
+    }
+
+    static byte[] gapPolicySet(Class<? extends Facility> type, GapPolicy policy) {
+        return encode(TYPE_GAP_POLICY_SET, out -> {
+            if (type == ConferenceRoom.class) {
+                out.writeByte(CONFERENCE_ROOM);
+            } else if (type == Workstation.class) {
+                out.writeByte(WORKSTATION);
+            } else if (type == Facility.class) {
+                out.writeByte(ANY_FACILITY);
+            } else {
+                throw new IOException("Unsupported facility type " + type.getName());
+            }
+            writeGapPolicy(out, policy);
+        });
+    }
+
+    static byte[] bookingAdded(Booking booking) {
+        return encode(BOOKING_ADDED, out -> writeBooking(out, booking));
+    }
+
+    static byte[] bookingsAdded(List<Booking> bookings) {
+        return encode(BOOKINGS_ADDED, out -> {
+            out.writeInt(bookings.size());
+            for (Booking booking : bookings) {
+                writeBooking(out, booking);
+            }
+        });
+    }
+
+    static byte[] bookingRemoved(Booking booking) {
+        return encode(BOOKING_REMOVED, out -> {
+            out.writeUTF(booking.getFacility().getIdNumber());
+            writeTime(out, booking.getStart());
+            writeTime(out, booking.getEnd());
+        });
+    }
+
+    static byte[] recurringBookingAdded(RecurringBooking rule) {
+        return encode(RECURRING_BOOKING_ADDED, out -> {
+            out.writeUTF(rule.getFacility().getIdNumber());
+            User user = rule.getUser();
+            out.writeBoolean(user != null);
+            if (user != null) {
+                out.writeUTF(user.getLogin());
+            }
+            writeRecurrence(out, rule.getRecurrence());
+        });
+    }
+
+    static byte[] recurringBookingRemoved(RecurringBooking rule) {
+        return encode(RECURRING_BOOKING_REMOVED, out -> {
+            out.writeUTF(rule.getFacility().getIdNumber());
+            writeRecurrence(out, rule.getRecurrence());
+        });
+    }
+
+    /**
+     * Applies one record, returning {@code false} if it was skipped.
+     */
+    static boolean apply(byte[] record, Coworking coworking) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        try {
+            switch (type) {
+                case USER_ADDED -> coworking.addUser(new User(in.readUTF(), in.readUTF(), in.readBoolean()));
+                case USER_WITH_HASH_ADDED -> {
+                    String login = in.readUTF();
+                    PasswordHash hash = in.readBoolean() ? PasswordHash.parse(in.readUTF()) : null;
+                    coworking.addUser(User.withPasswordHash(login, hash, in.readBoolean()));
+                }
+                case USER_REMOVED -> {
+                    String login = in.readUTF();
+                    return coworking.viewAllUsers().stream()
+                            .filter(user -> user.getLogin().equals(login))
+                            .findAny()
+                            .map(coworking::removeUser)
+                            .orElse(false);
+                }
+                case FACILITY_ADDED -> coworking.addFacility(readFacility(in));
+                case FACILITY_EDITED -> {
+                    Facility edited = readFacility(in);
+                    Facility facility = coworking.getFacility(edited.getIdNumber());
+                    if (facility instanceof ConferenceRoom room && edited instanceof ConferenceRoom source) {
+                        coworking.editConferenceRoom(room, source.getSeats());
+                    } else if (facility instanceof Workstation station && edited instanceof Workstation source) {
+                        coworking.editWorkstation(station, source.getDescription());
+                    } else {
+                        return false;
+                    }
+                }
+                case FACILITY_REMOVED -> coworking.removeFacility(in.readUTF());
+                case FACILITY_GAP_POLICY_SET -> {
+                    Facility facility = coworking.getFacility(in.readUTF());
+                    coworking.setGapPolicy(facility, readGapPolicy(in));
+                }
+                case TYPE_GAP_POLICY_SET -> {
+                    byte facilityType = in.readByte();
+                    Class<? extends Facility> facilityClass = switch (facilityType) {
+                        case CONFERENCE_ROOM -> ConferenceRoom.class;
+                        case WORKSTATION -> Workstation.class;
+                        case ANY_FACILITY -> Facility.class;
+                        default -> throw new IOException("Unknown facility type " + facilityType);
+                    };
+                    coworking.setGapPolicy(facilityClass, readGapPolicy(in));
+                }
+                case BOOKING_ADDED -> {
+                    return addBooking(in, coworking);
+                }
+                case BOOKINGS_ADDED -> {
+                    // the record is whole or cut off as torn, so the batch is replayed entirely; each of
+                    // its bookings is skipped on its own if a snapshot already has it
+                    boolean added = false;
+                    for (int i = in.readInt(); i > 0; i--) {
+                        added |= addBooking(in, coworking);
+                    }
+                    return added;
+                }
+                case BOOKING_REMOVED -> {
+                    Facility facility = coworking.getFacility(in.readUTF());
+                    return coworking.removeBooking(facility, readTime(in), readTime(in), REPLAY_ADMIN);
+                }
+                case RECURRING_BOOKING_ADDED -> {
+                    Facility facility = coworking.getFacility(in.readUTF());
+                    User user = in.readBoolean() ? findUser(coworking, in.readUTF()) : null;
+                    return coworking.addRecurringBooking(user, facility, readRecurrence(in));
+                }
+                case RECURRING_BOOKING_REMOVED -> {
+                    Facility facility = coworking.getFacility(in.readUTF());
+                    return coworking.removeRecurringBooking(
+                            new RecurringBooking(null, facility, readRecurrence(in)), REPLAY_ADMIN
+                    );
+                }
+                default -> throw new IOException("Unknown journal record type " + type);
+            }
+        } catch (MemberAlreadyExistsException | MemberNotFoundException | NoSuchElementException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean addBooking(DataInputStream in, Coworking coworking) throws IOException {
+        String idNumber = in.readUTF();
+        User user = in.readBoolean() ? findUser(coworking, in.readUTF()) : null;
+        LocalDateTime start = readTime(in);
+        LocalDateTime end = readTime(in);
+        try {
+            return coworking.addBooking(user, coworking.getFacility(idNumber), start, end);
+        } catch (MemberNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static void writeBooking(DataOutputStream out, Booking booking) throws IOException {
+        out.writeUTF(booking.getFacility().getIdNumber());
+        User user = booking.getUser();
+        out.writeBoolean(user != null);
+        if (user != null) {
+            out.writeUTF(user.getLogin());
+        }
+        writeTime(out, booking.getStart());
+        writeTime(out, booking.getEnd());
+    }
+
+    private static User findUser(Coworking coworking, String login) {
+        return coworking.viewAllUsers().stream()
+                .filter(user -> user.getLogin().equals(login))
+                .findAny()
+                .orElseGet(() -> User.withoutPassword(login, false));
+    }
+
+    private static void writeFacility(DataOutputStream out, Facility facility) throws IOException {
+        if (facility instanceof ConferenceRoom room) {
+            out.writeByte(CONFERENCE_ROOM);
+            out.writeUTF(room.getIdNumber());
+            out.writeInt(room.getSeats());
+        } else if (facility instanceof Workstation workstation) {
+            out.writeByte(WORKSTATION);
+            out.writeUTF(workstation.getIdNumber());
+            out.writeUTF(workstation.getDescription() == null ? "" : workstation.getDescription());
+        } else {
+            throw new IOException("Unsupported facility type " + facility.getClass().getName());
+        }
+    }
+
+    private static Facility readFacility(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case CONFERENCE_ROOM -> new ConferenceRoom(in.readUTF(), in.readInt());
+            case WORKSTATION -> new Workstation(in.readUTF(), in.readUTF());
+            default -> throw new IOException("Unknown facility type " + type);
+        };
+    }
+
+    private static void writeGapPolicy(DataOutputStream out, GapPolicy policy) throws IOException {
+        out.writeBoolean(policy != null);
+        if (policy == null) return;
+        SortedMap<LocalTime, Integer> gapsFrom = policy.getGapsFrom();
+        out.writeShort(gapsFrom.size());
+        for (Map.Entry<LocalTime, Integer> entry : gapsFrom.entrySet()) {
+            out.writeShort(entry.getKey().toSecondOfDay() / 60);
+            out.writeShort(entry.getValue());
+        }
+    }
+
+    private static GapPolicy readGapPolicy(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        SortedMap<LocalTime, Integer> gapsFrom = new TreeMap<>();
+        for (int i = in.readShort(); i > 0; i--) {
+            gapsFrom.put(LocalTime.ofSecondOfDay(in.readShort() * 60L), (int) in.readShort());
+        }
+        return GapPolicy.byTimeOfDay(gapsFrom);
+    }
+
+    private static void writeRecurrence(DataOutputStream out, Recurrence recurrence) throws IOException {
+        int days = 0;
+        for (DayOfWeek day : recurrence.getDays()) {
+            days |= 1 << day.ordinal();
+        }
+        out.writeByte(days);
+        out.writeLong(recurrence.getStart().toNanoOfDay());
+        out.writeLong(recurrence.getEnd().toNanoOfDay());
+        out.writeLong(recurrence.getFirstDate().toEpochDay());
+        out.writeLong(recurrence.getLastDate().toEpochDay());
+    }
+
+    private static Recurrence readRecurrence(DataInputStream in) throws IOException {
+        int bits = in.readByte();
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((bits & 1 << day.ordinal()) != 0) {
+                days.add(day);
+            }
+        }
+        return new Recurrence(
+                days,
+                LocalTime.ofNanoOfDay(in.readLong()),
+                LocalTime.ofNanoOfDay(in.readLong()),
+                LocalDate.ofEpochDay(in.readLong()),
+                LocalDate.ofEpochDay(in.readLong())
+        );
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,575 @@
+package org.example.persistence;
+
+import org.example.model.*;
+import org.example.service.BookingArchive;
+import org.example.utils.MergingIterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * {@link BookingArchive} kept off-heap in a memory-mapped file of fixed-width records:
+ * {@code facility ordinal, user ordinal, start minute, end minute}, four ints counted in minutes since
+ * the epoch (UTC). Facility ids and logins are stored once each in an append-only dictionary file,
+ * together with the record index where every {@link #append} run starts. A run is sorted by start, so
+ * a time range is found by one binary search per run; the heap only holds the dictionary.
+ * <p>
+ * Next to the dictionary, a user index file keeps, for every run, a block per user listing the indexes
+ * of that user's records in the run, so a user's bookings are read without scanning the archive. The
+ * heap only holds where each user's blocks are.
+ * <p>
+ * An append writes and forces the records, the user index blocks and the dictionary entries first, and
+ * only then bumps the record count and the user index length in the header. Records and blocks past
+ * those are ignored on open, so a crash in the middle of an append loses the whole run and nothing else.
+ */
+public class MappedBookingArchive implements BookingArchive, Closeable {
+    static final String RECORDS = "bookings.bin";
+    static final String DICTIONARY = "dictionary.bin";
+    static final String USER_INDEX = "user-index.bin";
+    static final int RECORD_BYTES = 16;
+
+    private static final int MAGIC = 0x43574B41;
+    // version 1 archives had no user index, it is built when they are first opened
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int CUTOFF_OFFSET = 16;
+    private static final int MAX_DURATION_OFFSET = 20;
+    private static final int USER_INDEX_BYTES_OFFSET = 24;
+    private static final int BLOCK_HEADER_BYTES = 8;
+    private static final long CHUNK_BYTES = 1L << 30;
+    private static final long MIN_MAPPING_BYTES = 1L << 20;
+
+    private static final int FACILITY = 0;
+    private static final int USER = 4;
+    private static final int START = 8;
+    private static final int END = 12;
+    private static final int NO_USER = -1;
+    private static final int NO_CUTOFF = Integer.MIN_VALUE;
+
+    private static final byte FACILITY_ENTRY = 'F';
+    private static final byte USER_ENTRY = 'U';
+    private static final byte RUN_ENTRY = 'R';
+    private static final byte WORKSTATION = 'W';
+    private static final byte CONFERENCE_ROOM = 'C';
+
+    private final FileChannel records;
+    private final FileChannel dictionary;
+    private final FileChannel userIndex;
+    private final MappedByteBuffer header;
+    private final List<Facility> storedFacilities = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> facilityOrdinals = new ConcurrentHashMap<>();
+    private final List<String> logins = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> userOrdinals = new ConcurrentHashMap<>();
+    private final Map<String, User> detachedUsers = new ConcurrentHashMap<>();
+    // per user ordinal, the offset and record count of each of its user index blocks
+    private final Map<Integer, long[]> userBlocks = new ConcurrentHashMap<>();
+    private volatile Function<String, Facility> facilityResolver = id -> null;
+    private volatile Function<String, User> userResolver = login -> null;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile long[] runStarts;
+    private volatile int cutoffMinute;
+    private volatile int maxDurationMinutes;
+    private volatile long count;
+    private long userIndexBytes;
+
+    private MappedBookingArchive(Path directory) throws IOException {
+        records = FileChannel.open(directory.resolve(RECORDS),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = records.size() == 0;
+        header = records.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (created) {
+            header.putInt(0, MAGIC).putInt(4, VERSION)
+                    .putLong(COUNT_OFFSET, 0).putInt(CUTOFF_OFFSET, NO_CUTOFF).putInt(MAX_DURATION_OFFSET, 0)
+                    .putLong(USER_INDEX_BYTES_OFFSET, 0);
+            header.force();
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) < 1 || header.getInt(4) > VERSION) {
+            records.close();
+            throw new IOException("Not a booking archive: " + directory.resolve(RECORDS));
+        }
+        count = header.getLong(COUNT_OFFSET);
+        cutoffMinute = header.getInt(CUTOFF_OFFSET);
+        maxDurationMinutes = header.getInt(MAX_DURATION_OFFSET);
+        ensureCapacity(count);
+        runStarts = loadDictionary(directory.resolve(DICTIONARY));
+        dictionary = FileChannel.open(directory.resolve(DICTIONARY),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        userIndex = FileChannel.open(directory.resolve(USER_INDEX),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (header.getInt(4) < VERSION) {
+            indexAllUsers();
+        } else {
+            userIndexBytes = header.getLong(USER_INDEX_BYTES_OFFSET);
+            loadUserIndex();
+        }
+    }
+
+    public static MappedBookingArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new MappedBookingArchive(directory);
+    }
+
+    @Override
+    public void bind(Function<String, Facility> facilities, Function<String, User> users) {
+        facilityResolver = facilities;
+        userResolver = users;
+    }
+
+    @Override
+    public LocalDateTime getCutoff() {
+        int cutoff = cutoffMinute;
+        return cutoff == NO_CUTOFF ? null : Booking.ofEpochMinute(cutoff);
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    @Override
+    public synchronized void append(Collection<Booking> bookings, LocalDateTime cutoff) {
+        int newCutoff = Math.toIntExact(Booking.toEpochMinute(cutoff, false));
+        if (cutoffMinute != NO_CUTOFF && newCutoff < cutoffMinute) {
+            throw new IllegalArgumentException("Archive cutoff can only move forward");
+        }
+        List<Booking> sorted = new ArrayList<>(bookings);
+        sorted.sort(null);
+        for (Booking booking : sorted) {
+            if (booking.getEnd().isAfter(cutoff)) {
+                throw new IllegalArgumentException("Booking ends after the archive cutoff: " + booking);
+            }
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream entries = new DataOutputStream(bytes);
+            List<Facility> newFacilities = new ArrayList<>();
+            Map<String, Integer> newFacilityOrdinals = new HashMap<>();
+            List<String> newLogins = new ArrayList<>();
+            Map<String, Integer> newUserOrdinals = new HashMap<>();
+            Map<Integer, List<Long>> byUser = new TreeMap<>();
+            long first = count;
+            ensureCapacity(first + sorted.size());
+            MappedByteBuffer[] view = chunks;
+            int maxDuration = maxDurationMinutes;
+            long index = first;
+            for (Booking booking : sorted) {
+                String id = booking.getFacility().getIdNumber();
+                Integer facility = facilityOrdinals.get(id);
+                if (facility == null) {
+                    facility = newFacilityOrdinals.get(id);
+                }
+                if (facility == null) {
+                    facility = storedFacilities.size() + newFacilities.size();
+                    newFacilityOrdinals.put(id, facility);
+                    newFacilities.add(detach(booking.getFacility()));
+                    entries.writeByte(FACILITY_ENTRY);
+                    entries.writeByte(booking.getFacility() instanceof ConferenceRoom ? CONFERENCE_ROOM : WORKSTATION);
+                    entries.writeUTF(id);
+                }
+                Integer user = NO_USER;
+                if (booking.getUser() != null) {
+                    String login = booking.getUser().getLogin();
+                    user = userOrdinals.get(login);
+                    if (user == null) {
+                        user = newUserOrdinals.get(login);
+                    }
+                    if (user == null) {
+                        user = logins.size() + newLogins.size();
+                        newUserOrdinals.put(login, user);
+                        newLogins.add(login);
+                        entries.writeByte(USER_ENTRY);
+                        entries.writeUTF(login);
+                    }
+                    byUser.computeIfAbsent(user, key -> new ArrayList<>()).add(index);
+                }
+                int start = Math.toIntExact(booking.getStartMinute());
+                int end = Math.toIntExact(booking.getEndMinute());
+                ByteBuffer chunk = chunk(view, index);
+                int offset = offset(index);
+                chunk.putInt(offset + FACILITY, facility)
+                        .putInt(offset + USER, user)
+                        .putInt(offset + START, start)
+                        .putInt(offset + END, end);
+                maxDuration = Math.max(maxDuration, end - start);
+                index++;
+            }
+            long[] starts = runStarts;
+            if (!sorted.isEmpty()) {
+                entries.writeByte(RUN_ENTRY);
+                entries.writeLong(first);
+                starts = Arrays.copyOf(starts, starts.length + 1);
+                starts[starts.length - 1] = first;
+                for (MappedByteBuffer chunk : view) {
+                    chunk.force();
+                }
+            }
+            Map<Integer, long[]> newBlocks = new HashMap<>();
+            long indexBytes = writeUserBlocks(byUser, userIndexBytes, newBlocks);
+            entries.flush();
+            ByteBuffer pending = ByteBuffer.wrap(bytes.toByteArray());
+            while (pending.hasRemaining()) {
+                dictionary.write(pending);
+            }
+            dictionary.force(false);
+            header.putLong(COUNT_OFFSET, index).putInt(CUTOFF_OFFSET, newCutoff).putInt(MAX_DURATION_OFFSET, maxDuration)
+                    .putLong(USER_INDEX_BYTES_OFFSET, indexBytes);
+            header.force();
+
+            storedFacilities.addAll(newFacilities);
+            facilityOrdinals.putAll(newFacilityOrdinals);
+            logins.addAll(newLogins);
+            userOrdinals.putAll(newUserOrdinals);
+            runStarts = starts;
+            maxDurationMinutes = maxDuration;
+            cutoffMinute = newCutoff;
+            count = index;
+            newBlocks.forEach(this::addUserBlocks);
+            userIndexBytes = indexBytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<Booking> between(Facility facility, LocalDateTime from, LocalDateTime to) {
+        Integer ordinal = facilityOrdinals.get(facility.getIdNumber());
+        if (ordinal == null || !to.isAfter(from)) {
+            return List.of();
+        }
+        long total = count;
+        MappedByteBuffer[] view = chunks;
+        long[] starts = runStarts;
+        int fromMinute = Math.toIntExact(Booking.toEpochMinute(from, false));
+        int toMinute = Math.toIntExact(Booking.toEpochMinute(to, true));
+        int earliestStart = (int) Math.max(Integer.MIN_VALUE, (long) fromMinute - maxDurationMinutes);
+        List<Booking> found = new ArrayList<>();
+        for (int run = 0; run < starts.length && starts[run] < total; run++) {
+            long runEnd = run + 1 < starts.length ? Math.min(starts[run + 1], total) : total;
+            for (long i = firstStartingFrom(view, starts[run], runEnd, earliestStart); i < runEnd; i++) {
+                if (field(view, i, START) >= toMinute) break;
+                if (field(view, i, FACILITY) != ordinal || field(view, i, END) <= fromMinute) continue;
+                Booking booking = read(view, i);
+                if (booking.getEnd().isAfter(from) && booking.getStart().isBefore(to)) {
+                    found.add(booking);
+                }
+            }
+        }
+        found.sort(null);
+        return found;
+    }
+
+    /**
+     * Reads only the user's records, through its user index blocks.
+     */
+    @Override
+    public List<Booking> userBookings(String login) {
+        Integer ordinal = userOrdinals.get(login);
+        long[] blocks = ordinal == null ? null : userBlocks.get(ordinal);
+        if (blocks == null) {
+            return List.of();
+        }
+        MappedByteBuffer[] view = chunks;
+        List<Booking> found = new ArrayList<>();
+        try {
+            for (int block = 0; block < blocks.length; block += 2) {
+                ByteBuffer indexes = ByteBuffer.allocate(Math.toIntExact(blocks[block + 1] * Long.BYTES));
+                readFully(indexes, blocks[block]);
+                while (indexes.hasRemaining()) {
+                    found.add(read(view, indexes.getLong()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        found.sort(null);
+        return found;
+    }
+
+    @Override
+    public Iterator<Booking> iterator() {
+        long total = count;
+        MappedByteBuffer[] view = chunks;
+        return new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < total;
+            }
+
+            @Override
+            public Booking next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return read(view, next++);
+            }
+        };
+    }
+
+    /**
+     * Merges the runs, each entered by binary search at {@code after}'s start.
+     */
+    @Override
+    public Iterator<Booking> sortedIterator(Facility facility, Booking after) {
+        int ordinal;
+        if (facility == null) {
+            ordinal = -1;
+        } else {
+            Integer stored = facilityOrdinals.get(facility.getIdNumber());
+            if (stored == null) {
+                return Collections.emptyIterator();
+            }
+            ordinal = stored;
+        }
+        long total = count;
+        MappedByteBuffer[] view = chunks;
+        long[] starts = runStarts;
+        int fromMinute = after == null ? Integer.MIN_VALUE : Math.toIntExact(Booking.toEpochMinute(after.getStart(), false));
+        List<Iterator<Booking>> runs = new ArrayList<>();
+        for (int run = 0; run < starts.length && starts[run] < total; run++) {
+            long runEnd = run + 1 < starts.length ? Math.min(starts[run + 1], total) : total;
+            long first = firstStartingFrom(view, starts[run], runEnd, fromMinute);
+            runs.add(new Iterator<>() {
+                private long next = first;
+                private Booking pending = advance();
+
+                private Booking advance() {
+                    while (next < runEnd) {
+                        long index = next++;
+                        if (ordinal >= 0 && field(view, index, FACILITY) != ordinal) continue;
+                        Booking booking = read(view, index);
+                        if (after == null || booking.compareTo(after) > 0) return booking;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return pending != null;
+                }
+
+                @Override
+                public Booking next() {
+                    if (pending == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Booking booking = pending;
+                    pending = advance();
+                    return booking;
+                }
+            });
+        }
+        return new MergingIterator<>(runs, Comparator.naturalOrder());
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+        dictionary.close();
+        userIndex.close();
+    }
+
+    /**
+     * Writes a block of {@code user ordinal, record count, record indexes} per user from {@code position}
+     * on and forces them. Returns the end of the last block; where each one went is put in {@code blocks}.
+     */
+    private long writeUserBlocks(Map<Integer, List<Long>> byUser, long position, Map<Integer, long[]> blocks)
+            throws IOException {
+        for (var entry : byUser.entrySet()) {
+            List<Long> indexes = entry.getValue();
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + indexes.size() * Long.BYTES);
+            block.putInt(entry.getKey()).putInt(indexes.size());
+            indexes.forEach(block::putLong);
+            block.flip();
+            long offset = position + BLOCK_HEADER_BYTES;
+            while (block.hasRemaining()) {
+                position += userIndex.write(block, position);
+            }
+            blocks.put(entry.getKey(), new long[] {offset, indexes.size()});
+        }
+        if (!byUser.isEmpty()) {
+            userIndex.force(false);
+        }
+        return position;
+    }
+
+    private void addUserBlocks(int user, long[] blocks) {
+        userBlocks.merge(user, blocks, (known, added) -> {
+            long[] merged = Arrays.copyOf(known, known.length + added.length);
+            System.arraycopy(added, 0, merged, known.length, added.length);
+            return merged;
+        });
+    }
+
+    private void loadUserIndex() throws IOException {
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        long position = 0;
+        while (position < userIndexBytes) {
+            blockHeader.clear();
+            readFully(blockHeader, position);
+            int user = blockHeader.getInt();
+            int size = blockHeader.getInt();
+            addUserBlocks(user, new long[] {position + BLOCK_HEADER_BYTES, size});
+            position += BLOCK_HEADER_BYTES + (long) size * Long.BYTES;
+        }
+    }
+
+    /**
+     * Builds the user index of an archive written before there was one, in a single block per user.
+     */
+    private void indexAllUsers() throws IOException {
+        MappedByteBuffer[] view = chunks;
+        Map<Integer, List<Long>> byUser = new TreeMap<>();
+        for (long i = 0; i < count; i++) {
+            int user = field(view, i, USER);
+            if (user != NO_USER) {
+                byUser.computeIfAbsent(user, key -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<Integer, long[]> blocks = new HashMap<>();
+        long indexBytes = writeUserBlocks(byUser, 0, blocks);
+        header.putLong(USER_INDEX_BYTES_OFFSET, indexBytes).putInt(4, VERSION);
+        header.force();
+        blocks.forEach(this::addUserBlocks);
+        userIndexBytes = indexBytes;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = userIndex.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("User index ends before " + position);
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    private long firstStartingFrom(MappedByteBuffer[] view, long low, long high, int minute) {
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (field(view, middle, START) < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Booking read(MappedByteBuffer[] view, long index) {
+        int user = field(view, index, USER);
+        return new Booking(
+                user == NO_USER ? null : user(user),
+                facility(field(view, index, FACILITY)),
+                Booking.ofEpochMinute(field(view, index, START)),
+                Booking.ofEpochMinute(field(view, index, END))
+        );
+    }
+
+    private Facility facility(int ordinal) {
+        Facility stored = storedFacilities.get(ordinal);
+        Facility live = facilityResolver.apply(stored.getIdNumber());
+        return live != null ? live : stored;
+    }
+
+    private User user(int ordinal) {
+        String login = logins.get(ordinal);
+        User live = userResolver.apply(login);
+        return live != null ? live : detachedUsers.computeIfAbsent(login, key -> User.withoutPassword(key, false));
+    }
+
+    private static Facility detach(Facility facility) {
+        return facility instanceof ConferenceRoom
+                ? new ConferenceRoom(facility.getIdNumber(), 0)
+                : new Workstation(facility.getIdNumber(), "");
+    }
+
+    private void ensureCapacity(long records) throws IOException {
+        long bytes = records * RECORD_BYTES;
+        int needed = (int) ((bytes + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        MappedByteBuffer[] current = chunks;
+        MappedByteBuffer[] grown = Arrays.copyOf(current, Math.max(current.length, needed));
+        boolean changed = false;
+        for (int k = 0; k < needed; k++) {
+            long required = Math.min(CHUNK_BYTES, bytes - k * CHUNK_BYTES);
+            long mapped = grown[k] == null ? 0 : grown[k].capacity();
+            if (mapped < required) {
+                long size = Math.min(CHUNK_BYTES, Math.max(required, Math.max(MIN_MAPPING_BYTES, 2 * mapped)));
+                grown[k] = this.records.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + k * CHUNK_BYTES, size);
+                changed = true;
+            }
+        }
+        if (changed) {
+            chunks = grown;
+        }
+    }
+
+    private static MappedByteBuffer chunk(MappedByteBuffer[] view, long index) {
+        return view[(int) (index * RECORD_BYTES / CHUNK_BYTES)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index * RECORD_BYTES % CHUNK_BYTES);
+    }
+
+    private static int field(MappedByteBuffer[] view, long index, int field) {
+        return chunk(view, index).getInt(offset(index) + field);
+    }
+
+    /**
+     * Reads the dictionary, cutting off a torn entry at its tail, and returns the starts of the runs
+     * that made it into the record count.
+     */
+    private long[] loadDictionary(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new long[0];
+        }
+        byte[] content = Files.readAllBytes(path);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        SortedSet<Long> starts = new TreeSet<>();
+        long valid = 0;
+        try {
+            while (in.available() > 0) {
+                byte kind = in.readByte();
+                switch (kind) {
+                    case FACILITY_ENTRY -> {
+                        byte type = in.readByte();
+                        String id = in.readUTF();
+                        facilityOrdinals.putIfAbsent(id, storedFacilities.size());
+                        storedFacilities.add(type == CONFERENCE_ROOM ? new ConferenceRoom(id, 0) : new Workstation(id, ""));
+                    }
+                    case USER_ENTRY -> {
+                        String login = in.readUTF();
+                        userOrdinals.putIfAbsent(login, logins.size());
+                        logins.add(login);
+                    }
+                    case RUN_ENTRY -> {
+                        long start = in.readLong();
+                        if (start < count) {
+                            starts.add(start);
+                        }
+                    }
+                    default -> throw new EOFException();
+                }
+                valid = content.length - in.available();
+            }
+        } catch (EOFException e) {
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(valid);
+            }
+        }
+        return starts.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,462 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.model.ConferenceRoom;
+import org.example.model.Facility;
+import org.example.model.User;
+import org.example.model.Workstation;
+import org.example.service.BookingResult;
+import org.example.service.Coworking;
+import org.example.service.SlotQuery;
+import org.example.utils.InvalidSessionException;
+import org.example.utils.JournalFailedException;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.WrongPasswordException;
+import org.example.view.JsonResponseBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server exposing {@link Coworking} as JSON endpoints. Every request runs on a thread of
+ * its own: a virtual thread where the runtime has them, a pooled platform thread otherwise, so handlers
+ * may simply block.
+ * <p>
+ * All endpoints but registration require HTTP Basic credentials of a registered user, or a session
+ * token as {@code Authorization: Bearer <token>}, which spares the password check on every request.
+ * Times are ISO-8601 local date-times ({@code 2024-07-07T09:00}).
+ * <p>
+ * The JDK server closes keep-alive connections beyond {@code sun.net.httpserver.maxIdleConnections}
+ * (200) idle ones, which makes thousands of clients reconnect for every request. It reads that property
+ * once, when the first server starts, so launchers serving many clients set it before that.
+ * <p>
+ * Paths must match an endpoint exactly, anything else is 404. Request bodies over
+ * {@value #MAX_BODY_BYTES} bytes are refused with 413.
+ * <pre>
+ * GET    /facilities                                 list facilities
+ * POST   /facilities {type, id, seats|description}   add a facility (admin)
+ * DELETE /facilities/{id}                            remove a facility (admin)
+ * GET    /availability?date=2024-07-07               free slots of every facility
+ * GET    /slots?from=&amp;duration=&amp;limit=&amp;type=&amp;minSeats=&amp;window=08:00-17:00
+ *                                                    earliest free slots
+ * POST   /users {login, password}                    register
+ * POST   /sessions                                   open a session, returns {token}
+ * DELETE /sessions                                   close the session of the bearer token
+ * GET    /bookings                                   own bookings
+ * GET    /bookings?user=|facility=|all=true          any bookings (admin); the facility and full
+ *        [&amp;cursor=&amp;limit=]                        listings come in pages of {@code limit},
+ *                                                    resumed from {@code next}
+ * POST   /bookings {facility, start, end}            place a booking
+ * DELETE /bookings?facility=&amp;start=&amp;end=            remove a booking
+ * </pre>
+ */
+public class CoworkingServer {
+    private static final int BACKLOG = 4096;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final Coworking coworking;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public CoworkingServer(Coworking coworking, InetSocketAddress address) throws IOException {
+        this.coworking = coworking;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/facilities", exchange -> handle(exchange, this::facilities));
+        server.createContext("/facilities/", exchange -> handle(exchange, this::facility));
+        server.createContext("/availability", exchange -> handle(exchange, this::availability));
+        server.createContext("/slots", exchange -> handle(exchange, this::slots));
+        server.createContext("/users", exchange -> handle(exchange, this::users));
+        server.createContext("/bookings", exchange -> handle(exchange, this::bookings));
+        server.createContext("/sessions", exchange -> handle(exchange, this::sessions));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting connections, waits up to {@code delaySeconds} for exchanges in flight to finish,
+     * then stops the request threads.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * A virtual-thread-per-task executor when running on a JDK that has one, looked up reflectively
+     * so the code still compiles for and runs on 17; a cached thread pool otherwise.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "coworking-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response created(String message) {
+            return new Response(201, JsonResponseBuilder.message(message));
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, JsonResponseBuilder.error(message));
+        }
+    }
+
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            try {
+                requireKnownPath(exchange);
+                response = handler.handle(exchange);
+            } catch (RequestException e) {
+                response = Response.error(e.status, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                response = Response.error(400, e.getMessage());
+            } catch (JournalFailedException e) {
+                response = Response.error(503, e.getMessage());
+            } catch (RuntimeException e) {
+                response = Response.error(500, "Internal error");
+            }
+            // Closing the body skips what the handler left unread, so the connection can be kept alive
+            exchange.getRequestBody().close();
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (response.status == 401) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"coworking\"");
+            }
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response facilities(HttpExchange exchange) throws IOException {
+        User user = authenticate(exchange);
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                return Response.ok(JsonResponseBuilder.listFacilities(coworking.viewAllFacilities()));
+            }
+            case "POST" -> {
+                requireAdmin(user);
+                Map<String, String> body = readBody(exchange);
+                String type = required(body, "type");
+                String idNumber = required(body, "id").toLowerCase();
+                Facility facility = switch (type) {
+                    case "workstation" -> new Workstation(idNumber, body.getOrDefault("description", ""));
+                    case "conference_room" -> new ConferenceRoom(idNumber, Integer.parseInt(required(body, "seats")));
+                    default -> throw new IllegalArgumentException("Unknown facility type " + type);
+                };
+                try {
+                    coworking.addFacility(facility);
+                } catch (MemberAlreadyExistsException e) {
+                    return Response.error(409, "Facility with this name already exists");
+                }
+                return Response.created("Facility added");
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private Response facility(HttpExchange exchange) {
+        User user = authenticate(exchange);
+        requireMethod(exchange, "DELETE");
+        requireAdmin(user);
+        String id = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+        try {
+            coworking.removeFacility(id.toLowerCase());
+        } catch (MemberNotFoundException e) {
+            return Response.error(404, "Facility not found");
+        }
+        return Response.ok(JsonResponseBuilder.message("Facility removed"));
+    }
+
+    private Response availability(HttpExchange exchange) {
+        authenticate(exchange);
+        requireMethod(exchange, "GET");
+        LocalDate date = LocalDate.parse(required(query(exchange), "date"));
+        return Response.ok(JsonResponseBuilder.listFreeSlots(coworking.getAvailableBookingSlots(date)));
+    }
+
+    private Response slots(HttpExchange exchange) {
+        authenticate(exchange);
+        requireMethod(exchange, "GET");
+        Map<String, String> query = query(exchange);
+        SlotQuery slotQuery = new SlotQuery(
+                LocalDateTime.parse(required(query, "from")),
+                Duration.ofMinutes(Long.parseLong(required(query, "duration"))),
+                Integer.parseInt(query.getOrDefault("limit", "5"))
+        );
+        String type = query.get("type");
+        if (type != null) {
+            slotQuery.ofType(switch (type) {
+                case "workstation" -> Workstation.class;
+                case "conference_room" -> ConferenceRoom.class;
+                default -> throw new IllegalArgumentException("Unknown facility type " + type);
+            });
+        }
+        if (query.containsKey("minSeats")) {
+            slotQuery.withMinSeats(Integer.parseInt(query.get("minSeats")));
+        }
+        if (query.containsKey("window")) {
+            String[] window = query.get("window").split("-");
+            if (window.length != 2) throw new IllegalArgumentException("Window must be HH:MM-HH:MM");
+            slotQuery.between(LocalTime.parse(window[0]), LocalTime.parse(window[1]));
+        }
+        return Response.ok(JsonResponseBuilder.listSlotCandidates(coworking.findAvailableSlots(slotQuery)));
+    }
+
+    private Response users(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        Map<String, String> body = readBody(exchange);
+        try {
+            coworking.registerNewUser(required(body, "login"), required(body, "password"));
+        } catch (MemberAlreadyExistsException e) {
+            return Response.error(409, "User with this login already exists");
+        }
+        return Response.created("User registered");
+    }
+
+    private Response sessions(HttpExchange exchange) {
+        User user = authenticate(exchange);
+        switch (exchange.getRequestMethod()) {
+            case "POST" -> {
+                try {
+                    return new Response(201, JsonResponseBuilder.session(coworking.openSession(user)));
+                } catch (MemberNotFoundException e) {
+                    throw new RequestException(401, "User was removed");
+                }
+            }
+            case "DELETE" -> {
+                String token = bearerToken(exchange);
+                if (token == null) throw new RequestException(400, "No session token given");
+                coworking.closeSession(token);
+                return Response.ok(JsonResponseBuilder.message("Session closed"));
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private Response bookings(HttpExchange exchange) throws IOException {
+        User user = authenticate(exchange);
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                Map<String, String> query = query(exchange);
+                if (!query.containsKey("user") && !query.containsKey("facility") && !query.containsKey("all")) {
+                    return Response.ok(JsonResponseBuilder.listUserBookings(user, coworking));
+                }
+                requireAdmin(user);
+                if (query.containsKey("user")) {
+                    return Response.ok(JsonResponseBuilder.listUserBookings(user, query.get("user"), coworking));
+                }
+                String cursor = query.get("cursor");
+                int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(PAGE_SIZE)));
+                if (query.containsKey("facility")) {
+                    return Response.ok(JsonResponseBuilder.listFacilityBookings(
+                            user, query.get("facility").toLowerCase(), coworking, cursor, limit));
+                }
+                return Response.ok(JsonResponseBuilder.listAllBookings(user, coworking, cursor, limit));
+            }
+            case "POST" -> {
+                Map<String, String> body = readBody(exchange);
+                Facility facility = facility(required(body, "facility"));
+                BookingResult result = coworking.book(user, facility,
+                        LocalDateTime.parse(required(body, "start")), LocalDateTime.parse(required(body, "end")));
+                return result.isBooked()
+                        ? Response.created("Booking placed")
+                        : new Response(409, JsonResponseBuilder.bookingResult(result));
+            }
+            case "DELETE" -> {
+                Map<String, String> query = query(exchange);
+                Facility facility = facility(required(query, "facility"));
+                try {
+                    coworking.removeBooking(facility,
+                            LocalDateTime.parse(required(query, "start")), LocalDateTime.parse(required(query, "end")), user);
+                } catch (NoSuchElementException e) {
+                    return Response.error(404, "Booking not found");
+                } catch (UnsupportedOperationException e) {
+                    return Response.error(403, "Can't remove another user's booking");
+                }
+                return Response.ok(JsonResponseBuilder.message("Booking removed"));
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private User authenticate(HttpExchange exchange) {
+        String token = bearerToken(exchange);
+        if (token != null) {
+            try {
+                return coworking.getUser(token);
+            } catch (InvalidSessionException e) {
+                throw new RequestException(401, "Session expired or unknown");
+            }
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            throw new RequestException(401, "Credentials required");
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(401, "Malformed credentials");
+        }
+        int colon = credentials.indexOf(':');
+        if (colon < 0) {
+            throw new RequestException(401, "Malformed credentials");
+        }
+        try {
+            return coworking.authenticateUser(credentials.substring(0, colon), credentials.substring(colon + 1));
+        } catch (MemberNotFoundException | WrongPasswordException e) {
+            throw new RequestException(401, "Wrong login or password");
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    private Facility facility(String idNumber) {
+        try {
+            return coworking.getFacility(idNumber.toLowerCase());
+        } catch (MemberNotFoundException e) {
+            throw new RequestException(404, "Facility not found");
+        }
+    }
+
+    private static void requireAdmin(User user) {
+        if (!user.isAdmin()) {
+            throw new RequestException(403, "Admin privileges required");
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw methodNotAllowed();
+        }
+    }
+
+    private static RequestException methodNotAllowed() {
+        return new RequestException(405, "Method not allowed");
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing `" + name + "`");
+        }
+        return value;
+    }
+
+    /**
+     * Contexts match by prefix, so this holds the path to its context exactly, or to one segment
+     * past a context ending with a slash.
+     */
+    private static void requireKnownPath(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        String context = exchange.getHttpContext().getPath();
+        boolean known = context.endsWith("/")
+                ? path.length() > context.length() && path.indexOf('/', context.length()) < 0
+                : path.equals(context);
+        if (!known) {
+            throw new RequestException(404, "Unknown path");
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && Long.parseLong(length.trim()) > MAX_BODY_BYTES) {
+            throw bodyTooLarge();
+        }
+        byte[] bytes = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw bodyTooLarge();
+        }
+        return JsonRequest.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static RequestException bodyTooLarge() {
+        return new RequestException(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser for request bodies, which are flat JSON objects. Strings, numbers, booleans and nulls
+ * are all returned as their text; nested objects and arrays are rejected.
+ */
+class JsonRequest {
+    private final String text;
+    private int position;
+
+    private JsonRequest(String text) {
+        this.text = text;
+    }
+
+    static Map<String, String> parseObject(String text) throws IllegalArgumentException {
+        JsonRequest parser = new JsonRequest(text);
+        parser.skipWhitespace();
+        Map<String, String> fields = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Trailing characters");
+        }
+        return fields;
+    }
+
+    private Map<String, String> readObject() {
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return fields;
+        }
+        while (true) {
+            skipWhitespace();
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            fields.put(name, readValue());
+            skipWhitespace();
+            char next = next();
+            if (next == '}') {
+                return fields;
+            }
+            if (next != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private String readValue() {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            throw error("Nested values are not supported");
+        }
+        int start = position;
+        while (position < text.length() && ",} \t\r\n".indexOf(text.charAt(position)) < 0) {
+            position++;
+        }
+        String literal = text.substring(start, position);
+        if (literal.equals("null")) {
+            return null;
+        }
+        if (!literal.equals("true") && !literal.equals("false") && !literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+            throw error("Unexpected value '" + literal + "'");
+        }
+        return literal;
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
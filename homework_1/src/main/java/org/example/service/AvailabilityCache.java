@@ -0,0 +1,218 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.GapPolicy;
+import org.example.model.RecurringBooking;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Free slots of a facility on a date, least recently used dates of each facility evicted first. Booking
+ * events drop exactly the dates whose slots they can change: every date the booking spans, widened by the
+ * two gaps the free-slot sweep looks across. An entry also remembers the gap policy it was computed with
+ * and is dropped on read if the facility's policy has changed since.
+ * <p>
+ * Every facility has entries and a lock of its own, so events only ever touch the facility they are
+ * about, and a facility's entries go with it when it is removed.
+ * <p>
+ * A reader that computes slots takes a {@link #version} first and only gets to {@link #put} them if no
+ * event touched the facility in between, so slots computed from a schedule that changed meanwhile are
+ * never cached.
+ */
+public class AvailabilityCache implements CoworkingListener {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final Map<Facility, FacilityEntries> facilities = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry {
+        final TreeSet<Booking> slots;
+        final GapPolicy gaps;
+
+        Entry(TreeSet<Booking> slots, GapPolicy gaps) {
+            this.slots = slots;
+            this.gaps = gaps;
+        }
+    }
+
+    /**
+     * The dates cached for one facility, guarded by itself.
+     */
+    private final class FacilityEntries {
+        final Map<LocalDate, Entry> byDate = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        long version = versions.incrementAndGet();
+    }
+
+    public AvailabilityCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity dates cached per facility
+     */
+    public AvailabilityCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * A copy of the cached slots, or {@code null} on a miss.
+     */
+    public TreeSet<Booking> get(Facility facility, LocalDate date) {
+        FacilityEntries cached = facilities.get(facility);
+        Entry entry = null;
+        if (cached != null) {
+            synchronized (cached) {
+                entry = cached.byDate.get(date);
+                if (entry != null && entry.gaps != facility.getGapPolicy()) {
+                    cached.byDate.remove(date);
+                    entry = null;
+                }
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new TreeSet<>(entry.slots);
+    }
+
+    public long version(Facility facility) {
+        FacilityEntries cached = facilities.computeIfAbsent(facility, key -> new FacilityEntries());
+        synchronized (cached) {
+            return cached.version;
+        }
+    }
+
+    /**
+     * Caches a copy of {@code slots}, unless the facility changed since {@code version} was taken.
+     */
+    public void put(Facility facility, LocalDate date, TreeSet<Booking> slots, GapPolicy gaps, long version) {
+        FacilityEntries cached = facilities.get(facility);
+        if (cached == null) return;
+        synchronized (cached) {
+            if (cached.version != version) return;
+            cached.byDate.put(date, new Entry(new TreeSet<>(slots), gaps));
+        }
+    }
+
+    public void invalidate(Facility facility) {
+        FacilityEntries cached = facilities.get(facility);
+        if (cached == null) return;
+        synchronized (cached) {
+            cached.version = versions.incrementAndGet();
+            cached.byDate.clear();
+        }
+    }
+
+    public void invalidate(Facility facility, LocalDate first, LocalDate last) {
+        FacilityEntries cached = facilities.get(facility);
+        if (cached == null) return;
+        synchronized (cached) {
+            cached.version = versions.incrementAndGet();
+            if (ChronoUnit.DAYS.between(first, last) >= cached.byDate.size()) {
+                cached.byDate.keySet().removeIf(date -> !date.isBefore(first) && !date.isAfter(last));
+                return;
+            }
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                cached.byDate.remove(date);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (FacilityEntries cached : facilities.values()) {
+            synchronized (cached) {
+                size += cached.byDate.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void bookingAdded(Booking booking) {
+        invalidate(booking);
+    }
+
+    @Override
+    public void bookingRemoved(Booking booking) {
+        invalidate(booking);
+    }
+
+    /**
+     * Archived bookings still count as booked, so moving them changes no free slots.
+     */
+    @Override
+    public void bookingArchived(Booking booking) {}
+
+    @Override
+    public void recurringBookingAdded(RecurringBooking rule) {
+        invalidate(rule);
+    }
+
+    @Override
+    public void recurringBookingRemoved(RecurringBooking rule) {
+        invalidate(rule);
+    }
+
+    /**
+     * Drops the facility's entries and version, and with the version gone, slots being computed for it
+     * meanwhile are not cached either.
+     */
+    @Override
+    public void facilityRemoved(Facility facility) {
+        FacilityEntries cached = facilities.remove(facility);
+        if (cached == null) return;
+        synchronized (cached) {
+            cached.version = versions.incrementAndGet();
+            cached.byDate.clear();
+        }
+    }
+
+    @Override
+    public void facilityEdited(Facility facility) {
+        invalidate(facility);
+    }
+
+    private void invalidate(Booking booking) {
+        int margin = 2 * booking.getFacility().getGapPolicy().maxGap();
+        invalidate(
+                booking.getFacility(),
+                booking.getStart().minusMinutes(margin).toLocalDate(),
+                booking.getEnd().plusMinutes(margin).minusNanos(1).toLocalDate()
+        );
+    }
+
+    private void invalidate(RecurringBooking rule) {
+        invalidate(rule.getFacility(), rule.getRecurrence().getFirstDate().minusDays(1),
+                rule.getRecurrence().getLastDate().plusDays(1));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service;
+
+import org.example.model.Booking;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link Coworking#addBookings}: one item per requested booking, in request order. Either
+ * every item is {@link Status#BOOKED} or none of them was added.
+ */
+public class BatchBookingResult {
+    public enum Status {
+        BOOKED,
+        /** Overlaps a booking already in the schedule or the archive. */
+        CONFLICT,
+        /** Overlaps another booking of the same batch. */
+        BATCH_CONFLICT,
+        /** Starts before the archive cutoff. */
+        CLOSED,
+        /** Valid on its own, but not added because another item failed. */
+        NOT_BOOKED
+    }
+
+    public static class Item {
+        private final Booking booking;
+        private final Status status;
+        private final Booking conflict;
+
+        Item(Booking booking, Status status, Booking conflict) {
+            this.booking = booking;
+            this.status = status;
+            this.conflict = conflict;
+        }
+
+        public Booking getBooking() {
+            return booking;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * The booking this item clashed with, or {@code null}.
+         */
+        public Booking getConflict() {
+            return conflict;
+        }
+    }
+
+    private final List<Item> items;
+    private final boolean committed;
+
+    BatchBookingResult(List<Item> items, boolean committed) {
+        this.items = Collections.unmodifiableList(items);
+        this.committed = committed;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+}
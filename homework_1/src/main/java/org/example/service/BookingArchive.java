@@ -0,0 +1,69 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Long-term store for bookings that ended by {@link #getCutoff()}. Once archived, bookings leave the
+ * facility schedules, and {@link Coworking} answers queries from both, so the heap only has to hold
+ * what is still current. Archived history is append-only: the cutoff only moves forward, and nothing
+ * can be booked before it any more.
+ */
+public interface BookingArchive {
+
+    /**
+     * Tells the archive how to turn stored facility ids and logins back into live objects. Either
+     * function may return {@code null} for a facility or user that no longer exists.
+     */
+    void bind(Function<String, Facility> facilities, Function<String, User> users);
+
+    /**
+     * The moment every archived booking ended by, or {@code null} if nothing was archived yet.
+     */
+    LocalDateTime getCutoff();
+
+    long size();
+
+    /**
+     * Durably stores {@code bookings}, all of which end by {@code cutoff}, and moves the cutoff there.
+     */
+    void append(Collection<Booking> bookings, LocalDateTime cutoff);
+
+    /**
+     * Archived bookings of {@code facility} overlapping {@code [from, to)}, in start order.
+     */
+    List<Booking> between(Facility facility, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Archived bookings of the user with {@code login}, in start order.
+     */
+    List<Booking> userBookings(String login);
+
+    /**
+     * Iterates all archived bookings in the order they were archived.
+     */
+    Iterator<Booking> iterator();
+
+    /**
+     * Iterates the archived bookings of {@code facility} (of all facilities if it is {@code null}) that
+     * sort after {@code after} (all of them if it is {@code null}), in {@link Booking} order. The default
+     * sorts a copy; implementations should merge what they keep sorted already.
+     */
+    default Iterator<Booking> sortedIterator(Facility facility, Booking after) {
+        List<Booking> sorted = new ArrayList<>();
+        iterator().forEachRemaining(booking -> {
+            if (facility != null && !booking.getFacility().getIdNumber().equals(facility.getIdNumber())) return;
+            if (after == null || booking.compareTo(after) > 0) sorted.add(booking);
+        });
+        sorted.sort(null);
+        return sorted.iterator();
+    }
+}
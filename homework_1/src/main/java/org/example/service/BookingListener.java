@@ -0,0 +1,35 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.RecurringBooking;
+
+import java.util.List;
+
+/**
+ * Notified by a {@link BookingSchedule} while it still holds the facility's write lock,
+ * so secondary indexes never observe a booking the schedule has not committed yet.
+ */
+public interface BookingListener {
+    BookingListener NONE = new BookingListener() {};
+
+    default void bookingAdded(Booking booking) {}
+
+    /**
+     * All of {@code bookings} were added together, by a batch that holds the write locks of every schedule
+     * involved. Comes instead of a {@link #bookingAdded} for each of them, which is what it defaults to.
+     */
+    default void bookingsAdded(List<Booking> bookings) {
+        bookings.forEach(this::bookingAdded);
+    }
+
+    default void bookingRemoved(Booking booking) {}
+
+    /**
+     * The booking left the schedule because it was moved to a {@link BookingArchive}, not cancelled.
+     */
+    default void bookingArchived(Booking booking) {}
+
+    default void recurringBookingAdded(RecurringBooking rule) {}
+
+    default void recurringBookingRemoved(RecurringBooking rule) {}
+}
@@ -0,0 +1,74 @@
+package org.example.service;
+
+import org.example.model.Booking;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link Coworking#book}. A rejected booking comes with what it clashed with and the nearest
+ * free slots of the same length on either side, so a caller can offer an alternative right away.
+ */
+public class BookingResult {
+    public enum Status {
+        BOOKED,
+        /** Overlaps bookings already in the schedule or the archive. */
+        CONFLICT,
+        /** Starts before the archive cutoff. */
+        CLOSED
+    }
+
+    private final Booking booking;
+    private final Status status;
+    private final List<Booking> conflicts;
+    private final Booking freeBefore;
+    private final Booking freeAfter;
+
+    BookingResult(Booking booking, Status status, List<Booking> conflicts, Booking freeBefore, Booking freeAfter) {
+        this.booking = booking;
+        this.status = status;
+        this.conflicts = Collections.unmodifiableList(conflicts);
+        this.freeBefore = freeBefore;
+        this.freeAfter = freeAfter;
+    }
+
+    static BookingResult booked(Booking booking) {
+        return new BookingResult(booking, Status.BOOKED, List.of(), null, null);
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    /**
+     * The bookings, including occurrences of recurring ones, that the requested booking overlaps, in start
+     * order; empty unless the status is {@link Status#CONFLICT}.
+     */
+    public List<Booking> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * The latest free slot of the requested length starting before the requested booking, or {@code null}
+     * if there is none close enough.
+     */
+    public Booking getFreeBefore() {
+        return freeBefore;
+    }
+
+    /**
+     * The earliest free slot of the requested length starting after the requested booking, or after the
+     * archive cutoff if it is closed, or {@code null} if there is none close enough.
+     */
+    public Booking getFreeAfter() {
+        return freeAfter;
+    }
+}
@@ -0,0 +1,568 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.GapPolicy;
+import org.example.model.RecurringBooking;
+import org.example.utils.MergingIterator;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bookings of a single facility keyed by start. Bookings of one facility never overlap,
+ * so ordering by start is also ordering by end, and a new booking can only clash with
+ * its immediate neighbours.
+ * <p>
+ * Writers serialise on the facility's own lock, so bookings on different facilities
+ * never contend. Readers take an optimistic stamp and only fall back to the read lock
+ * if a writer slipped in while they were copying.
+ * <p>
+ * Recurring bookings are kept as rules next to the single bookings and only expanded
+ * for the window a reader asks for.
+ */
+public class BookingSchedule {
+    /**
+     * How many blocking bookings a search for the nearest free slot steps over in each direction before
+     * giving up, so a rejection never walks a whole fully booked history.
+     */
+    static final int MAX_SLOT_SEARCH_STEPS = 64;
+
+    private final Facility facility;
+    private final BookingListener listener;
+    private final ConcurrentNavigableMap<LocalDateTime, Booking> bookings;
+    private final List<RecurringBooking> recurring;
+    private final StampedLock lock;
+    private volatile int size;
+    private volatile LocalDateTime closedBefore;
+    private volatile boolean retired;
+
+    public BookingSchedule(Facility facility) {
+        this(facility, BookingListener.NONE);
+    }
+
+    public BookingSchedule(Facility facility, BookingListener listener) {
+        this.facility = facility;
+        this.listener = listener;
+        this.bookings = new ConcurrentSkipListMap<>();
+        this.recurring = new CopyOnWriteArrayList<>();
+        this.lock = new StampedLock();
+    }
+
+    public Facility getFacility() {
+        return facility;
+    }
+
+    public boolean add(Booking booking) {
+        long stamp = lock.writeLock();
+        try {
+            requireActive();
+            if (closedBefore != null && booking.getStart().isBefore(closedBefore)) {
+                return false;
+            }
+            if (findConflict(booking) != null) {
+                return false;
+            }
+            addLocked(booking);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public BookingResult book(Booking booking) {
+        return book(booking, candidate -> null);
+    }
+
+    /**
+     * Like {@link #add}, but a rejected booking comes back with all of its conflicts and the nearest free
+     * slots of its length before and after it, found from the neighbours of the conflicts while the lock
+     * taken for the check is still held. {@code elsewhere} finds a conflict outside the schedule, e.g. in
+     * the archive, or returns {@code null}.
+     */
+    BookingResult book(Booking booking, UnaryOperator<Booking> elsewhere) {
+        long stamp = lock.writeLock();
+        try {
+            requireActive();
+            if (closedBefore != null && booking.getStart().isBefore(closedBefore)) {
+                long reopened = Math.max(booking.getStartMinute(), Booking.toEpochMinute(closedBefore, true));
+                return new BookingResult(booking, BookingResult.Status.CLOSED, List.of(),
+                        null, freeAfterLocked(booking, reopened, elsewhere));
+            }
+            List<Booking> conflicts = findConflictsLocked(booking, elsewhere);
+            if (conflicts.isEmpty()) {
+                addLocked(booking);
+                return BookingResult.booked(booking);
+            }
+            return new BookingResult(booking, BookingResult.Status.CONFLICT, conflicts,
+                    freeBeforeLocked(booking, elsewhere), freeAfterLocked(booking, booking.getStartMinute(), elsewhere));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Scheduled bookings overlapping {@code booking} are consecutive, the last of them being the last to
+     * start before its end plus the gap, so they are collected walking back from there.
+     */
+    private List<Booking> findConflictsLocked(Booking booking, UnaryOperator<Booking> elsewhere) {
+        GapPolicy gaps = facility.getGapPolicy();
+        List<Booking> conflicts = new ArrayList<>();
+        Booking outside = elsewhere.apply(booking);
+        if (outside != null) {
+            conflicts.add(outside);
+        }
+        LocalDateTime to = Booking.ofEpochMinute(booking.getEndMinute() + gaps.gapAfter(booking.getEndMinute()));
+        for (Booking existing : bookings.headMap(to, false).descendingMap().values()) {
+            if (!existing.isOverlapping(booking)) break;
+            conflicts.add(existing);
+        }
+        LocalDateTime from = Booking.ofEpochMinute(booking.getStartMinute() - gaps.maxGap());
+        for (RecurringBooking rule : recurring) {
+            for (Booking occurrence : rule.occurrencesBetween(from, to)) {
+                if (occurrence.isOverlapping(booking)) {
+                    conflicts.add(occurrence);
+                }
+            }
+        }
+        conflicts.sort(null);
+        return conflicts;
+    }
+
+    private Booking freeBeforeLocked(Booking booking, UnaryOperator<Booking> elsewhere) {
+        long duration = booking.getEndMinute() - booking.getStartMinute();
+        long closed = closedBefore == null ? Long.MIN_VALUE : Booking.toEpochMinute(closedBefore, true);
+        long start = booking.getStartMinute();
+        for (int step = 0; step <= MAX_SLOT_SEARCH_STEPS && start >= closed; step++) {
+            Booking candidate = slot(start, duration);
+            Booking blocker = findBlocker(candidate, elsewhere);
+            if (blocker == null) {
+                return candidate;
+            }
+            // every start after this one still overlaps the blocker
+            start = facility.getGapPolicy().latestEndBefore(blocker.getStartMinute()) - duration;
+        }
+        return null;
+    }
+
+    private Booking freeAfterLocked(Booking booking, long from, UnaryOperator<Booking> elsewhere) {
+        long duration = booking.getEndMinute() - booking.getStartMinute();
+        long start = from;
+        for (int step = 0; step <= MAX_SLOT_SEARCH_STEPS; step++) {
+            Booking candidate = slot(start, duration);
+            Booking blocker = findBlocker(candidate, elsewhere);
+            if (blocker == null) {
+                return candidate;
+            }
+            start = blocker.getEndMinute() + facility.getGapPolicy().gapAfter(blocker.getEndMinute());
+        }
+        return null;
+    }
+
+    private Booking findBlocker(Booking candidate, UnaryOperator<Booking> elsewhere) {
+        Booking blocker = findConflict(candidate);
+        return blocker != null ? blocker : elsewhere.apply(candidate);
+    }
+
+    private Booking slot(long start, long duration) {
+        return new Booking(null, facility, Booking.ofEpochMinute(start), Booking.ofEpochMinute(start + duration));
+    }
+
+    long lockWrite() {
+        return lock.writeLock();
+    }
+
+    void unlockWrite(long stamp) {
+        lock.unlockWrite(stamp);
+    }
+
+    /**
+     * Throws once the schedule is {@link #retire() retired}. Must be called under {@link #lockWrite()}.
+     */
+    void requireActive() throws IllegalArgumentException {
+        if (retired) {
+            throw new IllegalArgumentException("Facility " + facility.getIdNumber() + " is not registered");
+        }
+    }
+
+    LocalDateTime getClosedBefore() {
+        return closedBefore;
+    }
+
+    /**
+     * Conflicts of {@code requests}, sorted by start, with the bookings already in the schedule, found in
+     * a single merge pass: the i-th entry is the booking the i-th request clashes with, or {@code null}.
+     * Must be called under {@link #lockWrite()}.
+     */
+    Booking[] findConflictsLocked(List<Booking> requests) {
+        Booking[] conflicts = new Booking[requests.size()];
+        if (requests.isEmpty()) {
+            return conflicts;
+        }
+        GapPolicy gaps = facility.getGapPolicy();
+        LocalDateTime fromKey = bookings.floorKey(requests.get(0).getStart());
+        Iterator<Booking> existing = (fromKey == null ? bookings : bookings.tailMap(fromKey)).values().iterator();
+        Booking current = existing.hasNext() ? existing.next() : null;
+        for (int i = 0; i < conflicts.length; i++) {
+            Booking request = requests.get(i);
+            while (current != null && current.getEndMinute() + gaps.gapAfter(current.getEndMinute()) <= request.getStartMinute()) {
+                current = existing.hasNext() ? existing.next() : null;
+            }
+            if (current != null && current.isOverlapping(request)) {
+                conflicts[i] = current;
+            } else {
+                conflicts[i] = findRecurringConflict(request);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Adds {@code rule} unless it starts before the schedule is closed or one of its occurrences would
+     * clash with a booking or another rule.
+     */
+    public boolean addRecurring(RecurringBooking rule) {
+        Booking first = rule.getFirstOccurrence();
+        if (first == null) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            requireActive();
+            if (closedBefore != null && first.getStart().isBefore(closedBefore)) {
+                return false;
+            }
+            for (RecurringBooking other : recurring) {
+                if (rule.overlaps(other)) {
+                    return false;
+                }
+            }
+            int gap = facility.getGapPolicy().maxGap();
+            LocalDateTime to = rule.getRecurrence().getLastDate().plusDays(1).atStartOfDay().plusMinutes(gap);
+            for (Booking booking : collectBetween(first.getStart().minusMinutes(gap), to)) {
+                if (rule.findOverlapping(booking) != null) {
+                    return false;
+                }
+            }
+            recurring.add(rule);
+            listener.recurringBookingAdded(rule);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies {@code change} to the facility's gap policy under the write lock, then reports every pair of
+     * consecutive bookings, occurrences of recurring bookings included, that the new gaps put too close, in
+     * a single pass over them in start order. The bookings themselves stay.
+     */
+    List<GapViolation> changeGaps(Runnable change) {
+        long stamp = lock.writeLock();
+        try {
+            change.run();
+            GapPolicy gaps = facility.getGapPolicy();
+            List<Iterator<Booking>> sources = new ArrayList<>(recurring.size() + 1);
+            sources.add(bookings.values().iterator());
+            for (RecurringBooking rule : recurring) {
+                sources.add(occurrences(rule).iterator());
+            }
+            List<GapViolation> violations = new ArrayList<>();
+            Booking previous = null;
+            for (Iterator<Booking> inOrder = new MergingIterator<>(sources, Comparator.naturalOrder()); inOrder.hasNext(); ) {
+                Booking booking = inOrder.next();
+                if (previous != null) {
+                    int gap = gaps.gapAfter(previous.getEndMinute());
+                    if (previous.getEndMinute() + gap > booking.getStartMinute()) {
+                        violations.add(new GapViolation(previous, booking, gap));
+                    }
+                }
+                if (previous == null || booking.getEndMinute() > previous.getEndMinute()) {
+                    previous = booking;
+                }
+            }
+            return violations;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static List<Booking> occurrences(RecurringBooking rule) {
+        return rule.occurrencesBetween(
+                rule.getRecurrence().getFirstDate().atStartOfDay(),
+                rule.getRecurrence().getLastDate().plusDays(1).atStartOfDay()
+        );
+    }
+
+    public boolean removeRecurring(RecurringBooking rule) {
+        long stamp = lock.writeLock();
+        try {
+            return removeRecurringLocked(List.of(rule)) == 1;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public List<RecurringBooking> getRecurringBookings() {
+        return Collections.unmodifiableList(recurring);
+    }
+
+    private int removeRecurringLocked(Collection<RecurringBooking> rules) {
+        int removed = 0;
+        for (RecurringBooking rule : rules) {
+            int index = recurring.indexOf(rule);
+            if (index >= 0) {
+                listener.recurringBookingRemoved(recurring.remove(index));
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Booking findRecurringConflict(Booking booking) {
+        for (RecurringBooking rule : recurring) {
+            Booking occurrence = rule.findOverlapping(booking);
+            if (occurrence != null) {
+                return occurrence;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Must be called under {@link #lockWrite()} after the booking has been checked for conflicts.
+     */
+    void addLocked(Booking booking) {
+        putLocked(booking);
+        listener.bookingAdded(booking);
+    }
+
+    /**
+     * Like {@link #addLocked}, but leaves notifying the listener to the caller.
+     */
+    void putLocked(Booking booking) {
+        bookings.put(booking.getStart(), booking);
+        size++;
+    }
+
+    public Booking findConflict(Booking booking) {
+        var before = bookings.floorEntry(booking.getStart());
+        if (before != null && before.getValue().isOverlapping(booking)) {
+            return before.getValue();
+        }
+        var after = bookings.higherEntry(booking.getStart());
+        if (after != null && after.getValue().isOverlapping(booking)) {
+            return after.getValue();
+        }
+        return findRecurringConflict(booking);
+    }
+
+    public Booking find(LocalDateTime start, LocalDateTime end) {
+        Booking booking = bookings.get(start);
+        if (booking == null || !booking.getEnd().isEqual(end)) {
+            return null;
+        }
+        return booking;
+    }
+
+    public boolean remove(Booking booking) {
+        long stamp = lock.writeLock();
+        try {
+            if (!bookings.remove(booking.getStart(), booking)) {
+                return false;
+            }
+            size--;
+            listener.bookingRemoved(booking);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public List<Booking> removeIf(Predicate<Booking> filter) {
+        long stamp = lock.writeLock();
+        try {
+            return removeLocked(bookings.values().stream().filter(filter).toList());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public List<Booking> removeBetween(LocalDateTime from, LocalDateTime to) {
+        long stamp = lock.writeLock();
+        try {
+            return to.isAfter(from) ? removeLocked(collectBetween(from, to)) : List.of();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every booking and every recurring booking, returning the bookings.
+     */
+    public List<Booking> clear() {
+        long stamp = lock.writeLock();
+        try {
+            removeRecurringLocked(new ArrayList<>(recurring));
+            return removeLocked(new ArrayList<>(bookings.values()));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Like {@link #clear()}, but every later attempt to book fails, for a schedule whose facility was
+     * removed while someone could still be holding on to it.
+     */
+    public List<Booking> retire() {
+        long stamp = lock.writeLock();
+        try {
+            retired = true;
+            removeRecurringLocked(new ArrayList<>(recurring));
+            return removeLocked(new ArrayList<>(bookings.values()));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public List<Booking> removeAll(Collection<Booking> toRemove) {
+        long stamp = lock.writeLock();
+        try {
+            return removeLocked(toRemove);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stops accepting bookings that start before {@code cutoff} and returns the ones that end by then.
+     * They stay in place until {@link #archive} is told they are safely stored elsewhere.
+     */
+    public List<Booking> closeBefore(LocalDateTime cutoff) {
+        long stamp = lock.writeLock();
+        try {
+            if (closedBefore == null || cutoff.isAfter(closedBefore)) {
+                closedBefore = cutoff;
+            }
+            List<Booking> ended = new ArrayList<>();
+            for (Booking booking : bookings.values()) {
+                if (booking.getEnd().isAfter(cutoff)) break;
+                ended.add(booking);
+            }
+            return ended;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public List<Booking> archive(Collection<Booking> archived) {
+        long stamp = lock.writeLock();
+        try {
+            return removeLocked(archived, true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private List<Booking> removeLocked(Collection<Booking> toRemove) {
+        return removeLocked(toRemove, false);
+    }
+
+    private List<Booking> removeLocked(Collection<Booking> toRemove, boolean archived) {
+        List<Booking> removed = new ArrayList<>(toRemove.size());
+        for (Booking booking : toRemove) {
+            if (bookings.remove(booking.getStart(), booking)) {
+                removed.add(booking);
+                if (archived) {
+                    listener.bookingArchived(booking);
+                } else {
+                    listener.bookingRemoved(booking);
+                }
+            }
+        }
+        size -= removed.size();
+        return removed;
+    }
+
+    public boolean contains(Booking booking) {
+        return findConflict(booking) != null;
+    }
+
+    /**
+     * Bookings ending after {@code from} and starting before {@code to}, including the occurrences of
+     * recurring bookings in that window.
+     */
+    public List<Booking> between(LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            return Collections.emptyList();
+        }
+        List<Booking> between = read(() -> collectBetween(from, to));
+        if (recurring.isEmpty()) {
+            return between;
+        }
+        for (RecurringBooking rule : recurring) {
+            between.addAll(rule.occurrencesBetween(from, to));
+        }
+        between.sort(null);
+        return between;
+    }
+
+    private List<Booking> collectBetween(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime fromKey = from;
+        var before = bookings.lowerEntry(from);
+        if (before != null && before.getValue().getEnd().isAfter(from)) {
+            fromKey = before.getKey();
+        }
+        return new ArrayList<>(bookings.subMap(fromKey, true, to, false).values());
+    }
+
+    public List<Booking> snapshot() {
+        return read(() -> new ArrayList<>(bookings.values()));
+    }
+
+    public Collection<Booking> getBookings() {
+        return Collections.unmodifiableCollection(bookings.values());
+    }
+
+    /**
+     * Live iteration, in {@link Booking} order, over the bookings that sort after {@code after} (all of
+     * them if it is {@code null}), which may belong to another facility.
+     */
+    public Iterator<Booking> iterator(Booking after) {
+        if (after == null) {
+            return getBookings().iterator();
+        }
+        Booking sameStart = bookings.get(after.getStart());
+        boolean inclusive = sameStart != null && sameStart.compareTo(after) > 0;
+        return Collections.unmodifiableCollection(bookings.tailMap(after.getStart(), inclusive).values()).iterator();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        T result = reader.get();
+        if (lock.validate(stamp)) {
+            return result;
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
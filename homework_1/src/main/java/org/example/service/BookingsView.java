@@ -0,0 +1,93 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Read-only live view over all facility schedules. Handing it out costs nothing; iteration walks
+ * the schedules' skip lists directly, so it never copies, never throws on concurrent writes and
+ * sees every booking that was committed before it started and not removed meanwhile.
+ * {@link #contains} keeps the {@link Booking#equals} semantics, i.e. an overlapping booking of the
+ * same facility counts as contained.
+ * <p>
+ * With an archive attached, archived bookings follow the scheduled ones.
+ */
+class BookingsView extends AbstractSet<Booking> {
+    private final Map<Facility, BookingSchedule> schedules;
+    private final Supplier<BookingArchive> archive;
+
+    BookingsView(Map<Facility, BookingSchedule> schedules, Supplier<BookingArchive> archive) {
+        this.schedules = schedules;
+        this.archive = archive;
+    }
+
+    @Override
+    public Iterator<Booking> iterator() {
+        Iterator<BookingSchedule> scheduleIterator = schedules.values().iterator();
+        BookingArchive archived = archive.get();
+        return new Iterator<>() {
+            private Iterator<Booking> current = Collections.emptyIterator();
+            private boolean archiveVisited = archived == null;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && scheduleIterator.hasNext()) {
+                    current = scheduleIterator.next().getBookings().iterator();
+                }
+                if (!current.hasNext() && !archiveVisited) {
+                    archiveVisited = true;
+                    current = archived.iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Booking next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        BookingArchive archived = archive.get();
+        long size = archived == null ? 0 : archived.size();
+        for (BookingSchedule schedule : schedules.values()) {
+            size += schedule.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        BookingArchive archived = archive.get();
+        if (archived != null && archived.size() > 0) return false;
+        for (BookingSchedule schedule : schedules.values()) {
+            if (!schedule.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Booking booking)) return false;
+        BookingSchedule schedule = schedules.get(booking.getFacility());
+        if (schedule != null && schedule.contains(booking)) return true;
+        BookingArchive archived = archive.get();
+        if (archived == null || archived.getCutoff() == null) return false;
+        int gap = booking.getFacility().getGapPolicy().maxGap();
+        return archived.between(
+                booking.getFacility(), booking.getStart().minusMinutes(gap), booking.getEnd().plusMinutes(gap)
+        ).stream().anyMatch(booking::isOverlapping);
+    }
+}
@@ -1,72 +1,300 @@
 package org.example.service;
 
 import org.example.model.*;
+import org.example.utils.InvalidSessionException;
+import org.example.utils.JournalFailedException;
 import org.example.utils.MemberAlreadyExistsException;
 import org.example.utils.MemberNotFoundException;
+import org.example.utils.MergingIterator;
 import org.example.utils.WrongPasswordException;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
 
 public class Coworking {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 512;
+    private static final int PARALLEL_LEAF_SIZE = 32;
+
     private final Map<String, Facility> facilities;
     private final Map<String, User> users;
-    private final HashSet<Booking> bookings;
+    private final List<Facility> facilityList;
+    private final List<Facility> facilitiesView;
+    private final Map<Facility, BookingSchedule> schedules;
+    private final Map<Class<? extends Facility>, GapPolicy> typeGapPolicies = new ConcurrentHashMap<>();
+    private final Set<Booking> bookingsView;
+    private final Set<Booking> scheduledView;
+    private final UserBookingIndex userBookings;
+    private final FreeGapIndex freeGaps;
+    private final AvailabilityCache availabilityCache;
+    private final OccupancyAnalytics analytics;
+    private final CredentialCache credentials = new CredentialCache();
+    private final SessionManager sessions = new SessionManager();
+    private final CoworkingMetrics metrics = new CoworkingMetrics();
+    private final List<BookingListener> bookingListeners;
+    private final List<CoworkingListener> listeners;
+    private final BookingListener listenerChain = new BookingListener() {
+        @Override
+        public void bookingAdded(Booking booking) {
+            bookingListeners.forEach(listener -> listener.bookingAdded(booking));
+        }
+
+        @Override
+        public void bookingsAdded(List<Booking> bookings) {
+            bookingListeners.forEach(listener -> listener.bookingsAdded(bookings));
+        }
+
+        @Override
+        public void bookingRemoved(Booking booking) {
+            bookingListeners.forEach(listener -> listener.bookingRemoved(booking));
+        }
+
+        @Override
+        public void bookingArchived(Booking booking) {
+            bookingListeners.forEach(listener -> listener.bookingArchived(booking));
+        }
+
+        @Override
+        public void recurringBookingAdded(RecurringBooking rule) {
+            bookingListeners.forEach(listener -> listener.recurringBookingAdded(rule));
+        }
+
+        @Override
+        public void recurringBookingRemoved(RecurringBooking rule) {
+            bookingListeners.forEach(listener -> listener.recurringBookingRemoved(rule));
+        }
+    };
+    private final Object archiveLock = new Object();
+    private volatile BookingArchive archive;
+    private volatile LocalDateTime archiveCutoff;
+    private volatile JournalFailedException writesStopped;
+    private volatile ForkJoinPool availabilityPool = ForkJoinPool.commonPool();
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
     public Coworking() {
-        this.facilities = new HashMap<>();
-        this.users = new TreeMap<>();
-        this.bookings = new HashSet<>();
+        this.facilities = new ConcurrentHashMap<>();
+        this.users = new ConcurrentSkipListMap<>();
+        this.facilityList = new CopyOnWriteArrayList<>();
+        this.facilitiesView = Collections.unmodifiableList(facilityList);
+        this.schedules = new ConcurrentHashMap<>();
+        this.bookingsView = new BookingsView(schedules, () -> archive);
+        this.scheduledView = new BookingsView(schedules, () -> null);
+        this.userBookings = new UserBookingIndex();
+        this.freeGaps = new FreeGapIndex();
+        this.availabilityCache = new AvailabilityCache();
+        this.analytics = new OccupancyAnalytics();
+        this.bookingListeners = new CopyOnWriteArrayList<>(List.of(userBookings, freeGaps, availabilityCache, analytics));
+        this.listeners = new CopyOnWriteArrayList<>(List.of(freeGaps, availabilityCache, analytics));
+        metrics.size("users", users::size);
+        metrics.size("facilities", facilityList::size);
+        metrics.size("scheduledBookings", scheduledView::size);
+        metrics.size("sessions", sessions::size);
+        metrics.size("cachedSlots", availabilityCache::size);
+        metrics.size("cachedCredentials", credentials::size);
+    }
+
+    public void addBookingListener(BookingListener listener) {
+        bookingListeners.add(listener);
+    }
+
+    public void addListener(CoworkingListener listener) {
+        listeners.add(listener);
+        bookingListeners.add(listener);
+    }
+
+    public void removeListener(CoworkingListener listener) {
+        listeners.remove(listener);
+        bookingListeners.remove(listener);
+    }
+
+    /**
+     * Serves archived history from {@code archive} from now on. Scheduled bookings the archive already
+     * covers, e.g. replayed from a journal written before the archive run, are dropped from the schedules.
+     * The archived history is counted into the {@link #getAnalytics() analytics}.
+     */
+    public void attachArchive(BookingArchive archive) {
+        synchronized (archiveLock) {
+            archive.bind(facilities::get, users::get);
+            this.archive = archive;
+            LocalDateTime cutoff = archive.getCutoff();
+            if (cutoff != null) {
+                archiveCutoff = cutoff;
+                for (BookingSchedule schedule : schedules.values()) {
+                    // already counted when they were booked, and about to be counted again from the archive
+                    schedule.archive(schedule.closeBefore(cutoff)).forEach(analytics::bookingRemoved);
+                }
+            }
+            analytics.addAll(archive.iterator());
+        }
+    }
+
+    /**
+     * Moves every booking that ends by {@code cutoff} to the attached archive and closes the time before
+     * {@code cutoff} for new bookings. Returns the number of bookings archived.
+     */
+    public int archiveBookingsBefore(LocalDateTime cutoff) throws IllegalStateException {
+        checkWritable();
+        synchronized (archiveLock) {
+            if (archive == null) {
+                throw new IllegalStateException("No booking archive attached");
+            }
+            if (archiveCutoff != null && cutoff.isBefore(archiveCutoff)) {
+                throw new IllegalArgumentException("Archive cutoff can only move forward");
+            }
+            archiveCutoff = cutoff;
+            Map<BookingSchedule, List<Booking>> ended = new HashMap<>();
+            List<Booking> toArchive = new ArrayList<>();
+            for (BookingSchedule schedule : schedules.values()) {
+                List<Booking> scheduleEnded = schedule.closeBefore(cutoff);
+                if (!scheduleEnded.isEmpty()) {
+                    ended.put(schedule, scheduleEnded);
+                    toArchive.addAll(scheduleEnded);
+                }
+            }
+            archive.append(toArchive, cutoff);
+            ended.forEach(BookingSchedule::archive);
+            return toArchive.size();
+        }
+    }
+
+    /**
+     * Refuses every further change with a {@link JournalFailedException} carrying {@code reason}, once
+     * changes can no longer be saved. Everything stays readable.
+     */
+    public void stopWrites(String reason, Throwable cause) {
+        writesStopped = new JournalFailedException(reason, cause);
+    }
+
+    private void checkWritable() throws JournalFailedException {
+        JournalFailedException stopped = writesStopped;
+        if (stopped != null) {
+            throw new JournalFailedException(stopped.getMessage(), stopped.getCause());
+        }
     }
 
     public void createAdminUser(String login, String password) throws MemberAlreadyExistsException {
-        if (users.putIfAbsent(login, new User(
+        addUser(new User(
                 login,
                 password,
                 true
-        )) != null) {
-            throw new MemberAlreadyExistsException();
-        }
+        ));
     }
 
     public void registerNewUser(String login, String password) throws MemberAlreadyExistsException {
-        if (users.putIfAbsent(login, new User(login, password)) != null) {
+        addUser(new User(login, password));
+    }
+
+    public void addUser(User user) throws MemberAlreadyExistsException {
+        checkWritable();
+        if (users.putIfAbsent(user.getLogin(), user) != null) {
             throw new MemberAlreadyExistsException();
         }
+        listeners.forEach(listener -> listener.userAdded(user));
+    }
+
+    public Collection<User> viewAllUsers() {
+        return Collections.unmodifiableCollection(users.values());
     }
 
+    /**
+     * Checks the password against the user's hash; a login verified within the last few minutes with
+     * the same password skips the hash.
+     */
     public User authenticateUser(String login, String password) throws MemberNotFoundException, WrongPasswordException {
+        long started = metrics.start(CoworkingMetrics.Operation.AUTHENTICATE_USER);
+        try {
+            return authenticate(login, password);
+        } finally {
+            metrics.record(CoworkingMetrics.Operation.AUTHENTICATE_USER, started);
+        }
+    }
+
+    private User authenticate(String login, String password) throws MemberNotFoundException, WrongPasswordException {
         User user = users.get(login);
         if (user == null) {
             throw new MemberNotFoundException();
         }
-        if (!user.getPassword().equals(password)) {
+        if (password == null) {
             throw new WrongPasswordException();
         }
+        if (!credentials.contains(user, password)) {
+            if (!user.checkPassword(password)) {
+                throw new WrongPasswordException();
+            }
+            credentials.put(user, password);
+        }
         return user;
     }
 
     public User getUser(String login, String password) throws WrongPasswordException, MemberNotFoundException {
-        User user = users.get(login);
-        if (user == null) {
+        return authenticateUser(login, password);
+    }
+
+    /**
+     * Checks the password once and returns a token that stands for the user in later calls, see
+     * {@link #session(String)}.
+     */
+    public String openSession(String login, String password) throws MemberNotFoundException, WrongPasswordException {
+        return openSession(authenticateUser(login, password));
+    }
+
+    /**
+     * Opens a session for a user already authenticated by other means.
+     */
+    public String openSession(User user) throws MemberNotFoundException {
+        String token = sessions.open(user);
+        // Checked after opening, so a removal racing with this call either sees the session or is seen here
+        if (users.get(user.getLogin()) != user) {
+            sessions.close(token);
             throw new MemberNotFoundException();
         }
-        if (!user.getPassword().equals(password)) {
-            throw new WrongPasswordException();
-        }
-        return user;
+        return token;
+    }
+
+    public boolean closeSession(String token) {
+        return sessions.close(token);
+    }
+
+    public User getUser(String token) throws InvalidSessionException {
+        return sessions.resolve(token);
+    }
+
+    public CoworkingSession session(String token) {
+        return new CoworkingSession(this, token);
     }
 
     public boolean removeUser(String login, String password) throws MemberNotFoundException, WrongPasswordException {
-        User user = getUser(login, password);
-        return users.remove(login, user);
+        return removeUser(getUser(login, password));
+    }
+
+    public boolean removeUser(User user) {
+        checkWritable();
+        if (!users.remove(user.getLogin(), user)) {
+            return false;
+        }
+        credentials.invalidate(user.getLogin());
+        sessions.closeAll(user);
+        removeUserBookings(user);
+        listeners.forEach(listener -> listener.userRemoved(user));
+        return true;
     }
 
     public void addFacility(Facility facility) throws MemberAlreadyExistsException {
-        if (facilities.putIfAbsent(facility.getIdNumber(), facility) != null) {
-            throw new MemberAlreadyExistsException();
+        checkWritable();
+        synchronized (facilityList) {
+            if (facilities.putIfAbsent(facility.getIdNumber(), facility) != null) {
+                throw new MemberAlreadyExistsException();
+            }
+            facility.setTypeGapPolicy(typeGapPolicy(facility.getClass()));
+            facilityList.add(facility);
         }
+        listeners.forEach(listener -> listener.facilityAdded(facility));
     }
 
     public Facility getFacility(String idNumber) throws MemberNotFoundException {
@@ -78,49 +306,639 @@ public class Coworking {
     }
 
     public List<Facility> viewAllFacilities() {
-        var view = new ArrayList<>(facilities.values());
-        return Collections.unmodifiableList(view);
+        return facilitiesView;
     }
 
     public Facility removeFacility(String idNumber) throws MemberNotFoundException {
-        Facility deleted = facilities.remove(idNumber);
-        if (deleted == null) {
-            throw new MemberNotFoundException();
+        checkWritable();
+        Facility deleted;
+        BookingSchedule schedule;
+        synchronized (facilityList) {
+            deleted = facilities.remove(idNumber);
+            if (deleted == null) {
+                throw new MemberNotFoundException();
+            }
+            facilityList.remove(deleted);
+            schedule = schedules.remove(deleted);
+        }
+        if (schedule != null) {
+            schedule.retire();
         }
+        listeners.forEach(listener -> listener.facilityRemoved(deleted));
         return deleted;
     }
 
-    // TODO: Prevent bookings less than facility-type gap apart from being added
+    public void editConferenceRoom(ConferenceRoom room, int seats) {
+        checkWritable();
+        room.setSeats(seats);
+        listeners.forEach(listener -> listener.facilityEdited(room));
+    }
+
+    public void editWorkstation(Workstation workstation, String description) {
+        checkWritable();
+        workstation.setDescription(description);
+        listeners.forEach(listener -> listener.facilityEdited(workstation));
+    }
+
+    /**
+     * Gives {@code facility} a gap policy of its own, or makes it follow its type's again if {@code policy}
+     * is {@code null}, and returns the consecutive bookings that the new gaps put too close together. Those
+     * stay booked; only new bookings have to keep the new gaps.
+     */
+    public List<GapViolation> setGapPolicy(Facility facility, GapPolicy policy) {
+        checkWritable();
+        List<GapViolation> violations = changeGaps(facility, () -> facility.setGapPolicy(policy));
+        listeners.forEach(listener -> listener.gapPolicySet(facility, policy));
+        return violations;
+    }
+
+    /**
+     * Sets the gap policy of {@code type}, e.g. {@code ConferenceRoom.class}, for its facilities without a
+     * policy of their own, now and when added later, unless a subtype has a policy set. {@code null} drops
+     * the type's policy. Returns the violations found in all of their schedules.
+     */
+    public List<GapViolation> setGapPolicy(Class<? extends Facility> type, GapPolicy policy) {
+        checkWritable();
+        if (policy == null) {
+            typeGapPolicies.remove(type);
+        } else {
+            typeGapPolicies.put(type, policy);
+        }
+        List<GapViolation> violations = new ArrayList<>();
+        for (Facility facility : facilityList) {
+            if (type.isInstance(facility)) {
+                GapPolicy typePolicy = typeGapPolicy(facility.getClass());
+                violations.addAll(changeGaps(facility, () -> facility.setTypeGapPolicy(typePolicy)));
+            }
+        }
+        listeners.forEach(listener -> listener.gapPolicySet(type, policy));
+        return violations;
+    }
+
+    /**
+     * The gap policies set per facility type.
+     */
+    public Map<Class<? extends Facility>, GapPolicy> viewTypeGapPolicies() {
+        return Collections.unmodifiableMap(typeGapPolicies);
+    }
+
+    private List<GapViolation> changeGaps(Facility facility, Runnable change) {
+        BookingSchedule schedule = schedules.get(facility);
+        List<GapViolation> violations;
+        if (schedule == null) {
+            change.run();
+            violations = List.of();
+        } else {
+            violations = schedule.changeGaps(change);
+        }
+        listeners.forEach(listener -> listener.facilityEdited(facility));
+        return violations;
+    }
+
+    private GapPolicy typeGapPolicy(Class<?> type) {
+        for (Class<?> supertype = type; supertype != null; supertype = supertype.getSuperclass()) {
+            GapPolicy policy = typeGapPolicies.get(supertype);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return GapPolicy.DEFAULT;
+    }
+
     public boolean addBooking(User user, Facility facility, LocalDateTime start, LocalDateTime end) {
-        return bookings.add(new Booking(user, facility, start, end));
+        checkWritable();
+        long started = metrics.start(CoworkingMetrics.Operation.ADD_BOOKING);
+        try {
+            Booking booking = new Booking(user, facility, start, end);
+            if (conflictsWithArchive(booking) || !getOrCreateSchedule(facility).add(booking)) {
+                metrics.bookingConflict();
+                return false;
+            }
+            return true;
+        } finally {
+            metrics.record(CoworkingMetrics.Operation.ADD_BOOKING, started);
+        }
     }
 
-    public boolean removeBooking(
-            Facility facility, LocalDateTime start, LocalDateTime end, User user
+    /**
+     * Like {@link #addBooking}, but says why a booking was rejected: the bookings it clashes with and the
+     * nearest free slots of the same length before and after it.
+     */
+    public BookingResult book(User user, Facility facility, LocalDateTime start, LocalDateTime end) {
+        checkWritable();
+        long started = metrics.start(CoworkingMetrics.Operation.ADD_BOOKING);
+        try {
+            Booking booking = new Booking(user, facility, start, end);
+            LocalDateTime cutoff = archiveCutoff;
+            BookingResult result = getOrCreateSchedule(facility)
+                    .book(booking, candidate -> findArchivedConflict(candidate, cutoff));
+            if (!result.isBooked()) {
+                metrics.bookingConflict();
+            }
+            return result;
+        } finally {
+            metrics.record(CoworkingMetrics.Operation.ADD_BOOKING, started);
+        }
+    }
+
+    /**
+     * Books {@code facility} for {@code user} at every occurrence of {@code recurrence}, stored as a single
+     * rule. Fails if any occurrence would clash with an existing booking, or if the rule has no occurrence
+     * at all.
+     */
+    public boolean addRecurringBooking(User user, Facility facility, Recurrence recurrence) {
+        checkWritable();
+        RecurringBooking rule = new RecurringBooking(user, facility, recurrence);
+        Booking first = rule.getFirstOccurrence();
+        if (first == null) {
+            return false;
+        }
+        if (conflictsWithArchive(first) || !getOrCreateSchedule(facility).addRecurring(rule)) {
+            metrics.bookingConflict();
+            return false;
+        }
+        return true;
+    }
+
+    public boolean removeRecurringBooking(
+            RecurringBooking rule, User user
     ) throws NoSuchElementException, UnsupportedOperationException {
-        Booking toRemove = bookings.stream()
-                .filter(booking -> booking.getFacility().equals(facility)
-                        && booking.getStart().isEqual(start)
-                        && booking.getEnd().isEqual(end))
+        checkWritable();
+        BookingSchedule schedule = schedules.get(rule.getFacility());
+        if (schedule == null) {
+            throw new NoSuchElementException();
+        }
+        RecurringBooking toRemove = schedule.getRecurringBookings().stream()
+                .filter(rule::equals)
                 .findAny()
-                .orElseThrow(NoSuchElementException::new);
-        if ( !(toRemove.getUser().equals(user) || user.isAdmin()) ) {
+                .orElseThrow();
+        if ( !(user.isAdmin() || user.equals(toRemove.getUser())) ) {
             throw new UnsupportedOperationException("Current user doesn't have the privilege to remove this booking");
         }
-        return bookings.remove(toRemove);
+        return schedule.removeRecurring(toRemove);
+    }
+
+    public List<RecurringBooking> viewRecurringBookings() {
+        List<RecurringBooking> rules = new ArrayList<>();
+        schedules.values().forEach(schedule -> rules.addAll(schedule.getRecurringBookings()));
+        rules.sort(Comparator.comparing(RecurringBooking::getFacility)
+                .thenComparing(rule -> rule.getRecurrence().getFirstDate())
+                .thenComparing(rule -> rule.getRecurrence().getStart()));
+        return rules;
+    }
+
+    public List<RecurringBooking> viewUserRecurringBookings(String login) {
+        return viewRecurringBookings().stream()
+                .filter(rule -> rule.getUser() != null && rule.getUser().getLogin().equals(login))
+                .toList();
+    }
+
+    public BatchBookingResult addBookings(User user, Facility facility, Recurrence recurrence) {
+        return addBookings(recurrence.expand(user, facility));
+    }
+
+    /**
+     * Adds all of {@code requests} or none of them. The schedules involved are locked together, in
+     * facility order, while each one's requests are checked in start order against the schedule, the
+     * archive and one another in a single pass. Listeners learn of the batch in one
+     * {@link BookingListener#bookingsAdded} call, so the journal keeps it as a single record.
+     */
+    public BatchBookingResult addBookings(List<Booking> requests) {
+        checkWritable();
+        int count = requests.size();
+        BatchBookingResult.Status[] statuses = new BatchBookingResult.Status[count];
+        Booking[] conflicts = new Booking[count];
+        Map<BookingSchedule, List<Integer>> bySchedule = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            bySchedule.computeIfAbsent(getOrCreateSchedule(requests.get(i).getFacility()), key -> new ArrayList<>()).add(i);
+        }
+        List<BookingSchedule> locked = new ArrayList<>(bySchedule.keySet());
+        locked.sort(Comparator.comparing(BookingSchedule::getFacility)
+                .thenComparingInt(schedule -> System.identityHashCode(schedule.getFacility())));
+        long[] stamps = new long[locked.size()];
+        int held = 0;
+        try {
+            for (; held < stamps.length; held++) {
+                stamps[held] = locked.get(held).lockWrite();
+            }
+            locked.forEach(BookingSchedule::requireActive);
+            LocalDateTime cutoff = archiveCutoff;
+            boolean valid = true;
+            for (BookingSchedule schedule : locked) {
+                valid &= validate(schedule, requests, bySchedule.get(schedule), cutoff, statuses, conflicts);
+            }
+            for (BookingSchedule schedule : locked) {
+                for (int i : bySchedule.get(schedule)) {
+                    if (valid) {
+                        schedule.putLocked(requests.get(i));
+                    } else if (statuses[i] == BatchBookingResult.Status.BOOKED) {
+                        statuses[i] = BatchBookingResult.Status.NOT_BOOKED;
+                    }
+                }
+            }
+            if (valid && count > 0) {
+                listenerChain.bookingsAdded(List.copyOf(requests));
+            }
+            List<BatchBookingResult.Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(new BatchBookingResult.Item(requests.get(i), statuses[i], conflicts[i]));
+            }
+            return new BatchBookingResult(items, valid);
+        } finally {
+            while (held > 0) {
+                held--;
+                locked.get(held).unlockWrite(stamps[held]);
+            }
+        }
+    }
+
+    /**
+     * Fills in the status of the requests at {@code indexes}, which all belong to {@code schedule}, and
+     * sorts {@code indexes} by start. Returns whether all of them can be booked.
+     */
+    private boolean validate(
+            BookingSchedule schedule, List<Booking> requests, List<Integer> indexes, LocalDateTime cutoff,
+            BatchBookingResult.Status[] statuses, Booking[] conflicts
+    ) {
+        indexes.sort(Comparator.comparing(requests::get));
+        List<Booking> sorted = new ArrayList<>(indexes.size());
+        indexes.forEach(i -> sorted.add(requests.get(i)));
+        Booking[] scheduled = schedule.findConflictsLocked(sorted);
+        LocalDateTime closedBefore = schedule.getClosedBefore();
+        if (closedBefore == null || cutoff != null && cutoff.isAfter(closedBefore)) {
+            closedBefore = cutoff;
+        }
+        boolean valid = true;
+        Booking latest = null;
+        for (int k = 0; k < sorted.size(); k++) {
+            int i = indexes.get(k);
+            Booking booking = sorted.get(k);
+            Booking archived;
+            if (closedBefore != null && booking.getStart().isBefore(closedBefore)) {
+                statuses[i] = BatchBookingResult.Status.CLOSED;
+            } else if (scheduled[k] != null) {
+                statuses[i] = BatchBookingResult.Status.CONFLICT;
+                conflicts[i] = scheduled[k];
+            } else if (latest != null && latest.isOverlapping(booking)) {
+                statuses[i] = BatchBookingResult.Status.BATCH_CONFLICT;
+                conflicts[i] = latest;
+            } else if ((archived = findArchivedConflict(booking, cutoff)) != null) {
+                statuses[i] = BatchBookingResult.Status.CONFLICT;
+                conflicts[i] = archived;
+            } else {
+                statuses[i] = BatchBookingResult.Status.BOOKED;
+            }
+            valid &= statuses[i] == BatchBookingResult.Status.BOOKED;
+            if (latest == null || booking.getEndMinute() > latest.getEndMinute()) {
+                latest = booking;
+            }
+        }
+        return valid;
+    }
+
+    public boolean removeBooking(
+            Facility facility, LocalDateTime start, LocalDateTime end, User user
+    ) throws NoSuchElementException, UnsupportedOperationException {
+        checkWritable();
+        long started = metrics.start(CoworkingMetrics.Operation.REMOVE_BOOKING);
+        try {
+            BookingSchedule schedule = schedules.get(facility);
+            if (schedule == null) {
+                throw new NoSuchElementException();
+            }
+            Booking toRemove = schedule.find(start, end);
+            if (toRemove == null) {
+                throw new NoSuchElementException();
+            }
+            if ( !(user.isAdmin() || user.equals(toRemove.getUser())) ) {
+                throw new UnsupportedOperationException("Current user doesn't have the privilege to remove this booking");
+            }
+            return schedule.remove(toRemove);
+        } finally {
+            metrics.record(CoworkingMetrics.Operation.REMOVE_BOOKING, started);
+        }
+    }
+
+    public int removeUserBookings(User user) {
+        checkWritable();
+        Map<Facility, List<Booking>> byFacility = new HashMap<>();
+        userBookings.get(user.getLogin()).stream()
+                .filter(booking -> booking.getUser().equals(user))
+                .forEach(booking -> byFacility.computeIfAbsent(booking.getFacility(), f -> new ArrayList<>()).add(booking));
+        int removed = 0;
+        for (var entry : byFacility.entrySet()) {
+            BookingSchedule schedule = schedules.get(entry.getKey());
+            if (schedule != null) {
+                removed += schedule.removeAll(entry.getValue()).size();
+            }
+        }
+        for (BookingSchedule schedule : schedules.values()) {
+            schedule.getRecurringBookings().stream()
+                    .filter(rule -> user.equals(rule.getUser()))
+                    .toList()
+                    .forEach(schedule::removeRecurring);
+        }
+        return removed;
+    }
+
+    public int removeBookings(
+            LocalDateTime from, LocalDateTime to, User admin
+    ) throws UnsupportedOperationException {
+        checkWritable();
+        if (!admin.isAdmin()) {
+            throw new UnsupportedOperationException("Current user doesn't have the privilege to remove bookings");
+        }
+        int removed = 0;
+        for (BookingSchedule schedule : schedules.values()) {
+            removed += schedule.removeBetween(from, to).size();
+        }
+        return removed;
+    }
+
+    public NavigableSet<Booking> viewUserBookings(String login) {
+        NavigableSet<Booking> scheduled = userBookings.get(login);
+        BookingArchive archived = archive;
+        if (archived == null) {
+            return scheduled;
+        }
+        List<Booking> history = archived.userBookings(login);
+        if (history.isEmpty()) {
+            return scheduled;
+        }
+        TreeSet<Booking> all = new TreeSet<>(history);
+        all.addAll(scheduled);
+        return Collections.unmodifiableNavigableSet(all);
+    }
+
+    public List<Booking> viewUserBookings(String login, LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        LocalDateTime cutoff = archiveCutoff;
+        if (cutoff == null || !from.isBefore(cutoff)) {
+            return userBookings.get(login, from, to, offset, limit);
+        }
+        return UserBookingIndex.page(viewUserBookings(login), from, to, offset, limit);
     }
 
     public Set<Booking> viewAllBookings() {
-        var view = new HashSet<>(bookings);
-        return Collections.unmodifiableSet(view);
+        return bookingsView;
+    }
+
+    /**
+     * All bookings, scheduled and archived, that sort after {@code after} (all of them if it is
+     * {@code null}), in {@link Booking} order. The facility schedules and the archive are merged lazily,
+     * so resuming from the last booking seen pages through any number of bookings without copying them.
+     */
+    public Iterator<Booking> iterateBookings(Booking after) {
+        List<Iterator<Booking>> sources = new ArrayList<>();
+        schedules.values().forEach(schedule -> sources.add(schedule.iterator(after)));
+        BookingArchive archived = archive;
+        if (archived != null) {
+            sources.add(archived.sortedIterator(null, after));
+        }
+        return new MergingIterator<>(sources, Comparator.naturalOrder());
+    }
+
+    /**
+     * Like {@link #iterateBookings}, for the bookings of one facility.
+     */
+    public Iterator<Booking> iterateFacilityBookings(Facility facility, Booking after) {
+        BookingSchedule schedule = schedules.get(facility);
+        Iterator<Booking> scheduled = schedule == null ? Collections.emptyIterator() : schedule.iterator(after);
+        BookingArchive archived = archive;
+        if (archived == null) {
+            return scheduled;
+        }
+        return new MergingIterator<>(List.of(archived.sortedIterator(facility, after), scheduled), Comparator.naturalOrder());
+    }
+
+    /**
+     * Bookings still held in the facility schedules, i.e. {@link #viewAllBookings()} without the archive.
+     */
+    public Set<Booking> viewScheduledBookings() {
+        return scheduledView;
     }
 
     public Map<Facility, TreeSet<Booking>> getAvailableBookingSlots(LocalDate date) {
+        long started = metrics.start(CoworkingMetrics.Operation.AVAILABLE_SLOTS);
+        try {
+            return availableSlots(date);
+        } finally {
+            metrics.record(CoworkingMetrics.Operation.AVAILABLE_SLOTS, started);
+        }
+    }
+
+    private Map<Facility, TreeSet<Booking>> availableSlots(LocalDate date) {
+        Facility[] all = facilityList.toArray(new Facility[0]);
+        List<TreeSet<Booking>> perFacility = forEachFacility(all, facility -> {
+            TreeSet<Booking> slots = availabilityCache.get(facility, date);
+            return slots != null ? slots : computeFreeSlots(facility, date, date).get(date);
+        });
         Map<Facility, TreeSet<Booking>> freeSlots = new TreeMap<>();
-        facilities.values().forEach(
-                facility -> freeSlots.put(facility, facility.getFreeBookingSlotsForDate(date, bookings))
-        );
+        for (int i = 0; i < all.length; i++) {
+            freeSlots.put(all[i], perFacility.get(i));
+        }
         return freeSlots;
     }
 
+    /**
+     * Free slots of every facility for each date from {@code first} to {@code last} inclusive. Each
+     * facility's schedule is read and swept once for the whole span.
+     */
+    public SortedMap<LocalDate, Map<Facility, TreeSet<Booking>>> getAvailableBookingSlots(LocalDate first, LocalDate last) {
+        long started = metrics.start(CoworkingMetrics.Operation.AVAILABLE_SLOTS);
+        try {
+            return availableSlots(first, last);
+        } finally {
+            metrics.record(CoworkingMetrics.Operation.AVAILABLE_SLOTS, started);
+        }
+    }
+
+    private SortedMap<LocalDate, Map<Facility, TreeSet<Booking>>> availableSlots(LocalDate first, LocalDate last) {
+        SortedMap<LocalDate, Map<Facility, TreeSet<Booking>>> freeSlots = new TreeMap<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            freeSlots.put(date, new TreeMap<>());
+        }
+        if (freeSlots.isEmpty()) {
+            return freeSlots;
+        }
+        Facility[] all = facilityList.toArray(new Facility[0]);
+        List<Map<LocalDate, TreeSet<Booking>>> perFacility = forEachFacility(all, facility -> {
+            Map<LocalDate, TreeSet<Booking>> cached = new HashMap<>();
+            for (LocalDate date : freeSlots.keySet()) {
+                TreeSet<Booking> slots = availabilityCache.get(facility, date);
+                if (slots == null) break;
+                cached.put(date, slots);
+            }
+            return cached.size() == freeSlots.size() ? cached : computeFreeSlots(facility, first, last);
+        });
+        for (int i = 0; i < all.length; i++) {
+            Facility facility = all[i];
+            perFacility.get(i).forEach((date, dateSlots) -> freeSlots.get(date).put(facility, dateSlots));
+        }
+        return freeSlots;
+    }
+
+    /**
+     * Spreads free-slot sweeps over {@code pool} whenever there are at least {@code threshold}
+     * facilities; smaller sites stay on the calling thread, where forking would cost more than it saves.
+     */
+    public void setParallelAvailability(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.availabilityPool = pool;
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Applies {@code work} to every facility and returns the results in the same order, in parallel
+     * past the threshold.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> forEachFacility(Facility[] all, Function<Facility, ? extends T> work) {
+        Object[] results = new Object[all.length];
+        ForkJoinPool pool = availabilityPool;
+        if (all.length < parallelThreshold || pool.getParallelism() < 2) {
+            for (int i = 0; i < all.length; i++) {
+                results[i] = work.apply(all[i]);
+            }
+            return (List<T>) Arrays.asList(results);
+        }
+        int leafSize = Math.max(PARALLEL_LEAF_SIZE, all.length / (pool.getParallelism() * 4));
+        pool.invoke(new FacilitySweep(all, results, work, 0, all.length, leafSize));
+        return (List<T>) Arrays.asList(results);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class FacilitySweep extends RecursiveAction {
+        private final Facility[] facilities;
+        private final Object[] results;
+        private final Function<Facility, ?> work;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        FacilitySweep(Facility[] facilities, Object[] results, Function<Facility, ?> work, int from, int to, int leafSize) {
+            this.facilities = facilities;
+            this.results = results;
+            this.work = work;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = work.apply(facilities[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new FacilitySweep(facilities, results, work, from, middle, leafSize),
+                    new FacilitySweep(facilities, results, work, middle, to, leafSize)
+            );
+        }
+    }
+
+    public CoworkingMetrics getMetrics() {
+        return metrics;
+    }
+
+    public OccupancyAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    public AvailabilityCache getAvailabilityCache() {
+        return availabilityCache;
+    }
+
+    /**
+     * Sweeps the facility's bookings for free slots and caches them per date, unless a booking event
+     * for the facility came in while the sweep ran.
+     */
+    private SortedMap<LocalDate, TreeSet<Booking>> computeFreeSlots(Facility facility, LocalDate first, LocalDate last) {
+        long version = availabilityCache.version(facility);
+        GapPolicy gaps = facility.getGapPolicy();
+        SortedMap<LocalDate, TreeSet<Booking>> slots =
+                facility.getFreeBookingSlotsForDates(first, last, getBookingsAround(facility, first, last));
+        slots.forEach((date, dateSlots) -> availabilityCache.put(facility, date, dateSlots, gaps, version));
+        return slots;
+    }
+
+    /**
+     * The earliest free slots across all facilities that match {@code query}, at most one per free gap
+     * between two bookings, ordered by start.
+     */
+    public List<Booking> findAvailableSlots(SlotQuery query) {
+        LocalDateTime cutoff = archiveCutoff;
+        return freeGaps.find(
+                query,
+                cutoff == null ? Long.MIN_VALUE : Booking.toEpochMinute(cutoff, true),
+                facility -> facilities.get(facility.getIdNumber()) == facility
+        );
+    }
+
+    /**
+     * Schedules are only created for registered facilities, checked under the lock {@link #removeFacility}
+     * holds, so none is left behind for a removed one. A schedule taken before its facility was removed is
+     * retired and refuses bookings from then on.
+     */
+    private BookingSchedule getOrCreateSchedule(Facility facility) throws IllegalArgumentException {
+        BookingSchedule existing = schedules.get(facility);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (facilityList) {
+            if (facilities.get(facility.getIdNumber()) != facility) {
+                throw new IllegalArgumentException("Facility " + facility.getIdNumber() + " is not registered");
+            }
+            return schedules.computeIfAbsent(facility, key -> {
+                BookingSchedule schedule = new BookingSchedule(key, listenerChain);
+                LocalDateTime cutoff = archiveCutoff;
+                if (cutoff != null) {
+                    schedule.closeBefore(cutoff);
+                }
+                return schedule;
+            });
+        }
+    }
+
+    private boolean conflictsWithArchive(Booking booking) {
+        LocalDateTime cutoff = archiveCutoff;
+        if (cutoff == null) {
+            return false;
+        }
+        return booking.getStart().isBefore(cutoff) || findArchivedConflict(booking, cutoff) != null;
+    }
+
+    private Booking findArchivedConflict(Booking booking, LocalDateTime cutoff) {
+        LocalDateTime from = booking.getStart().minusMinutes(booking.getFacility().getGapPolicy().maxGap());
+        if (cutoff == null || !from.isBefore(cutoff)) {
+            return null;
+        }
+        for (Booking archived : archive.between(booking.getFacility(), from, cutoff)) {
+            if (booking.isOverlapping(archived)) {
+                return archived;
+            }
+        }
+        return null;
+    }
+
+    private List<Booking> getBookingsAround(Facility facility, LocalDate first, LocalDate last) {
+        int margin = 2 * facility.getGapPolicy().maxGap();
+        LocalDateTime from = first.atStartOfDay().minusMinutes(margin);
+        LocalDateTime to = last.plusDays(1).atStartOfDay().plusMinutes(margin);
+        BookingSchedule schedule = schedules.get(facility);
+        List<Booking> scheduled = schedule == null ? List.of() : schedule.between(from, to);
+        LocalDateTime cutoff = archiveCutoff;
+        if (cutoff == null || !from.isBefore(cutoff)) {
+            return scheduled;
+        }
+        List<Booking> around = new ArrayList<>(archive.between(facility, from, to));
+        around.addAll(scheduled);
+        return around;
+    }
+
 }
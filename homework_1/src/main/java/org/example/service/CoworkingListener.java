@@ -0,0 +1,32 @@
+package org.example.service;
+
+import org.example.model.Facility;
+import org.example.model.GapPolicy;
+import org.example.model.User;
+
+/**
+ * Notified after every successful mutation of a {@link Coworking}.
+ */
+public interface CoworkingListener extends BookingListener {
+
+    default void userAdded(User user) {}
+
+    default void userRemoved(User user) {}
+
+    default void facilityAdded(Facility facility) {}
+
+    default void facilityRemoved(Facility facility) {}
+
+    default void facilityEdited(Facility facility) {}
+
+    /**
+     * The facility was given a gap policy of its own, or made to follow its type's if {@code policy} is
+     * {@code null}.
+     */
+    default void gapPolicySet(Facility facility, GapPolicy policy) {}
+
+    /**
+     * The gap policy of a facility type was set, or dropped if {@code policy} is {@code null}.
+     */
+    default void gapPolicySet(Class<? extends Facility> type, GapPolicy policy) {}
+}
@@ -0,0 +1,215 @@
+package org.example.service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Call counts and latencies of the hot {@link Coworking} operations, the number of bookings rejected for
+ * conflicts and the sizes of the main collections. Off by default: a disabled instance costs a volatile
+ * read per operation. An enabled one counts every call but times only one in {@link #setSamplingInterval
+ * every so many}, picked at random, since the two {@link System#nanoTime()} calls and the histogram update
+ * cost as much as a whole rejected booking; the latency distribution stays the same.
+ * <p>
+ * Everything can be read through {@link #dump()}, periodically with {@link #dumpEvery}, or over JMX
+ * once {@link #registerMBeans registered}.
+ */
+public class CoworkingMetrics implements CoworkingMetricsMXBean {
+    public static final int DEFAULT_SAMPLING_INTERVAL = 16;
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final ScheduledExecutorService DUMPER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "metrics-dump");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public enum Operation {
+        ADD_BOOKING("addBooking"),
+        REMOVE_BOOKING("removeBooking"),
+        AUTHENTICATE_USER("authenticateUser"),
+        AVAILABLE_SLOTS("getAvailableBookingSlots");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final LongAdder[] calls = new LongAdder[Operation.values().length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder bookingConflicts = new LongAdder();
+    private final Map<String, LongSupplier> sizes = new LinkedHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private volatile boolean enabled;
+    private volatile int samplingInterval = DEFAULT_SAMPLING_INTERVAL;
+
+    CoworkingMetrics() {
+        Arrays.setAll(calls, operation -> new LongAdder());
+        Arrays.setAll(latencies, operation -> new LatencyHistogram());
+    }
+
+    /**
+     * Counts a call of {@code operation} and returns its start time to be handed to {@link #record}, or
+     * {@link #NOT_TIMED} while disabled or if the call is not sampled.
+     */
+    long start(Operation operation) {
+        if (!enabled) {
+            return NOT_TIMED;
+        }
+        calls[operation.ordinal()].increment();
+        int interval = samplingInterval;
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    void record(Operation operation, long started) {
+        if (started != NOT_TIMED) {
+            latencies[operation.ordinal()].record(System.nanoTime() - started);
+        }
+    }
+
+    void bookingConflict() {
+        if (enabled) {
+            bookingConflicts.increment();
+        }
+    }
+
+    void size(String name, LongSupplier size) {
+        sizes.put(name, size);
+    }
+
+    public long getCalls(Operation operation) {
+        return calls[operation.ordinal()].sum();
+    }
+
+    /**
+     * The latencies of the sampled calls of {@code operation}.
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Times one in {@code interval} calls on average; 1 times every call.
+     */
+    @Override
+    public void setSamplingInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Sampling interval must be positive");
+        }
+        samplingInterval = interval;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        Map<String, Long> current = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            current.put(operation.getLabel(), getCalls(operation));
+        }
+        return current;
+    }
+
+    @Override
+    public long getBookingConflicts() {
+        return bookingConflicts.sum();
+    }
+
+    @Override
+    public Map<String, Long> getSizes() {
+        Map<String, Long> current = new LinkedHashMap<>();
+        sizes.forEach((name, size) -> current.put(name, size.getAsLong()));
+        return current;
+    }
+
+    @Override
+    public void reset() {
+        for (Operation operation : Operation.values()) {
+            calls[operation.ordinal()].reset();
+            latencies[operation.ordinal()].reset();
+        }
+        bookingConflicts.reset();
+    }
+
+    /**
+     * One line per operation with its calls, how many of them were timed and their latencies in
+     * microseconds, then the conflict count and the collection sizes.
+     */
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = getLatency(operation);
+            text.append(String.format(Locale.ROOT,
+                    "%-24s calls=%d timed=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                    operation.getLabel(), getCalls(operation), histogram.getCount(), histogram.getMean() / 1000,
+                    histogram.getP50() / 1000.0, histogram.getP99() / 1000.0, histogram.getP999() / 1000.0,
+                    histogram.getMax() / 1000.0));
+        }
+        text.append("bookingConflicts=").append(getBookingConflicts());
+        getSizes().forEach((name, size) -> text.append(' ').append(name).append('=').append(size));
+        return text.append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Hands a {@link #dump()} to {@code sink} every {@code interval} until the returned future is cancelled.
+     */
+    public ScheduledFuture<?> dumpEvery(Duration interval, Consumer<String> sink) {
+        long nanos = interval.toNanos();
+        return DUMPER.scheduleAtFixedRate(() -> sink.accept(dump()), nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as {@code org.example:type=Coworking,name=<name>},
+     * and the latencies as the same name with an {@code operation} key.
+     */
+    public void registerMBeans(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registered) {
+            ObjectName metrics = new ObjectName("org.example:type=Coworking,name=" + ObjectName.quote(name));
+            server.registerMBean(this, metrics);
+            registered.add(metrics);
+            for (Operation operation : Operation.values()) {
+                ObjectName latency = new ObjectName(metrics + ",operation=" + operation.getLabel());
+                server.registerMBean(getLatency(operation), latency);
+                registered.add(latency);
+            }
+        }
+    }
+
+    public void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registered) {
+            for (ObjectName name : registered) {
+                server.unregisterMBean(name);
+            }
+            registered.clear();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.service;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link CoworkingMetrics}. The latencies of every operation are registered as
+ * {@link LatencyHistogramMXBean}s of their own.
+ */
+public interface CoworkingMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getSamplingInterval();
+
+    void setSamplingInterval(int interval);
+
+    Map<String, Long> getCalls();
+
+    long getBookingConflicts();
+
+    Map<String, Long> getSizes();
+
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,157 @@
+package org.example.service;
+
+import org.example.model.*;
+import org.example.utils.InvalidSessionException;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The user operations of a {@link Coworking} on behalf of a session token. Every call resolves the
+ * token first, so it fails with {@link InvalidSessionException} once the session is closed or has
+ * expired, and never asks for the password again. The admin operations fail with
+ * {@link UnsupportedOperationException} for any other user.
+ */
+public class CoworkingSession {
+    private final Coworking coworking;
+    private final String token;
+
+    CoworkingSession(Coworking coworking, String token) {
+        this.coworking = coworking;
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() throws InvalidSessionException {
+        return coworking.getUser(token);
+    }
+
+    public boolean addBooking(Facility facility, LocalDateTime start, LocalDateTime end) throws InvalidSessionException {
+        return coworking.addBooking(getUser(), facility, start, end);
+    }
+
+    public BookingResult book(Facility facility, LocalDateTime start, LocalDateTime end) throws InvalidSessionException {
+        return coworking.book(getUser(), facility, start, end);
+    }
+
+    public boolean addRecurringBooking(Facility facility, Recurrence recurrence) throws InvalidSessionException {
+        return coworking.addRecurringBooking(getUser(), facility, recurrence);
+    }
+
+    public BatchBookingResult addBookings(Facility facility, Recurrence recurrence) throws InvalidSessionException {
+        return coworking.addBookings(getUser(), facility, recurrence);
+    }
+
+    public boolean removeBooking(
+            Facility facility, LocalDateTime start, LocalDateTime end
+    ) throws InvalidSessionException, NoSuchElementException, UnsupportedOperationException {
+        return coworking.removeBooking(facility, start, end, getUser());
+    }
+
+    public boolean removeRecurringBooking(
+            RecurringBooking rule
+    ) throws InvalidSessionException, NoSuchElementException, UnsupportedOperationException {
+        return coworking.removeRecurringBooking(rule, getUser());
+    }
+
+    public int removeBookings(
+            LocalDateTime from, LocalDateTime to
+    ) throws InvalidSessionException, UnsupportedOperationException {
+        return coworking.removeBookings(from, to, getUser());
+    }
+
+    public int removeUserBookings() throws InvalidSessionException {
+        return coworking.removeUserBookings(getUser());
+    }
+
+    /**
+     * Removes the session's user, which closes all of the user's sessions.
+     */
+    public boolean removeUser() throws InvalidSessionException {
+        return coworking.removeUser(getUser());
+    }
+
+    public NavigableSet<Booking> viewBookings() throws InvalidSessionException {
+        return coworking.viewUserBookings(getUser().getLogin());
+    }
+
+    public List<RecurringBooking> viewRecurringBookings() throws InvalidSessionException {
+        return coworking.viewUserRecurringBookings(getUser().getLogin());
+    }
+
+    public void addFacility(
+            Facility facility
+    ) throws InvalidSessionException, UnsupportedOperationException, MemberAlreadyExistsException {
+        requireAdmin();
+        coworking.addFacility(facility);
+    }
+
+    public Facility removeFacility(
+            String idNumber
+    ) throws InvalidSessionException, UnsupportedOperationException, MemberNotFoundException {
+        requireAdmin();
+        return coworking.removeFacility(idNumber);
+    }
+
+    public void editConferenceRoom(
+            ConferenceRoom room, int seats
+    ) throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        coworking.editConferenceRoom(room, seats);
+    }
+
+    public void editWorkstation(
+            Workstation workstation, String description
+    ) throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        coworking.editWorkstation(workstation, description);
+    }
+
+    public List<GapViolation> setGapPolicy(
+            Facility facility, GapPolicy policy
+    ) throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        return coworking.setGapPolicy(facility, policy);
+    }
+
+    public List<GapViolation> setGapPolicy(
+            Class<? extends Facility> type, GapPolicy policy
+    ) throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        return coworking.setGapPolicy(type, policy);
+    }
+
+    public Collection<User> viewAllUsers() throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        return coworking.viewAllUsers();
+    }
+
+    public Set<Booking> viewAllBookings() throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        return coworking.viewAllBookings();
+    }
+
+    public List<RecurringBooking> viewAllRecurringBookings() throws InvalidSessionException, UnsupportedOperationException {
+        requireAdmin();
+        return coworking.viewRecurringBookings();
+    }
+
+    private void requireAdmin() throws InvalidSessionException, UnsupportedOperationException {
+        if (!getUser().isAdmin()) {
+            throw new UnsupportedOperationException("Current user doesn't have the admin privilege");
+        }
+    }
+
+    public boolean close() {
+        return coworking.closeSession(token);
+    }
+}
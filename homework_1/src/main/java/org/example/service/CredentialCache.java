@@ -0,0 +1,115 @@
+package org.example.service;
+
+import org.example.model.User;
+import org.example.utils.PasswordHash;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived record of logins whose password was recently verified, so that a client repeating its
+ * credentials on every request pays the password hash once per {@code ttl}. Only a keyed HMAC of the
+ * password is kept, under a key that never leaves the process, and it is compared in constant time.
+ * <p>
+ * An entry is tied to the user object and the password hash it was verified against, so it stops
+ * matching as soon as the user is removed or changes the password.
+ */
+class CredentialCache {
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    static final int DEFAULT_CAPACITY = 65_536;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final long ttlNanos;
+    private final int capacity;
+    private final LongSupplier clock;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final User user;
+        final PasswordHash passwordHash;
+        final byte[] token;
+        final long expiresAt;
+
+        Entry(User user, PasswordHash passwordHash, byte[] token, long expiresAt) {
+            this.user = user;
+            this.passwordHash = passwordHash;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    CredentialCache() {
+        this(DEFAULT_TTL, DEFAULT_CAPACITY, System::nanoTime);
+    }
+
+    CredentialCache(Duration ttl, int capacity, LongSupplier clock) {
+        if (ttl.isNegative() || capacity < 0) {
+            throw new IllegalArgumentException("TTL and capacity must not be negative");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.capacity = capacity;
+        this.clock = clock;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+            }
+        });
+    }
+
+    /**
+     * Whether {@code password} was verified for {@code user} within the TTL.
+     */
+    boolean contains(User user, String password) {
+        Entry entry = entries.get(user.getLogin());
+        if (entry == null) {
+            return false;
+        }
+        if (entry.user != user || entry.passwordHash != user.getPasswordHash() || clock.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(user.getLogin(), entry);
+            return false;
+        }
+        return MessageDigest.isEqual(entry.token, token(password));
+    }
+
+    /**
+     * Records that {@code password} has just been verified for {@code user}.
+     */
+    void put(User user, String password) {
+        long now = clock.getAsLong();
+        if (entries.size() >= capacity) {
+            entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+            if (entries.size() >= capacity) return;
+        }
+        entries.put(user.getLogin(), new Entry(user, user.getPasswordHash(), token(password), now + ttlNanos));
+    }
+
+    void invalidate(String login) {
+        entries.remove(login);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private byte[] token(String password) {
+        return macs.get().doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.service;
+
+/**
+ * A Fenwick tree of {@code long} values over a window of {@code long} keys. The window starts around
+ * the first key added and at least doubles whenever a key falls outside it, so the tree only spans the
+ * keys in use and both updates and prefix sums stay {@code O(log n)} amortized. Not thread-safe.
+ */
+class FenwickTree {
+    private static final int MIN_SIZE = 64;
+    private static final int MAX_SIZE = 1 << 30;
+
+    private long origin;
+    private long[] tree = new long[0];
+
+    void add(long key, long delta) {
+        if (delta == 0) return;
+        cover(key);
+        for (int i = (int) (key - origin) + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * The sum of the values of all keys below {@code key}.
+     */
+    long sumBefore(long key) {
+        if (tree.length == 0 || key <= origin) return 0;
+        long sum = 0;
+        for (int i = (int) Math.min(key - origin, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * The sum of the values of the keys from {@code from} inclusive to {@code to} exclusive.
+     */
+    long sum(long from, long to) {
+        return to <= from ? 0 : sumBefore(to) - sumBefore(from);
+    }
+
+    private void cover(long key) {
+        int size = tree.length - 1;
+        if (size > 0 && key >= origin && key - origin < size) return;
+        long low = size > 0 ? Math.min(origin, key) : key;
+        long high = size > 0 ? Math.max(origin + size, key + 1) : key + 1;
+        if (high - low > MAX_SIZE / 2) {
+            throw new IllegalArgumentException("Key range too wide: " + low + " to " + high);
+        }
+        int grown = (int) Math.max(MIN_SIZE, 2 * (high - low));
+        // leave the slack on the side the window grew towards, where later keys are likely to land
+        long grownOrigin = size > 0 && key < origin ? high - grown : size > 0 ? low : key - grown / 2;
+        long[] values = tree;
+        for (int i = size; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent <= size) values[parent] -= values[i];
+        }
+        long[] grownTree = new long[grown + 1];
+        if (size > 0) {
+            System.arraycopy(values, 1, grownTree, (int) (origin - grownOrigin) + 1, size);
+        }
+        for (int i = 1; i <= grown; i++) {
+            int parent = i + (i & -i);
+            if (parent <= grown) grownTree[parent] += grownTree[i];
+        }
+        origin = grownOrigin;
+        tree = grownTree;
+    }
+}
@@ -0,0 +1,313 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.ConferenceRoom;
+import org.example.model.Facility;
+import org.example.model.GapPolicy;
+import org.example.model.RecurringBooking;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Free gaps between the bookings of every facility, kept up to date from booking events and indexed in
+ * a {@link GapTree} per facility, so the earliest slots that fit a duration are found without enumerating
+ * every free slot. Archived bookings are dropped like removed ones: a search never reaches back past the
+ * archive cutoff anyway. Like the schedules, it keeps recurring bookings as rules: the indexed gaps are
+ * the ones between single bookings, and a search steps over the occurrences inside a gap as it walks it,
+ * so memory grows with the number of rules, not with their occurrences.
+ * <p>
+ * Every facility has its own lock, so like the schedules that send them, events for different facilities
+ * never contend; only a search visits them all, one at a time.
+ */
+class FreeGapIndex implements CoworkingListener {
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final Map<Facility, FacilityGaps> facilities = new ConcurrentHashMap<>();
+
+    private static final class FacilityGaps {
+        final Facility facility;
+        final NavigableMap<Long, Long> booked = new TreeMap<>();
+        final NavigableMap<Long, GapTree.Gap> gaps = new TreeMap<>();
+        final GapTree tree = new GapTree();
+        final List<RecurringBooking> rules = new ArrayList<>();
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        GapPolicy policy;
+
+        FacilityGaps(Facility facility) {
+            this.facility = facility;
+            this.policy = facility.getGapPolicy();
+            addGap(this, GapTree.UNBOUNDED_START, GapTree.UNBOUNDED_END);
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final long start;
+        final Facility facility;
+
+        Candidate(long start, Facility facility) {
+            this.start = start;
+            this.facility = facility;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int comparison = Long.compare(start, other.start);
+            return comparison != 0 ? comparison : facility.compareTo(other.facility);
+        }
+    }
+
+    @Override
+    public void facilityAdded(Facility facility) {
+        gapsOf(facility);
+    }
+
+    @Override
+    public void facilityRemoved(Facility facility) {
+        facilities.remove(facility);
+    }
+
+    /**
+     * Rebuilds all gaps of the facility if its gap policy changed.
+     */
+    @Override
+    public void facilityEdited(Facility facility) {
+        write(facilities.get(facility), gaps -> {
+            GapPolicy policy = facility.getGapPolicy();
+            if (gaps.policy == policy) return;
+            gaps.policy = policy;
+            gaps.gaps.values().forEach(gaps.tree::remove);
+            gaps.gaps.clear();
+            long from = GapTree.UNBOUNDED_START;
+            for (Map.Entry<Long, Long> booked : gaps.booked.entrySet()) {
+                addGap(gaps, from, policy.latestEndBefore(booked.getKey()));
+                from = booked.getValue() + policy.gapAfter(booked.getValue());
+            }
+            addGap(gaps, from, GapTree.UNBOUNDED_END);
+        });
+    }
+
+    @Override
+    public void bookingAdded(Booking booking) {
+        write(gapsOf(booking.getFacility()), gaps -> {
+            gaps.booked.put(booking.getStartMinute(), booking.getEndMinute());
+            refresh(gaps, booking.getStartMinute());
+        });
+    }
+
+    @Override
+    public void bookingRemoved(Booking booking) {
+        write(facilities.get(booking.getFacility()), gaps -> {
+            if (gaps.booked.remove(booking.getStartMinute(), booking.getEndMinute())) {
+                refresh(gaps, booking.getStartMinute());
+            }
+        });
+    }
+
+    @Override
+    public void bookingArchived(Booking booking) {
+        bookingRemoved(booking);
+    }
+
+    @Override
+    public void recurringBookingAdded(RecurringBooking rule) {
+        write(gapsOf(rule.getFacility()), gaps -> gaps.rules.add(rule));
+    }
+
+    @Override
+    public void recurringBookingRemoved(RecurringBooking rule) {
+        write(facilities.get(rule.getFacility()), gaps -> gaps.rules.remove(rule));
+    }
+
+    /**
+     * The earliest slots matching {@code query} among the facilities {@code accepted}, one per free gap,
+     * starting no earlier than {@code notBefore} minutes plus the facility's longest gap.
+     */
+    List<Booking> find(SlotQuery query, long notBefore, Predicate<Facility> accepted) {
+        long duration = query.getDuration().toMinutes();
+        int dayStart = minuteOfDay(query.getDayStart(), true);
+        int dayEnd = query.getDayEnd().equals(LocalTime.MAX)
+                ? Booking.MINUTES_PER_DAY : minuteOfDay(query.getDayEnd(), false);
+        if ((dayStart > 0 || dayEnd < Booking.MINUTES_PER_DAY) && duration > dayEnd - dayStart) {
+            return List.of();
+        }
+        long from = Math.max(Booking.toEpochMinute(query.getFrom(), true), notBefore);
+        int limit = query.getLimit();
+        Predicate<Facility> matching = accepted.and(facility -> query.getType().isInstance(facility)
+                && (query.getMinSeats() <= 0
+                || facility instanceof ConferenceRoom room && room.getSeats() >= query.getMinSeats()));
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+        long soonest = earliestStart(new GapTree.Gap(null, from, GapTree.UNBOUNDED_END), from, duration, dayStart, dayEnd);
+
+        for (FacilityGaps gaps : facilities.values()) {
+            if (best.size() == limit && best.peek().start <= soonest) break;
+            if (!matching.test(gaps.facility)) continue;
+            long earliest = notBefore == NONE ? from : Math.max(from, notBefore + gaps.facility.getGapPolicy().maxGap());
+            GapTree.Visitor offer = gap -> {
+                offerStarts(gaps, gap, earliest, duration, dayStart, dayEnd, best, limit);
+                return true;
+            };
+            gaps.lock.readLock().lock();
+            try {
+                boolean more = gaps.tree.visitCovering(from, duration,
+                        gap -> offer.visit(gap) && !(best.size() == limit && best.peek().start <= soonest));
+                if (more) {
+                    gaps.tree.visitFrom(from, duration,
+                            gap -> !(best.size() == limit && gap.start > best.peek().start) && offer.visit(gap));
+                }
+            } finally {
+                gaps.lock.readLock().unlock();
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(null);
+        List<Booking> slots = new ArrayList<>(sorted.size());
+        for (Candidate candidate : sorted) {
+            slots.add(new Booking(null, candidate.facility,
+                    Booking.ofEpochMinute(candidate.start), Booking.ofEpochMinute(candidate.start + duration)));
+        }
+        return slots;
+    }
+
+    int size() {
+        int size = 0;
+        for (FacilityGaps gaps : facilities.values()) {
+            gaps.lock.readLock().lock();
+            try {
+                size += gaps.tree.size();
+            } finally {
+                gaps.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Offers the earliest start in {@code gap} from {@code from} on, and then the earliest one in every
+     * stretch between occurrences of the facility's recurring bookings after it, until a start could no
+     * longer make it into the {@code limit} best.
+     */
+    private static void offerStarts(FacilityGaps gaps, GapTree.Gap gap, long from, long duration,
+                                    int dayStart, int dayEnd, PriorityQueue<Candidate> best, int limit) {
+        GapPolicy policy = gaps.facility.getGapPolicy();
+        long start = earliestStart(gap, from, duration, dayStart, dayEnd);
+        while (start != NONE && !(best.size() == limit && start > best.peek().start)) {
+            Booking blocker = findRecurringConflict(gaps, start, duration);
+            if (blocker == null) {
+                Candidate candidate = new Candidate(start, gaps.facility);
+                if (best.size() < limit) {
+                    best.add(candidate);
+                } else if (candidate.compareTo(best.peek()) < 0) {
+                    best.poll();
+                    best.add(candidate);
+                }
+                // the stretch this start is in ends with the next occurrence
+                blocker = nextOccurrence(gaps, start);
+                if (blocker == null) return;
+            }
+            start = earliestStart(gap, blocker.getEndMinute() + policy.gapAfter(blocker.getEndMinute()),
+                    duration, dayStart, dayEnd);
+        }
+    }
+
+    private static Booking findRecurringConflict(FacilityGaps gaps, long start, long duration) {
+        if (gaps.rules.isEmpty()) return null;
+        Booking slot = new Booking(null, gaps.facility, Booking.ofEpochMinute(start), Booking.ofEpochMinute(start + duration));
+        for (RecurringBooking rule : gaps.rules) {
+            Booking occurrence = rule.findOverlapping(slot);
+            if (occurrence != null) {
+                return occurrence;
+            }
+        }
+        return null;
+    }
+
+    private static Booking nextOccurrence(FacilityGaps gaps, long after) {
+        Booking next = null;
+        for (RecurringBooking rule : gaps.rules) {
+            Booking occurrence = rule.nextOccurrence(Booking.ofEpochMinute(after + 1));
+            if (occurrence != null && (next == null || occurrence.getStartMinute() < next.getStartMinute())) {
+                next = occurrence;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * The earliest start from {@code from} on at which {@code duration} fits both the gap and the day
+     * window, or {@link #NONE}. A window spanning the whole day means no window at all, so slots may
+     * then run past midnight.
+     */
+    private static long earliestStart(GapTree.Gap gap, long from, long duration, int dayStart, int dayEnd) {
+        long start = Math.max(gap.start, from);
+        if (dayStart == 0 && dayEnd == Booking.MINUTES_PER_DAY) {
+            return GapTree.saturatedAdd(start, duration) <= gap.end ? start : NONE;
+        }
+        long day = Math.floorDiv(start, Booking.MINUTES_PER_DAY) * Booking.MINUTES_PER_DAY;
+        long minute = start - day;
+        if (minute < dayStart) {
+            start = day + dayStart;
+        } else if (minute + duration > dayEnd) {
+            start = day + Booking.MINUTES_PER_DAY + dayStart;
+        }
+        return GapTree.saturatedAdd(start, duration) <= gap.end ? start : NONE;
+    }
+
+    private static int minuteOfDay(LocalTime time, boolean roundUp) {
+        int seconds = time.toSecondOfDay();
+        return seconds / 60 + (roundUp && (seconds % 60 != 0 || time.getNano() != 0) ? 1 : 0);
+    }
+
+    private FacilityGaps gapsOf(Facility facility) {
+        return facilities.computeIfAbsent(facility, FacilityGaps::new);
+    }
+
+    /**
+     * Rebuilds the gaps between the bookings around {@code at} after a booking starting there came or went.
+     */
+    private static void refresh(FacilityGaps gaps, long at) {
+        GapPolicy policy = gaps.policy;
+        Map.Entry<Long, Long> previous = gaps.booked.lowerEntry(at);
+        Map.Entry<Long, Long> next = gaps.booked.higherEntry(at);
+        var stale = gaps.gaps.subMap(
+                previous == null ? Long.MIN_VALUE : previous.getKey(), previous == null,
+                next == null ? Long.MAX_VALUE : next.getKey(), false
+        );
+        stale.values().forEach(gaps.tree::remove);
+        stale.clear();
+        long from = previous == null ? GapTree.UNBOUNDED_START : previous.getValue() + policy.gapAfter(previous.getValue());
+        long to = next == null ? GapTree.UNBOUNDED_END : policy.latestEndBefore(next.getKey());
+        Long end = gaps.booked.get(at);
+        if (end == null) {
+            addGap(gaps, from, to);
+        } else {
+            addGap(gaps, from, policy.latestEndBefore(at));
+            addGap(gaps, end + policy.gapAfter(end), to);
+        }
+    }
+
+    private static void addGap(FacilityGaps gaps, long start, long end) {
+        if (end <= start) return;
+        GapTree.Gap gap = new GapTree.Gap(gaps.facility, start, end);
+        gaps.gaps.put(start, gap);
+        gaps.tree.insert(gap);
+    }
+
+    /**
+     * Runs {@code update} under the facility's write lock, unless it has no gaps.
+     */
+    private static void write(FacilityGaps gaps, Consumer<FacilityGaps> update) {
+        if (gaps == null) return;
+        gaps.lock.writeLock().lock();
+        try {
+            update.accept(gaps);
+        } finally {
+            gaps.lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.service;
+
+import org.example.model.Facility;
+
+import java.util.Random;
+
+/**
+ * Free gaps of a facility in a treap ordered by start, every node also keeping the longest gap and the
+ * latest gap end found in its subtree. That is enough to walk, in start order, only the gaps that
+ * can hold a given duration, skipping whole subtrees of shorter ones. Not thread-safe.
+ */
+class GapTree {
+    static final long UNBOUNDED_START = Long.MIN_VALUE;
+    static final long UNBOUNDED_END = Long.MAX_VALUE;
+
+    /**
+     * Free time {@code [start, end]} in epoch minutes of a facility: a booking fits if it starts and
+     * ends within it.
+     */
+    static final class Gap {
+        final Facility facility;
+        final long start;
+        final long end;
+
+        Gap(Facility facility, long start, long end) {
+            this.facility = facility;
+            this.start = start;
+            this.end = end;
+        }
+
+        long length() {
+            return start == UNBOUNDED_START || end == UNBOUNDED_END ? Long.MAX_VALUE : end - start;
+        }
+    }
+
+    interface Visitor {
+        /**
+         * Returns {@code false} to stop the walk.
+         */
+        boolean visit(Gap gap);
+    }
+
+    private static final class Node {
+        final Gap gap;
+        final int priority;
+        Node left;
+        Node right;
+        long maxLength;
+        long maxEnd;
+
+        Node(Gap gap, int priority) {
+            this.gap = gap;
+            this.priority = priority;
+            this.maxLength = gap.length();
+            this.maxEnd = gap.end;
+        }
+    }
+
+    private final Random random = new Random();
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void insert(Gap gap) {
+        Node[] parts = split(root, gap);
+        root = merge(merge(parts[0], new Node(gap, random.nextInt())), parts[1]);
+        size++;
+    }
+
+    void remove(Gap gap) {
+        root = remove(root, gap);
+    }
+
+    /**
+     * Visits the gaps starting before {@code from} that still reach {@code from + duration}.
+     */
+    boolean visitCovering(long from, long duration, Visitor visitor) {
+        return visitCovering(root, from, saturatedAdd(from, duration), visitor);
+    }
+
+    /**
+     * Visits the gaps starting at or after {@code from} that last at least {@code duration}, in start order.
+     */
+    boolean visitFrom(long from, long duration, Visitor visitor) {
+        return visitFrom(root, from, duration, visitor);
+    }
+
+    private boolean visitCovering(Node node, long from, long reach, Visitor visitor) {
+        if (node == null || node.maxEnd < reach) return true;
+        if (!visitCovering(node.left, from, reach, visitor)) return false;
+        if (node.gap.start >= from) return true;
+        if (node.gap.end >= reach && !visitor.visit(node.gap)) return false;
+        return visitCovering(node.right, from, reach, visitor);
+    }
+
+    private boolean visitFrom(Node node, long from, long duration, Visitor visitor) {
+        if (node == null || node.maxLength < duration) return true;
+        if (node.gap.start >= from) {
+            if (!visitFrom(node.left, from, duration, visitor)) return false;
+            if (node.gap.length() >= duration && !visitor.visit(node.gap)) return false;
+        }
+        return visitFrom(node.right, from, duration, visitor);
+    }
+
+    private Node remove(Node node, Gap gap) {
+        if (node == null) return null;
+        int comparison = compare(gap, node.gap);
+        if (comparison == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = remove(node.left, gap);
+        } else {
+            node.right = remove(node.right, gap);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Splits into the nodes before {@code key} and the rest.
+     */
+    private static Node[] split(Node node, Gap key) {
+        if (node == null) return new Node[2];
+        Node[] parts;
+        if (compare(node.gap, key) < 0) {
+            parts = split(node.right, key);
+            node.right = parts[0];
+            parts[0] = node;
+        } else {
+            parts = split(node.left, key);
+            node.left = parts[1];
+            parts[1] = node;
+        }
+        update(node);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.maxLength = node.gap.length();
+        node.maxEnd = node.gap.end;
+        if (node.left != null) {
+            node.maxLength = Math.max(node.maxLength, node.left.maxLength);
+            node.maxEnd = Math.max(node.maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            node.maxLength = Math.max(node.maxLength, node.right.maxLength);
+            node.maxEnd = Math.max(node.maxEnd, node.right.maxEnd);
+        }
+    }
+
+    private static int compare(Gap first, Gap second) {
+        return Long.compare(first.start, second.start);
+    }
+
+    static long saturatedAdd(long value, long delta) {
+        long sum = value + delta;
+        return ((value ^ sum) & (delta ^ sum)) < 0 ? (delta > 0 ? Long.MAX_VALUE : Long.MIN_VALUE) : sum;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.service;
+
+import org.example.model.Booking;
+
+/**
+ * Two consecutive bookings of a facility that a changed gap policy put too close together, as reported by
+ * {@link Coworking#setGapPolicy}.
+ */
+public class GapViolation {
+    private final Booking earlier;
+    private final Booking later;
+    private final int requiredGap;
+
+    GapViolation(Booking earlier, Booking later, int requiredGap) {
+        this.earlier = earlier;
+        this.later = later;
+        this.requiredGap = requiredGap;
+    }
+
+    public Booking getEarlier() {
+        return earlier;
+    }
+
+    public Booking getLater() {
+        return later;
+    }
+
+    /**
+     * The gap the policy asks for after the earlier booking, in minutes.
+     */
+    public int getRequiredGap() {
+        return requiredGap;
+    }
+
+    /**
+     * The minutes between the two, negative if they overlap.
+     */
+    public long getActualGap() {
+        return later.getStartMinute() - earlier.getEndMinute();
+    }
+
+    @Override
+    public String toString() {
+        return "GapViolation{" + earlier + " and " + later + ", " + getActualGap() + " of " + requiredGap + " minutes}";
+    }
+}
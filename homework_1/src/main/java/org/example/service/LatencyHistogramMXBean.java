@@ -0,0 +1,23 @@
+package org.example.service;
+
+/**
+ * JMX view of a {@link LatencyHistogram}; all times are in nanoseconds.
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+
+    void reset();
+}
@@ -0,0 +1,215 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.ConferenceRoom;
+import org.example.model.Facility;
+import org.example.model.RecurringBooking;
+import org.example.model.User;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Occupancy of the booking history over arbitrary date ranges, from aggregates that booking events keep
+ * up to date, so every query costs a few {@link FenwickTree} prefix sums instead of a scan of the
+ * bookings. Archived bookings stay counted: they left the schedules, not the history. Every occurrence of
+ * a recurring booking counts as a booking of its own.
+ * <p>
+ * Booked time is kept per facility in hours and per user in days. Date ranges run from {@code first} to
+ * {@code last} inclusive, whole days in UTC like the booking minutes, so every query falls on a bucket
+ * boundary and is exact.
+ * <p>
+ * Every facility, every user and every heatmap cell has aggregates and a lock of its own, so booking
+ * events on different facilities don't wait for one another. A query over several of them sums each
+ * as it stands when it gets to it.
+ */
+public class OccupancyAnalytics implements CoworkingListener {
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int DAYS_PER_WEEK = 7;
+    // 1970-01-01, epoch day 0, was a Thursday
+    private static final int EPOCH_DAY_OF_WEEK = DayOfWeek.THURSDAY.ordinal();
+
+    private final Map<Facility, BookedTime> facilities = new ConcurrentHashMap<>();
+    private final Map<String, BookedTime> users = new ConcurrentHashMap<>();
+    // every cell is guarded by itself
+    private final FenwickTree[] heatmap = new FenwickTree[DAYS_PER_WEEK * HOURS_PER_DAY];
+
+    /**
+     * Booked minutes by time bucket as two prefix sums over the buckets the bookings start and end in:
+     * the balance of starts over ends, and the same for their minutes. Time booked before a bucket
+     * boundary {@code t} is then {@code t * balance - minutes}, the time from every start to {@code t}
+     * less the time from every end to {@code t}. Guarded by itself.
+     */
+    private static final class BookedTime {
+        final int bucketMinutes;
+        final FenwickTree balance = new FenwickTree();
+        final FenwickTree minutes = new FenwickTree();
+
+        BookedTime(int bucketMinutes) {
+            this.bucketMinutes = bucketMinutes;
+        }
+
+        synchronized void add(long start, long end, int sign) {
+            balance.add(Math.floorDiv(start, bucketMinutes), sign);
+            minutes.add(Math.floorDiv(start, bucketMinutes), sign * start);
+            balance.add(Math.floorDiv(end, bucketMinutes), -sign);
+            minutes.add(Math.floorDiv(end, bucketMinutes), -sign * end);
+        }
+
+        long bookedBefore(long minute) {
+            long bucket = Math.floorDiv(minute, bucketMinutes);
+            return minute * balance.sumBefore(bucket) - minutes.sumBefore(bucket);
+        }
+
+        synchronized long booked(long from, long to) {
+            return bookedBefore(to) - bookedBefore(from);
+        }
+    }
+
+    public OccupancyAnalytics() {
+        Arrays.setAll(heatmap, cell -> new FenwickTree());
+    }
+
+    @Override
+    public void bookingAdded(Booking booking) {
+        record(booking, 1);
+    }
+
+    @Override
+    public void bookingRemoved(Booking booking) {
+        record(booking, -1);
+    }
+
+    @Override
+    public void recurringBookingAdded(RecurringBooking rule) {
+        occurrences(rule).forEach(occurrence -> record(occurrence, 1));
+    }
+
+    @Override
+    public void recurringBookingRemoved(RecurringBooking rule) {
+        occurrences(rule).forEach(occurrence -> record(occurrence, -1));
+    }
+
+    @Override
+    public void facilityRemoved(Facility facility) {
+        facilities.remove(facility);
+    }
+
+    @Override
+    public void userRemoved(User user) {
+        users.remove(user.getLogin());
+    }
+
+    /**
+     * Counts bookings that reached the history without a booking event, e.g. read back from an archive.
+     */
+    public void addAll(Iterator<Booking> bookings) {
+        bookings.forEachRemaining(booking -> record(booking, 1));
+    }
+
+    public long bookedMinutes(Facility facility, LocalDate first, LocalDate last) {
+        return booked(facilities.get(facility), first, last);
+    }
+
+    /**
+     * The share of the time from {@code first} to {@code last} that {@code facility} is booked, in percent.
+     */
+    public double utilisation(Facility facility, LocalDate first, LocalDate last) {
+        return 100.0 * bookedMinutes(facility, first, last) / minutesBetween(first, last);
+    }
+
+    public SortedMap<Facility, Double> utilisation(LocalDate first, LocalDate last) {
+        double minutes = minutesBetween(first, last);
+        SortedMap<Facility, Double> utilisation = new TreeMap<>();
+        facilities.forEach((facility, booked) ->
+                utilisation.put(facility, 100.0 * booked(booked, first, last) / minutes));
+        return utilisation;
+    }
+
+    public double userHours(String login, LocalDate first, LocalDate last) {
+        return booked(users.get(login), first, last) / (double) MINUTES_PER_HOUR;
+    }
+
+    /**
+     * Seats times booked hours of {@code room}, counted with the seats the room has now.
+     */
+    public double seatHours(ConferenceRoom room, LocalDate first, LocalDate last) {
+        return (double) room.getSeats() * bookedMinutes(room, first, last) / MINUTES_PER_HOUR;
+    }
+
+    public double seatHours(LocalDate first, LocalDate last) {
+        long seatMinutes = 0;
+        for (Map.Entry<Facility, BookedTime> entry : facilities.entrySet()) {
+            if (entry.getKey() instanceof ConferenceRoom room) {
+                seatMinutes += room.getSeats() * booked(entry.getValue(), first, last);
+            }
+        }
+        return seatMinutes / (double) MINUTES_PER_HOUR;
+    }
+
+    /**
+     * Minutes booked across all facilities from {@code first} to {@code last}, by day of the week and hour
+     * of the day: {@code heatmap[day.ordinal()][hour]}.
+     */
+    public long[][] heatmap(LocalDate first, LocalDate last) {
+        minutesBetween(first, last);
+        long firstDay = first.toEpochDay();
+        long lastDay = last.toEpochDay();
+        long[][] minutes = new long[DAYS_PER_WEEK][HOURS_PER_DAY];
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            // the dates of this day of the week in the range are a run of consecutive weeks
+            long fromWeek = Math.floorDiv(firstDay + EPOCH_DAY_OF_WEEK - day + DAYS_PER_WEEK - 1, DAYS_PER_WEEK);
+            long toWeek = Math.floorDiv(lastDay + EPOCH_DAY_OF_WEEK - day, DAYS_PER_WEEK) + 1;
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                FenwickTree cell = heatmap[day * HOURS_PER_DAY + hour];
+                synchronized (cell) {
+                    minutes[day][hour] = cell.sum(fromWeek, toWeek);
+                }
+            }
+        }
+        return minutes;
+    }
+
+    private void record(Booking booking, int sign) {
+        long start = booking.getStartMinute();
+        long end = booking.getEndMinute();
+        facilities.computeIfAbsent(booking.getFacility(), key -> new BookedTime(MINUTES_PER_HOUR))
+                .add(start, end, sign);
+        if (booking.getUser() != null) {
+            users.computeIfAbsent(booking.getUser().getLogin(), key -> new BookedTime(Booking.MINUTES_PER_DAY))
+                    .add(start, end, sign);
+        }
+        for (long hour = Math.floorDiv(start, MINUTES_PER_HOUR); hour * MINUTES_PER_HOUR < end; hour++) {
+            long minutes = Math.min(end, (hour + 1) * MINUTES_PER_HOUR) - Math.max(start, hour * MINUTES_PER_HOUR);
+            long day = Math.floorDiv(hour, HOURS_PER_DAY) + EPOCH_DAY_OF_WEEK;
+            int cell = Math.floorMod(day, DAYS_PER_WEEK) * HOURS_PER_DAY + Math.floorMod(hour, HOURS_PER_DAY);
+            FenwickTree tree = heatmap[cell];
+            synchronized (tree) {
+                tree.add(Math.floorDiv(day, DAYS_PER_WEEK), sign * minutes);
+            }
+        }
+    }
+
+    private static long booked(BookedTime booked, LocalDate first, LocalDate last) {
+        minutesBetween(first, last);
+        if (booked == null) return 0;
+        return booked.booked(first.toEpochDay() * Booking.MINUTES_PER_DAY, (last.toEpochDay() + 1) * Booking.MINUTES_PER_DAY);
+    }
+
+    private static long minutesBetween(LocalDate first, LocalDate last) {
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("Last date is before first date");
+        }
+        return (last.toEpochDay() - first.toEpochDay() + 1) * Booking.MINUTES_PER_DAY;
+    }
+
+    private static List<Booking> occurrences(RecurringBooking rule) {
+        return rule.occurrencesBetween(
+                rule.getRecurrence().getFirstDate().atStartOfDay(),
+                rule.getRecurrence().getLastDate().plusDays(1).atStartOfDay()
+        );
+    }
+}
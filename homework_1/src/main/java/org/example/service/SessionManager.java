@@ -0,0 +1,137 @@
+package org.example.service;
+
+import org.example.model.User;
+import org.example.utils.InvalidSessionException;
+
+import java.lang.ref.WeakReference;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Opaque session tokens for authenticated users. Resolving a token is a single concurrent map lookup;
+ * a session unused for longer than the idle timeout is gone, whether a later lookup or the background
+ * sweeper notices first.
+ * <p>
+ * All managers share one daemon sweeper thread, which holds them only weakly and drops the sweep of a
+ * manager that has been garbage collected.
+ */
+public class SessionManager {
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "session-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private static final class Session {
+        final User user;
+        volatile long lastAccess;
+
+        Session(User user, long lastAccess) {
+            this.user = user;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    public SessionManager() {
+        this(DEFAULT_IDLE_TIMEOUT, DEFAULT_SWEEP_INTERVAL);
+    }
+
+    public SessionManager(Duration idleTimeout, Duration sweepInterval) {
+        this(idleTimeout, System::nanoTime);
+        schedule(new WeakReference<>(this), sweepInterval.toNanos());
+    }
+
+    /**
+     * A manager without a sweeper; expired sessions are only dropped on lookup or by {@link #sweep()}.
+     */
+    SessionManager(Duration idleTimeout, LongSupplier clock) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        this.idleNanos = idleTimeout.toNanos();
+        this.clock = clock;
+    }
+
+    private static void schedule(WeakReference<SessionManager> manager, long intervalNanos) {
+        CompletableFuture<ScheduledFuture<?>> self = new CompletableFuture<>();
+        self.complete(SWEEPER.scheduleWithFixedDelay(() -> {
+            SessionManager live = manager.get();
+            if (live != null) {
+                live.sweep();
+            } else {
+                self.join().cancel(false);
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS));
+    }
+
+    public String open(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, clock.getAsLong()));
+        return token;
+    }
+
+    /**
+     * The user of a live session, which counts as a use of it.
+     */
+    public User resolve(String token) throws InvalidSessionException {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            throw new InvalidSessionException();
+        }
+        long now = clock.getAsLong();
+        if (now - session.lastAccess >= idleNanos) {
+            sessions.remove(token, session);
+            throw new InvalidSessionException();
+        }
+        session.lastAccess = now;
+        return session.user;
+    }
+
+    public boolean close(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    public int closeAll(User user) {
+        return removeIf(session -> session.user == user);
+    }
+
+    /**
+     * Drops every expired session and returns how many were dropped.
+     */
+    public int sweep() {
+        long now = clock.getAsLong();
+        return removeIf(session -> now - session.lastAccess >= idleNanos);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private int removeIf(Predicate<Session> condition) {
+        int removed = 0;
+        for (Iterator<Session> iterator = sessions.values().iterator(); iterator.hasNext(); ) {
+            if (condition.test(iterator.next())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.service;
+
+import org.example.model.Facility;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * What {@link Coworking#findAvailableSlots} looks for: the earliest {@code limit} slots of
+ * {@code duration} starting no earlier than {@code from}, optionally only of one facility type, with a
+ * minimum number of seats, or within a time-of-day window.
+ */
+public class SlotQuery {
+    private final LocalDateTime from;
+    private final Duration duration;
+    private final int limit;
+    private Class<? extends Facility> type = Facility.class;
+    private int minSeats;
+    private LocalTime dayStart = LocalTime.MIN;
+    private LocalTime dayEnd = LocalTime.MAX;
+
+    public SlotQuery(LocalDateTime from, Duration duration, int limit) {
+        if (duration.toMinutes() <= 0) {
+            throw new IllegalArgumentException("Duration must be at least a minute");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.from = from;
+        this.duration = duration;
+        this.limit = limit;
+    }
+
+    public SlotQuery ofType(Class<? extends Facility> type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Only conference rooms have seats, so any positive value rules workstations out.
+     */
+    public SlotQuery withMinSeats(int minSeats) {
+        this.minSeats = minSeats;
+        return this;
+    }
+
+    /**
+     * Slots must start and end between {@code dayStart} and {@code dayEnd} of the same day. Without a
+     * window, slots may run past midnight.
+     */
+    public SlotQuery between(LocalTime dayStart, LocalTime dayEnd) {
+        if (!dayEnd.isAfter(dayStart)) {
+            throw new IllegalArgumentException("Day window end is before or equal to its start");
+        }
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+        return this;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Class<? extends Facility> getType() {
+        return type;
+    }
+
+    public int getMinSeats() {
+        return minSeats;
+    }
+
+    public LocalTime getDayStart() {
+        return dayStart;
+    }
+
+    public LocalTime getDayEnd() {
+        return dayEnd;
+    }
+}
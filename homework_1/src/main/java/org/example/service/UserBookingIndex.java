@@ -0,0 +1,75 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Bookings of every user by login, kept in {@link Booking#compareTo} order. A time window is paged from
+ * the bookings starting no earlier than the longest booking ever seen before it, so it costs a lookup
+ * and the page rather than a walk from the user's first booking.
+ */
+public class UserBookingIndex implements BookingListener {
+    // Sorts before every real facility, so a probe booking on it is the first of its start and end
+    private static final Facility LOWEST = new Facility("") {};
+
+    private final Map<String, NavigableSet<Booking>> bookings = new ConcurrentHashMap<>();
+    private final LongAccumulator longestMinutes = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void bookingAdded(Booking booking) {
+        if (booking.getUser() == null) return;
+        longestMinutes.accumulate(booking.getEndMinute() - booking.getStartMinute());
+        bookings.compute(booking.getUser().getLogin(), (login, userBookings) -> {
+            userBookings = userBookings == null ? new ConcurrentSkipListSet<>() : userBookings;
+            userBookings.add(booking);
+            return userBookings;
+        });
+    }
+
+    @Override
+    public void bookingRemoved(Booking booking) {
+        if (booking.getUser() == null) return;
+        bookings.computeIfPresent(booking.getUser().getLogin(), (login, userBookings) -> {
+            userBookings.remove(booking);
+            return userBookings.isEmpty() ? null : userBookings;
+        });
+    }
+
+    @Override
+    public void bookingArchived(Booking booking) {
+        bookingRemoved(booking);
+    }
+
+    public NavigableSet<Booking> get(String login) {
+        NavigableSet<Booking> userBookings = bookings.get(login);
+        return userBookings == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(userBookings);
+    }
+
+    public List<Booking> get(String login, LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        NavigableSet<Booking> userBookings = bookings.get(login);
+        if (userBookings == null) {
+            return new ArrayList<>();
+        }
+        LocalDateTime earliestStart = from.minusMinutes(longestMinutes.get());
+        Booking probe = new Booking(null, LOWEST, earliestStart, earliestStart.plusNanos(1));
+        return page(userBookings.tailSet(probe, true), from, to, offset, limit);
+    }
+
+    static List<Booking> page(Iterable<Booking> sorted, LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        List<Booking> page = new ArrayList<>();
+        int skipped = 0;
+        for (Booking booking : sorted) {
+            if (page.size() == limit || !booking.getStart().isBefore(to)) break;
+            if (!booking.getEnd().isAfter(from)) continue;
+            if (skipped++ < offset) continue;
+            page.add(booking);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,4 @@
+package org.example.utils;
+
+public class InvalidSessionException extends Exception {
+}
@@ -0,0 +1,10 @@
+package org.example.utils;
+
+/**
+ * Thrown for every change once the journal can no longer save them.
+ */
+public class JournalFailedException extends IllegalStateException {
+    public JournalFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.utils;
+
+import java.util.*;
+
+/**
+ * Lazily merges iterators that are each sorted by {@code order} into one sorted iteration, holding only
+ * the current head of every source: {@code O(log k)} per element for {@code k} sources.
+ */
+public class MergingIterator<T> implements Iterator<T> {
+    private final PriorityQueue<Head<T>> heads;
+
+    private static final class Head<T> {
+        T value;
+        final Iterator<? extends T> rest;
+
+        Head(Iterator<? extends T> rest) {
+            this.rest = rest;
+        }
+    }
+
+    public MergingIterator(Collection<? extends Iterator<? extends T>> sources, Comparator<? super T> order) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.value, b.value));
+        sources.forEach(source -> advance(new Head<>(source)));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        T value = head.value;
+        advance(head);
+        return value;
+    }
+
+    private void advance(Head<T> head) {
+        if (head.rest.hasNext()) {
+            head.value = head.rest.next();
+            heads.add(head);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.utils;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2-HMAC-SHA512 hash of a password. The work factor of new hashes is read from the
+ * {@code coworking.pbkdf2.iterations} system property; a hash keeps the iteration count it was made with,
+ * so raising the work factor does not invalidate stored hashes.
+ */
+public final class PasswordHash {
+    public static final String ITERATIONS_PROPERTY = "coworking.pbkdf2.iterations";
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+    private static final String PREFIX = "pbkdf2-sha512";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 512;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+    private final byte[] salt;
+    private final byte[] hash;
+
+    private PasswordHash(int iterations, byte[] salt, byte[] hash) {
+        this.iterations = iterations;
+        this.salt = salt;
+        this.hash = hash;
+    }
+
+    public static int configuredIterations() {
+        return Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS);
+    }
+
+    public static PasswordHash of(String password) {
+        return of(password, configuredIterations());
+    }
+
+    public static PasswordHash of(String password, int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return new PasswordHash(iterations, salt, derive(password, salt, iterations));
+    }
+
+    /**
+     * Parses the form written by {@link #toString()}.
+     */
+    public static PasswordHash parse(String encoded) throws IllegalArgumentException {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            throw new IllegalArgumentException("Not a password hash: " + encoded);
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        return new PasswordHash(Integer.parseInt(parts[1]), decoder.decode(parts[2]), decoder.decode(parts[3]));
+    }
+
+    /**
+     * Hashes {@code password} with this hash's salt and work factor and compares in constant time.
+     */
+    public boolean matches(String password) {
+        return password != null && MessageDigest.isEqual(hash, derive(password, salt, iterations));
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    @Override
+    public String toString() {
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + '$' + iterations + '$' + encoder.encodeToString(salt) + '$' + encoder.encodeToString(hash);
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.view;
+
+import org.example.model.*;
+import org.example.service.BookingResult;
+import org.example.service.Coworking;
+import org.example.utils.MemberNotFoundException;
+
+import java.util.*;
+
+/**
+ * The {@link ResponseBuilder} listings as JSON. Times are ISO-8601 local date-times, facilities are
+ * referred to by id number.
+ */
+public class JsonResponseBuilder {
+
+    public static String listFacilities(List<Facility> facilities) {
+        JsonWriter json = new JsonWriter().beginArray();
+        new TreeSet<>(facilities).forEach(facility -> writeFacility(json, facility));
+        return json.endArray().toString();
+    }
+
+    public static String listFreeSlots(Map<Facility, TreeSet<Booking>> slots) {
+        JsonWriter json = new JsonWriter().beginObject();
+        slots.forEach((facility, freeSlots) -> {
+            json.name(facility.getIdNumber()).beginArray();
+            freeSlots.forEach(slot -> json.beginObject()
+                    .name("start").value(slot.getStart())
+                    .name("end").value(slot.getEnd())
+                    .endObject());
+            json.endArray();
+        });
+        return json.endObject().toString();
+    }
+
+    public static String listSlotCandidates(List<Booking> slots) {
+        return writeBookings(new JsonWriter(), slots).toString();
+    }
+
+    public static String listUserBookings(User user, Coworking coworking) {
+        return writeUserBookings(
+                coworking.viewUserRecurringBookings(user.getLogin()),
+                coworking.viewUserBookings(user.getLogin()).stream()
+                        .filter(booking -> booking.getUser().equals(user))
+                        .toList()
+        );
+    }
+
+    public static String listUserBookings(User admin, String userLogin, Coworking coworking) {
+        if (!admin.isAdmin()) return null;
+        return writeUserBookings(
+                coworking.viewUserRecurringBookings(userLogin),
+                new ArrayList<>(coworking.viewUserBookings(userLogin))
+        );
+    }
+
+    /**
+     * Up to {@code limit} bookings following {@code cursor}, merged straight from the schedules and the
+     * archive like {@link ResponseBuilder#writeAllBookings}. The first page also carries the recurring
+     * bookings; {@code next} is the cursor of the next page, {@code null} after the last one.
+     */
+    public static String listAllBookings(User admin, Coworking coworking, String cursor, int limit) {
+        if (!admin.isAdmin()) return null;
+        return writeBookingPage(
+                cursor == null ? coworking.viewRecurringBookings() : List.of(),
+                coworking.iterateBookings(ResponseBuilder.parseCursor(cursor)),
+                limit
+        );
+    }
+
+    /**
+     * Like {@link #listAllBookings}, for the bookings of the facility with {@code idNumber}.
+     */
+    public static String listFacilityBookings(User admin, String idNumber, Coworking coworking, String cursor, int limit) {
+        if (!admin.isAdmin()) return null;
+        Facility facility;
+        try {
+            facility = coworking.getFacility(idNumber);
+        } catch (MemberNotFoundException e) {
+            facility = null;
+        }
+        return writeBookingPage(
+                cursor == null
+                        ? coworking.viewRecurringBookings().stream()
+                                .filter(rule -> rule.getFacility().getIdNumber().equals(idNumber))
+                                .toList()
+                        : List.of(),
+                facility == null
+                        ? Collections.emptyIterator()
+                        : coworking.iterateFacilityBookings(facility, ResponseBuilder.parseCursor(cursor)),
+                limit
+        );
+    }
+
+    /**
+     * The status of a booking attempt, with the conflicts and the nearest free slots of a rejected one.
+     */
+    public static String bookingResult(BookingResult result) {
+        JsonWriter json = new JsonWriter().beginObject().field("status", result.getStatus().name());
+        if (!result.isBooked()) {
+            writeBookings(json.name("conflicts"), result.getConflicts());
+            if (result.getFreeBefore() != null) {
+                writeBooking(json.name("freeBefore"), result.getFreeBefore());
+            }
+            if (result.getFreeAfter() != null) {
+                writeBooking(json.name("freeAfter"), result.getFreeAfter());
+            }
+        }
+        return json.endObject().toString();
+    }
+
+    public static String session(String token) {
+        return new JsonWriter().beginObject().field("token", token).endObject().toString();
+    }
+
+    public static String message(String message) {
+        return new JsonWriter().beginObject().field("message", message).endObject().toString();
+    }
+
+    public static String error(String error) {
+        return new JsonWriter().beginObject().field("error", error).endObject().toString();
+    }
+
+    private static String writeUserBookings(List<RecurringBooking> rules, Collection<Booking> bookings) {
+        JsonWriter json = writeRules(new JsonWriter().beginObject(), rules).name("bookings");
+        return writeBookings(json, bookings).endObject().toString();
+    }
+
+    private static String writeBookingPage(List<RecurringBooking> rules, Iterator<Booking> bookings, int limit) {
+        JsonWriter json = writeRules(new JsonWriter().beginObject(), rules).name("bookings").beginArray();
+        Booking last = null;
+        for (int written = 0; written < limit && bookings.hasNext(); written++) {
+            last = bookings.next();
+            writeBooking(json, last);
+        }
+        String next = last != null && bookings.hasNext() ? ResponseBuilder.formatCursor(last) : null;
+        return json.endArray().field("next", next).endObject().toString();
+    }
+
+    private static JsonWriter writeRules(JsonWriter json, List<RecurringBooking> rules) {
+        json.name("recurring").beginArray();
+        rules.forEach(rule -> {
+            Recurrence recurrence = rule.getRecurrence();
+            json.beginObject()
+                    .field("facility", rule.getFacility().getIdNumber())
+                    .field("user", rule.getUser() == null ? null : rule.getUser().getLogin())
+                    .name("days").beginArray();
+            recurrence.getDays().forEach(json::value);
+            json.endArray()
+                    .name("start").value(recurrence.getStart())
+                    .name("end").value(recurrence.getEnd())
+                    .name("firstDate").value(recurrence.getFirstDate())
+                    .name("lastDate").value(recurrence.getLastDate())
+                    .endObject();
+        });
+        return json.endArray();
+    }
+
+    private static JsonWriter writeBookings(JsonWriter json, Collection<Booking> bookings) {
+        json.beginArray();
+        bookings.forEach(booking -> writeBooking(json, booking));
+        return json.endArray();
+    }
+
+    private static JsonWriter writeBooking(JsonWriter json, Booking booking) {
+        json.beginObject().field("facility", booking.getFacility().getIdNumber());
+        if (booking.getUser() != null) {
+            json.field("user", booking.getUser().getLogin());
+        }
+        return json.name("start").value(booking.getStart())
+                .name("end").value(booking.getEnd())
+                .endObject();
+    }
+
+    private static void writeFacility(JsonWriter json, Facility facility) {
+        json.beginObject().field("id", facility.getIdNumber());
+        if (facility instanceof ConferenceRoom room) {
+            json.field("type", "conference_room").field("seats", room.getSeats());
+        } else if (facility instanceof Workstation workstation) {
+            json.field("type", "workstation").field("description", workstation.getDescription());
+        }
+        json.endObject();
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.view;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal streaming JSON writer: tracks where commas go and escapes strings, nothing more.
+ */
+public class JsonWriter {
+    private final StringBuilder out;
+    private final Deque<Boolean> first = new ArrayDeque<>();
+    private boolean afterName;
+
+    public JsonWriter() {
+        this(new StringBuilder());
+    }
+
+    public JsonWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        first.push(true);
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        first.pop();
+        out.append('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        first.push(true);
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        first.pop();
+        out.append(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separate();
+        appendString(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(Object value) {
+        return value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    public JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!first.isEmpty()) {
+            if (!first.peek()) {
+                out.append(',');
+            } else {
+                first.pop();
+                first.push(false);
+            }
+        }
+    }
+
+    private void appendString(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
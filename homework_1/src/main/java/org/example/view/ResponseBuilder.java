@@ -1,15 +1,18 @@
 package org.example.view;
 
 import org.example.model.*;
+import org.example.service.BookingResult;
 import org.example.service.Coworking;
 import org.example.utils.MemberAlreadyExistsException;
 import org.example.utils.MemberNotFoundException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeSet;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class ResponseBuilder {  // TODO: replace sorted lists of bookings with TreeSets where needed
@@ -26,36 +29,82 @@ public class ResponseBuilder {  // TODO: replace sorted lists of bookings with T
         StringBuilder response = new StringBuilder("\nAvailable booking slots:\n");
         slots.forEach((facility, freeSlots) -> {
             response.append(facility.getIdNumber().toUpperCase()).append(": ");
-            freeSlots.forEach(slot -> response.append(formatter.format(slot.getStart())).append(" - ")
-                    .append(formatter.format(slot.getEnd())).append(", "));
-            response.append("\b\b.\n");
+            if (freeSlots.isEmpty()) {
+                response.append("None");
+            }
+            String separator = "";
+            for (Booking slot : freeSlots) {
+                response.append(separator).append(formatter.format(slot.getStart())).append(" - ")
+                        .append(formatter.format(slot.getEnd()));
+                separator = ", ";
+            }
+            response.append(".\n");
         });
         return response.toString();
     }
 
+    public static String listSlotCandidates(List<Booking> slots) {
+        return buildBookingList(new StringBuilder("\nEarliest available slots:\n"), slots);
+    }
+
+    public static String describeBookingResult(BookingResult result) {
+        StringBuilder response = new StringBuilder();
+        switch (result.getStatus()) {
+            case BOOKED -> {
+                return "Booking placed successfully.";
+            }
+            case CONFLICT -> buildBookingList(response.append("The booking clashes with:\n"), result.getConflicts());
+            case CLOSED -> response.append("Bookings can't start that early any more.\n");
+        }
+        List<Booking> alternatives = new ArrayList<>(2);
+        if (result.getFreeBefore() != null) {
+            alternatives.add(result.getFreeBefore());
+        }
+        if (result.getFreeAfter() != null) {
+            alternatives.add(result.getFreeAfter());
+        }
+        return buildBookingList(response.append("Nearest free slots of the same length:\n"), alternatives);
+    }
+
     public static String listUserBookings(User user, Coworking coworking) {
         StringBuilder response = new StringBuilder(String.format("\nBookings placed by `%s`:\n", user.getLogin()));
-        var userBookings = coworking.viewAllBookings().stream()
+        var userBookings = coworking.viewUserBookings(user.getLogin()).stream()
                 .filter(booking -> booking.getUser().equals(user))
                 .collect(Collectors.toList());
-        return buildBookingList(response, userBookings);
+        return buildBookingList(response, coworking.viewUserRecurringBookings(user.getLogin()), userBookings);
     }
 
     public static String listUserBookings(User admin, String userLogin, Coworking coworking) {
         if (!admin.isAdmin()) return null;
         StringBuilder response = new StringBuilder(String.format("\nBookings placed by `%s`:\n", userLogin));
-        var userBookings = coworking.viewAllBookings().stream()
-                .filter(booking -> booking.getUser().getLogin().equals(userLogin))
-                .collect(Collectors.toList());
-        return buildBookingList(response, userBookings);
+        var userBookings = new ArrayList<>(coworking.viewUserBookings(userLogin));
+        return buildBookingList(response, coworking.viewUserRecurringBookings(userLogin), userBookings);
+    }
+
+    private static String buildBookingList(StringBuilder response, List<RecurringBooking> rules, List<Booking> bookings) {
+        if (rules.isEmpty()) {
+            return buildBookingList(response, bookings);
+        }
+        rules.forEach(rule -> response.append(rule.getFacility().getIdNumber().toUpperCase()).append(' ')
+                .append(describe(rule.getRecurrence())).append('\n'));
+        return bookings.isEmpty() ? response.toString() : buildBookingList(response, bookings);
+    }
+
+    private static String describe(Recurrence recurrence) {
+        return "every " + recurrence.getDays().stream()
+                .map(day -> day.getDisplayName(TextStyle.SHORT, Locale.ENGLISH))
+                .collect(Collectors.joining(", ")) +
+                " from " + formatter.format(recurrence.getStart()) +
+                " to " + formatter.format(recurrence.getEnd()) +
+                ", " + recurrence.getFirstDate() + " through " + recurrence.getLastDate();
     }
 
     private static String buildBookingList(StringBuilder response, List<Booking> bookings) {
         if (bookings.isEmpty()) {
-            response.append("\b None");
+            response.append("None\n");
             return response.toString();
         }
-        bookings.stream().sorted(Booking::compareTo).forEach(booking -> {
+        bookings.forEach(booking -> {
             response.append(booking.getFacility().getIdNumber().toUpperCase())
                     .append(" from ").append(booking.getStart().toString())
                     .append(" to ").append(booking.getEnd().toString()).append('\n');
@@ -65,29 +114,128 @@ public class ResponseBuilder {  // TODO: replace sorted lists of bookings with T
 
     public static String listAllBookings(User admin, Coworking coworking) {
         if (!admin.isAdmin()) return null;
-        StringBuilder response = new StringBuilder("\nAll bookings in the system:\n");
-        new ArrayList<>(coworking.viewAllBookings()).stream().sorted().forEach(booking -> {
-            response.append(booking.getStart().toString()).append(" to ").append(booking.getEnd().toString())
-                    .append(" - facility: ").append(booking.getFacility().getIdNumber().toUpperCase())
-                    .append(" - user: ").append(booking.getUser().getLogin()).append('\n');
-        });
+        StringBuilder response = new StringBuilder();
+        writeFully(() -> writeAllBookings(admin, coworking, response, null, Integer.MAX_VALUE));
         return response.toString();
     }
 
     public static String listFacilityBookings(User admin, String idNumber, Coworking coworking) {
         if (!admin.isAdmin()) return null;
-        StringBuilder response = new StringBuilder(String.format("\nBookings placed for `%s`:\n", idNumber));
-        List<Booking> bookings = coworking.viewAllBookings().stream()
-                .filter(booking -> booking.getFacility().getIdNumber().equals(idNumber))
-                .collect(Collectors.toCollection(ArrayList::new));
-        if (bookings.isEmpty()) return response.append("\b None").toString();
-        bookings.stream().sorted().forEach(booking -> {
-            response.append(booking.getStart().toString()).append(" to ").append(booking.getEnd().toString())
-                    .append(" user: ").append(booking.getUser().getLogin()).append('\n');
-        });
+        StringBuilder response = new StringBuilder();
+        writeFully(() -> writeFacilityBookings(admin, idNumber, coworking, response, null, Integer.MAX_VALUE));
         return response.toString();
     }
 
+    /**
+     * Writes up to {@code limit} bookings following {@code cursor} to {@code out}, oldest first, merged
+     * straight from the schedules and the archive without collecting them. The first page
+     * ({@code cursor == null}) starts with the heading and the recurring bookings. Returns the cursor of
+     * the next page, or {@code null} after the last page.
+     */
+    public static String writeAllBookings(
+            User admin, Coworking coworking, Appendable out, String cursor, int limit
+    ) throws IOException {
+        if (!admin.isAdmin()) return null;
+        if (cursor == null) {
+            out.append("\nAll bookings in the system:\n");
+            for (RecurringBooking rule : coworking.viewRecurringBookings()) {
+                out.append(describe(rule.getRecurrence()))
+                        .append(" - facility: ").append(rule.getFacility().getIdNumber().toUpperCase())
+                        .append(" - user: ").append(login(rule.getUser())).append('\n');
+            }
+        }
+        return writePage(coworking.iterateBookings(parseCursor(cursor)), out, limit, (booking, line) -> line
+                .append(booking.getStart().toString()).append(" to ").append(booking.getEnd().toString())
+                .append(" - facility: ").append(booking.getFacility().getIdNumber().toUpperCase())
+                .append(" - user: ").append(login(booking.getUser())).append('\n'));
+    }
+
+    /**
+     * Like {@link #writeAllBookings}, for the bookings of the facility with {@code idNumber}.
+     */
+    public static String writeFacilityBookings(
+            User admin, String idNumber, Coworking coworking, Appendable out, String cursor, int limit
+    ) throws IOException {
+        if (!admin.isAdmin()) return null;
+        Facility facility;
+        try {
+            facility = coworking.getFacility(idNumber);
+        } catch (MemberNotFoundException e) {
+            facility = null;
+        }
+        Iterator<Booking> bookings = facility == null
+                ? Collections.emptyIterator()
+                : coworking.iterateFacilityBookings(facility, parseCursor(cursor));
+        if (cursor == null) {
+            out.append(String.format("\nBookings placed for `%s`:\n", idNumber));
+            List<RecurringBooking> rules = coworking.viewRecurringBookings().stream()
+                    .filter(rule -> rule.getFacility().getIdNumber().equals(idNumber))
+                    .toList();
+            if (rules.isEmpty() && !bookings.hasNext()) {
+                out.append("None\n");
+                return null;
+            }
+            for (RecurringBooking rule : rules) {
+                out.append(describe(rule.getRecurrence()))
+                        .append(" user: ").append(login(rule.getUser())).append('\n');
+            }
+        }
+        return writePage(bookings, out, limit, (booking, line) -> line
+                .append(booking.getStart().toString()).append(" to ").append(booking.getEnd().toString())
+                .append(" user: ").append(login(booking.getUser())).append('\n'));
+    }
+
+    private interface LineWriter {
+        void write(Booking booking, Appendable out) throws IOException;
+    }
+
+    private interface Report {
+        void write() throws IOException;
+    }
+
+    private static String writePage(Iterator<Booking> bookings, Appendable out, int limit, LineWriter line)
+            throws IOException {
+        Booking last = null;
+        for (int written = 0; written < limit && bookings.hasNext(); written++) {
+            last = bookings.next();
+            line.write(last, out);
+        }
+        return last != null && bookings.hasNext() ? formatCursor(last) : null;
+    }
+
+    /**
+     * A cursor names the last booking of a page: {@code start/end/facility}.
+     */
+    static String formatCursor(Booking booking) {
+        return booking.getStart() + "/" + booking.getEnd() + "/" + booking.getFacility().getIdNumber();
+    }
+
+    static Booking parseCursor(String cursor) throws IllegalArgumentException {
+        if (cursor == null) return null;
+        String[] parts = cursor.split("/", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor);
+        }
+        try {
+            return new Booking(null, new Workstation(parts[2], ""),
+                    LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor, e);
+        }
+    }
+
+    private static String login(User user) {
+        return user == null ? "-" : user.getLogin();
+    }
+
+    private static void writeFully(Report report) {
+        try {
+            report.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public static String addNewWorkstation(User admin, String idNumber, String description, Coworking coworking) {
         if (!admin.isAdmin()) return null;
         try {
@@ -4,6 +4,7 @@ import org.example.model.Facility;
 import org.example.model.User;
 import org.example.model.Workstation;
 import org.example.service.Coworking;
+import org.example.utils.MemberAlreadyExistsException;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -32,9 +33,12 @@ public class TestUtils {
         coworking.addBooking(user, facility, start5, end5);
     }
 
-    public static void addFiveBookingsInclAnotherFacility(Facility facility, Coworking coworking) {
+    public static void addFiveBookingsInclAnotherFacility(
+            Facility facility, Coworking coworking
+    ) throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         Facility other = new Workstation("other00", "Celeron");
+        coworking.addFacility(other);
         var start1 = LocalDateTime.of(2024, 7, 6, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 6, 17, 0);
         coworking.addBooking(user, other, start1, end1);
@@ -3,6 +3,7 @@ package org.example.model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -288,4 +289,40 @@ class BookingTest {  // TODO: Make sure that inter-booking gap is properly accou
         );
         assertThat(b1).isLessThan(b2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void epoch_minutes_round_outwards() {
+        Booking booking = new Booking(
+                user1, workstation1,
+                LocalDateTime.of(2024, 6, 22, 10, 0, 30),
+                LocalDateTime.of(2024, 6, 22, 23, 59, 59, 999_999_999)
+        );
+        long dayStart = LocalDate.of(2024, 6, 22).toEpochDay() * Booking.MINUTES_PER_DAY;
+        assertThat(booking.getStartMinute()).isEqualTo(dayStart + 10 * 60);
+        assertThat(booking.getEndMinute()).isEqualTo(dayStart + Booking.MINUTES_PER_DAY);
+        assertThat(Booking.ofEpochMinute(booking.getStartMinute())).isEqualTo(LocalDateTime.of(2024, 6, 22, 10, 0));
+    }
+
+    @Test
+    void gap_apart_not_overlapping() {
+        Booking b1 = new Booking(
+                user1, workstation1,
+                LocalDateTime.of(2024, 6, 22, 10, 0),
+                LocalDateTime.of(2024, 6, 22, 11, 0)
+        );
+        Booking b2 = new Booking(
+                user2, workstation1,
+                LocalDateTime.of(2024, 6, 22, 11, 0).plusMinutes(GapPolicy.DEFAULT_GAP),
+                LocalDateTime.of(2024, 6, 22, 12, 0)
+        );
+        Booking b3 = new Booking(
+                user2, workstation1,
+                LocalDateTime.of(2024, 6, 22, 11, 14),
+                LocalDateTime.of(2024, 6, 22, 12, 0)
+        );
+        assertThat(b1.isOverlapping(b2)).isFalse();
+        assertThat(b2.isOverlapping(b1)).isFalse();
+        assertThat(b1.isOverlapping(b3)).isTrue();
+        assertThat(b3.isOverlapping(b1)).isTrue();
+    }
+}
@@ -2,6 +2,7 @@ package org.example.model;
 
 import org.example.TestUtils;
 import org.example.service.Coworking;
+import org.example.utils.MemberAlreadyExistsException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -17,14 +18,15 @@ class FacilityTest {
     Coworking coworking;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws MemberAlreadyExistsException {
         coworking = new Coworking();
     }
 
     @Test
-    void getBookingsForDate() {
+    void getBookingsForDate() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         TestUtils.addFiveBookings(facility, coworking, date);
         var relevantBookings = facility.getBookingsForDate(date, coworking.viewAllBookings());
         assertThat(relevantBookings).hasSize(3);
@@ -35,9 +37,10 @@ class FacilityTest {
     }
 
     @Test
-    void only_this_facility_bookings_picked() {
+    void only_this_facility_bookings_picked() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         TestUtils.addFiveBookingsInclAnotherFacility(facility, coworking);
         var relevantBookings = facility.getBookingsForDate(date, coworking.viewAllBookings());
         assertThat(relevantBookings).hasSize(2);
@@ -45,9 +48,10 @@ class FacilityTest {
     }
 
     @Test
-    void no_bookings_empty_list() {
+    void no_bookings_empty_list() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         var start1 = LocalDateTime.of(2024, 7, 6, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 6, 17, 0);
         coworking.addBooking(null, facility, start1, end1);
@@ -60,9 +64,10 @@ class FacilityTest {
     }
 
     @Test
-    void booking_overstretching_both_ends_listed() {
+    void booking_overstretching_both_ends_listed() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         var start1 = LocalDateTime.of(2024, 7, 6, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 8, 17, 0);
         coworking.addBooking(new User("u1", "pwd1"), facility, start1, end1);
@@ -72,9 +77,10 @@ class FacilityTest {
     }
 
     @Test
-    void getFreeBookingSlotsForDate() {
+    void getFreeBookingSlotsForDate() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         TestUtils.addFiveBookings(facility, coworking, date);
         var freeSlots = facility.getFreeBookingSlotsForDate(date, coworking.viewAllBookings());
         assertThat(freeSlots).hasSize(2);
@@ -82,9 +88,10 @@ class FacilityTest {
     }
 
     @Test
-    void three_bookings_amidst_one_day_handled() {
+    void three_bookings_amidst_one_day_handled() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         TestUtils.addThreeBookingsAmidstDay(facility, coworking, date);
         assertThat(coworking.viewAllBookings()).hasSize(3);
         var freeSlots = facility.getFreeBookingSlotsForDate(date, coworking.viewAllBookings());
@@ -92,9 +99,10 @@ class FacilityTest {
     }
 
     @Test
-    void overstretching_booking_free_slots_empty() {
+    void overstretching_booking_free_slots_empty() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         var start1 = LocalDateTime.of(2024, 7, 6, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 8, 17, 0);
         coworking.addBooking(null, facility, start1, end1);
@@ -104,34 +112,37 @@ class FacilityTest {
     }
 
     @Test
-    void slot_under_15_minutes_between_outstretching_not_added() {
+    void slot_under_15_minutes_between_outstretching_not_added() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         TestUtils.addTwoOutstretchingBookingsUnder45Apart(facility, coworking, date);
         var freeSlots = facility.getFreeBookingSlotsForDate(date, coworking.viewAllBookings());
         assertThat(freeSlots).isEmpty();
     }
 
     @Test
-    void slot_under_15_minutes_between_inner_not_added() {
+    void slot_under_15_minutes_between_inner_not_added() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         TestUtils.addTwoInnerBookingsUnder45Apart(facility, coworking, date);
         var allBookings = new TreeSet<>(coworking.viewAllBookings());
         var freeSlots = facility.getFreeBookingSlotsForDate(date, allBookings);
         assertThat(freeSlots).hasSize(2);
         assertThat(freeSlots.first().getStart()).isEqualTo(LocalDateTime.of(date, LocalTime.MIN));
         assertThat(freeSlots.first().getEnd())
-                .isEqualTo(allBookings.first().getStart().minusMinutes(facility.INTER_BOOKING_GAP));
+                .isEqualTo(allBookings.first().getStart().minusMinutes(GapPolicy.DEFAULT_GAP));
         assertThat(freeSlots.last().getStart())
-                .isEqualTo(allBookings.last().getEnd().plusMinutes(facility.INTER_BOOKING_GAP));
+                .isEqualTo(allBookings.last().getEnd().plusMinutes(GapPolicy.DEFAULT_GAP));
     }
 
     @Test
-    void single_booking_end_in_handled() {
+    void single_booking_end_in_handled() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         var start1 = LocalDateTime.of(2024, 7, 6, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 7, 17, 0);
         coworking.addBooking(user, facility, start1, end1);
@@ -139,14 +150,15 @@ class FacilityTest {
         var freeSlots = facility.getFreeBookingSlotsForDate(date, coworking.viewAllBookings());
         assertThat(freeSlots).hasSize(1);
         var freeSlot = freeSlots.first();
-        assertThat(freeSlot.getStart()).isEqualTo(end1.plusMinutes(facility.INTER_BOOKING_GAP));
+        assertThat(freeSlot.getStart()).isEqualTo(end1.plusMinutes(GapPolicy.DEFAULT_GAP));
         assertThat(freeSlot.getEnd()).isEqualTo(LocalDateTime.of(date, LocalTime.MAX));
     }
 
     @Test
-    void single_booking_start_in_handled() {
+    void single_booking_start_in_handled() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
+        coworking.addFacility(facility);
         var start1 = LocalDateTime.of(2024, 7, 7, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 8, 17, 0);
         coworking.addBooking(null, facility, start1, end1);
@@ -156,14 +168,15 @@ class FacilityTest {
         var freeSlot = freeSlots.first();
         assertThat(freeSlot.getStart()).isEqualTo(LocalDateTime.of(date, LocalTime.MIN));
 //                .withFailMessage("Wrong free slot start time!");
-        assertThat(freeSlot.getEnd()).isEqualTo(start1.minusMinutes(facility.INTER_BOOKING_GAP));
+        assertThat(freeSlot.getEnd()).isEqualTo(start1.minusMinutes(GapPolicy.DEFAULT_GAP));
     }
 
     @Test
-    void two_bookings_gap_apart_handled() {
+    void two_bookings_gap_apart_handled() throws MemberAlreadyExistsException {
         LocalDate date = LocalDate.of(2024, 7, 7);
         Facility facility = new Workstation("ws001", "Celeron");
-        TestUtils.addTwoInnerBookingsGapApart(facility, coworking, date, facility.INTER_BOOKING_GAP);
+        coworking.addFacility(facility);
+        TestUtils.addTwoInnerBookingsGapApart(facility, coworking, date, GapPolicy.DEFAULT_GAP);
         var allBookings = new TreeSet<>(coworking.viewAllBookings());
         var freeSlots = facility.getFreeBookingSlotsForDate(date, allBookings);
         assertThat(freeSlots).hasSize(2);
@@ -0,0 +1,78 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GapPolicyTest {
+    static final long DAY = LocalDate.of(2024, 7, 1).toEpochDay() * Booking.MINUTES_PER_DAY;
+
+    GapPolicy daytime = GapPolicy.byTimeOfDay(new TreeMap<>(Map.of(LocalTime.of(8, 0), 30, LocalTime.of(18, 0), 10)));
+
+    private static long at(int hour, int minute) {
+        return DAY + hour * 60L + minute;
+    }
+
+    @Test
+    void fixed_gap_at_any_time() {
+        GapPolicy policy = GapPolicy.fixed(20);
+        assertThat(policy.gapAfter(at(3, 0))).isEqualTo(20);
+        assertThat(policy.gapAfter(-1)).isEqualTo(20);
+        assertThat(policy.latestEndBefore(at(9, 0))).isEqualTo(at(8, 40));
+        assertThat(policy.maxGap()).isEqualTo(20);
+        assertThat(GapPolicy.DEFAULT.gapAfter(0)).isEqualTo(GapPolicy.DEFAULT_GAP);
+    }
+
+    @Test
+    void gap_follows_time_of_day_and_wraps_around_midnight() {
+        assertThat(daytime.gapAfter(at(8, 0))).isEqualTo(30);
+        assertThat(daytime.gapAfter(at(17, 59))).isEqualTo(30);
+        assertThat(daytime.gapAfter(at(18, 0))).isEqualTo(10);
+        assertThat(daytime.gapAfter(at(3, 0))).isEqualTo(10);
+        assertThat(daytime.gapAfter(DAY - 1)).isEqualTo(10);
+        assertThat(daytime.maxGap()).isEqualTo(30);
+        assertThat(daytime).hasToString("GapPolicy{00:00=10, 08:00=30, 18:00=10}");
+    }
+
+    @Test
+    void latest_end_before_leaves_out_ends_past_a_drop_in_the_gap() {
+        // ending 18:05 would leave the 10 minutes needed from 18:00 on, but ending 17:50 would not leave 30
+        assertThat(daytime.latestEndBefore(at(18, 15))).isEqualTo(at(17, 45));
+        assertThat(daytime.latestEndBefore(at(18, 40))).isEqualTo(at(18, 30));
+        assertThat(daytime.latestEndBefore(at(8, 20))).isEqualTo(at(7, 59));
+        assertThat(daytime.latestEndBefore(at(0, 5))).isEqualTo(at(23, 55) - Booking.MINUTES_PER_DAY);
+    }
+
+    @Test
+    void latest_end_before_matches_a_scan() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            TreeMap<LocalTime, Integer> gaps = new TreeMap<>();
+            for (int j = 0; j <= random.nextInt(4); j++) {
+                gaps.put(LocalTime.ofSecondOfDay(random.nextInt(Booking.MINUTES_PER_DAY) * 60L), random.nextInt(180));
+            }
+            GapPolicy policy = GapPolicy.byTimeOfDay(gaps);
+            long start = DAY + random.nextInt(3 * Booking.MINUTES_PER_DAY);
+            long latest = policy.latestEndBefore(start);
+
+            for (long end = start - policy.maxGap(); end <= latest; end++) {
+                assertThat(end + policy.gapAfter(end)).as("%s ending %d", policy, end).isLessThanOrEqualTo(start);
+            }
+            assertThat(latest + 1 + policy.gapAfter(latest + 1)).as("%s", policy).isGreaterThan(start);
+        }
+    }
+
+    @Test
+    void gaps_must_be_shorter_than_a_day() {
+        assertThatThrownBy(() -> GapPolicy.fixed(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GapPolicy.fixed(Booking.MINUTES_PER_DAY)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GapPolicy.byTimeOfDay(new TreeMap<>())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
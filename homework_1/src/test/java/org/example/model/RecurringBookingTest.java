@@ -0,0 +1,115 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurringBookingTest {
+    static final LocalDate MONDAY = LocalDate.of(2024, 7, 1);
+
+    ConferenceRoom room = new ConferenceRoom("cr001", 10);
+    User user = new User("u1", "pwd1");
+
+    private RecurringBooking weekdays(LocalTime start, LocalTime end) {
+        return new RecurringBooking(user, room, new Recurrence(
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), start, end, MONDAY, MONDAY.plusWeeks(12)
+        ));
+    }
+
+    @Test
+    void occurrences_only_on_chosen_days_in_window() {
+        RecurringBooking rule = weekdays(LocalTime.of(10, 0), LocalTime.of(11, 0));
+        var occurrences = rule.occurrencesBetween(MONDAY.plusDays(3).atTime(10, 30), MONDAY.plusDays(8).atStartOfDay());
+        assertThat(occurrences).extracting(Booking::getStart).containsExactly(
+                MONDAY.plusDays(3).atTime(10, 0),
+                MONDAY.plusDays(4).atTime(10, 0),
+                MONDAY.plusDays(7).atTime(10, 0)
+        );
+        assertThat(rule.getFirstOccurrence().getStart()).isEqualTo(MONDAY.atTime(10, 0));
+    }
+
+    @Test
+    void overlapping_occurrence_found_without_expansion() {
+        RecurringBooking rule = weekdays(LocalTime.of(10, 0), LocalTime.of(11, 0));
+        var wednesday = MONDAY.plusWeeks(5).plusDays(2);
+        assertThat(rule.findOverlapping(new Booking(user, room, wednesday.atTime(11, 10), wednesday.atTime(12, 0))))
+                .extracting(Booking::getStart).isEqualTo(wednesday.atTime(10, 0));
+        assertThat(rule.findOverlapping(new Booking(user, room, wednesday.atTime(11, 15), wednesday.atTime(12, 0))))
+                .isNull();
+        var saturday = MONDAY.plusDays(5);
+        assertThat(rule.findOverlapping(new Booking(user, room, saturday.atTime(0, 0), saturday.plusDays(1).atTime(23, 0))))
+                .isNull();
+        assertThat(rule.findOverlapping(new Booking(user, room, saturday.atTime(0, 0), saturday.plusDays(2).atTime(9, 50))))
+                .extracting(Booking::getStart).isEqualTo(saturday.plusDays(2).atTime(10, 0));
+    }
+
+    @Test
+    void rules_overlap_across_midnight() {
+        RecurringBooking late = new RecurringBooking(user, room, new Recurrence(
+                EnumSet.of(DayOfWeek.FRIDAY), LocalTime.of(22, 0), LocalTime.of(23, 55), MONDAY, MONDAY.plusWeeks(4)
+        ));
+        RecurringBooking earlySaturday = new RecurringBooking(user, room, new Recurrence(
+                EnumSet.of(DayOfWeek.SATURDAY), LocalTime.of(0, 5), LocalTime.of(1, 0), MONDAY, MONDAY.plusWeeks(4)
+        ));
+        RecurringBooking earlyMonday = new RecurringBooking(user, room, new Recurrence(
+                EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(0, 5), LocalTime.of(1, 0), MONDAY, MONDAY.plusWeeks(4)
+        ));
+        assertThat(late.overlaps(earlySaturday)).isTrue();
+        assertThat(earlySaturday.overlaps(late)).isTrue();
+        assertThat(late.overlaps(earlyMonday)).isFalse();
+    }
+
+    @Test
+    void analytic_checks_match_expansion() {
+        assertAnalyticChecksMatchExpansion(new Random(11));
+    }
+
+    @Test
+    void analytic_checks_match_expansion_with_time_of_day_gaps() {
+        room.setGapPolicy(GapPolicy.byTimeOfDay(new TreeMap<>(Map.of(
+                LocalTime.of(6, 0), 5, LocalTime.of(12, 0), 90, LocalTime.of(22, 30), 0
+        ))));
+        assertAnalyticChecksMatchExpansion(new Random(12));
+    }
+
+    private void assertAnalyticChecksMatchExpansion(Random random) {
+        for (int i = 0; i < 300; i++) {
+            RecurringBooking rule = randomRule(random);
+            RecurringBooking other = randomRule(random);
+            var occurrences = rule.occurrencesBetween(MONDAY.atStartOfDay(), MONDAY.plusWeeks(6).atStartOfDay());
+            var otherOccurrences = other.occurrencesBetween(MONDAY.atStartOfDay(), MONDAY.plusWeeks(6).atStartOfDay());
+            boolean expanded = occurrences.stream().anyMatch(a -> otherOccurrences.stream().anyMatch(a::isOverlapping));
+            assertThat(rule.overlaps(other)).as("%s vs %s", rule, other).isEqualTo(expanded);
+
+            LocalDateTime start = MONDAY.atStartOfDay().plusMinutes(random.nextInt(5 * 7 * 24 * 60));
+            Booking booking = new Booking(user, room, start, start.plusMinutes(10 + random.nextInt(3 * 24 * 60)));
+            LocalDateTime expected = occurrences.stream().filter(booking::isOverlapping).findFirst()
+                    .map(Booking::getStart).orElse(null);
+            Booking found = rule.findOverlapping(booking);
+            assertThat(found == null ? null : found.getStart()).as("%s vs %s", rule, booking).isEqualTo(expected);
+        }
+    }
+
+    private RecurringBooking randomRule(Random random) {
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (random.nextInt(3) == 0) days.add(day);
+        }
+        int start = random.nextInt(23 * 60);
+        int end = start + 10 + random.nextInt(24 * 60 - 1 - start - 10);
+        LocalDate first = MONDAY.plusDays(random.nextInt(14));
+        return new RecurringBooking(user, room, new Recurrence(
+                days, LocalTime.ofSecondOfDay(start * 60L), LocalTime.ofSecondOfDay(end * 60L),
+                first, first.plusDays(random.nextInt(21))
+        ));
+    }
+}
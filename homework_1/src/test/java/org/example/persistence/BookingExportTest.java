@@ -0,0 +1,97 @@
+package org.example.persistence;
+
+import org.example.TestUtils;
+import org.example.model.*;
+import org.example.service.Coworking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BookingExportTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    Facility workstation;
+    Facility room;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coworking = new Coworking();
+        workstation = new Workstation("ws001", "Celeron");
+        room = new ConferenceRoom("cr,\"1\"", 10);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        TestUtils.addFiveBookings(workstation, coworking, DATE);
+        TestUtils.addFiveBookings(room, coworking, DATE.minusYears(30));
+        coworking.addBooking(new User("u2", "pwd2"), room, DATE.atTime(9, 0), DATE.atTime(10, 0));
+        coworking.addBooking(null, workstation, DATE.plusDays(5).atTime(9, 0), DATE.plusDays(5).atTime(9, 1));
+    }
+
+    private List<Booking> sorted() {
+        List<Booking> bookings = new ArrayList<>(coworking.viewAllBookings());
+        bookings.sort(null);
+        return bookings;
+    }
+
+    @Test
+    void columnar_export_round_trips_across_blocks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(BookingExport.writeColumnar(coworking.iterateBookings(null), out, 3)).isEqualTo(12);
+
+        List<Object> read = new ArrayList<>();
+        long rows = BookingExport.readColumnar(new ByteArrayInputStream(out.toByteArray()),
+                (facility, user, start, end) -> read.add(tuple(facility, user, start, end)));
+
+        assertThat(rows).isEqualTo(12);
+        assertThat(read).containsExactlyElementsOf(sorted().stream()
+                .map(booking -> tuple(booking.getFacility().getIdNumber(),
+                        booking.getUser() == null ? null : booking.getUser().getLogin(),
+                        booking.getStart(), booking.getEnd()))
+                .toList());
+    }
+
+    @Test
+    void columnar_rows_take_a_few_bytes() throws IOException {
+        User user = new User("u1", "pwd1");
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            var start = DATE.atTime(8, 0).plusMinutes(90L * i);
+            bookings.add(new Booking(i % 7 == 0 ? null : user, i % 2 == 0 ? workstation : room, start, start.plusHours(1)));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookingExport.writeColumnar(bookings.iterator(), out);
+
+        assertThat(out.size()).isLessThan(100_000 * 6);
+        assertThat(BookingExport.readColumnar(new ByteArrayInputStream(out.toByteArray()), (f, u, s, e) -> {}))
+                .isEqualTo(100_000);
+    }
+
+    @Test
+    void csv_export_quotes_where_needed() throws IOException {
+        StringWriter out = new StringWriter();
+        assertThat(BookingExport.writeCsv(coworking, out)).isEqualTo(12);
+
+        List<String> lines = out.toString().lines().toList();
+        assertThat(lines).hasSize(13);
+        assertThat(lines.get(0)).isEqualTo("facility,user,start,end");
+        assertThat(lines.get(1)).isEqualTo("\"cr,\"\"1\"\"\",u1,1994-07-06T11:00,1994-07-06T17:00");
+        assertThat(lines.get(12)).isEqualTo("ws001,,2024-07-12T09:00,2024-07-12T09:01");
+    }
+
+    @Test
+    void foreign_input_rejected() {
+        assertThatThrownBy(() -> BookingExport.readColumnar(new ByteArrayInputStream(new byte[8]), (f, u, s, e) -> {}))
+                .isInstanceOf(IOException.class);
+    }
+}
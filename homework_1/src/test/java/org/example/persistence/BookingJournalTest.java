@@ -0,0 +1,297 @@
+package org.example.persistence;
+
+import org.example.TestUtils;
+import org.example.model.*;
+import org.example.service.Coworking;
+import org.example.utils.JournalFailedException;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.WrongPasswordException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingJournalTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    @TempDir
+    Path directory;
+    Coworking coworking;
+
+    @BeforeEach
+    void setUp() {
+        coworking = new Coworking();
+    }
+
+    private Coworking reopen() throws IOException {
+        Coworking recovered = new Coworking();
+        BookingJournal.open(directory, recovered).close();
+        return recovered;
+    }
+
+    private void populate() throws MemberAlreadyExistsException, MemberNotFoundException, WrongPasswordException {
+        coworking.createAdminUser("admin", "admin");
+        coworking.registerNewUser("u1", "pwd1");
+        coworking.addFacility(new Workstation("ws001", "Celeron"));
+        coworking.addFacility(new ConferenceRoom("cr001", 17));
+        User user = coworking.getUser("u1", "pwd1");
+        TestUtils.addThreeBookingsAmidstDay(coworking.getFacility("ws001"), coworking, DATE);
+        coworking.addBooking(user, coworking.getFacility("cr001"),
+                LocalDateTime.of(DATE, LocalTime.of(9, 0)), LocalDateTime.of(DATE, LocalTime.of(10, 0)));
+    }
+
+    @Test
+    void state_restored_from_journal() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        coworking.removeBooking(coworking.getFacility("ws001"),
+                LocalDateTime.of(DATE, LocalTime.of(6, 0)), LocalDateTime.of(DATE, LocalTime.of(8, 0)),
+                coworking.getUser("admin", "admin"));
+        coworking.editConferenceRoom((ConferenceRoom) coworking.getFacility("cr001"), 20);
+        journal.close();
+
+        Coworking recovered = reopen();
+        assertThat(recovered.viewAllUsers()).extracting(User::getLogin).containsExactly("admin", "u1");
+        assertThat(recovered.getUser("admin", "admin").isAdmin()).isTrue();
+        assertThat(((ConferenceRoom) recovered.getFacility("cr001")).getSeats()).isEqualTo(20);
+        assertThat(recovered.viewAllBookings()).hasSize(3);
+        assertThat(new ArrayList<>(recovered.viewUserBookings("u1"))).hasSize(3);
+    }
+
+    @Test
+    void removals_restored_from_journal() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        coworking.removeFacility("ws001");
+        coworking.removeUser("u1", "pwd1");
+        journal.close();
+
+        Coworking recovered = reopen();
+        assertThat(recovered.viewAllFacilities()).extracting(Facility::getIdNumber).containsExactly("cr001");
+        assertThat(recovered.viewAllUsers()).extracting(User::getLogin).containsExactly("admin");
+        assertThat(recovered.viewAllBookings()).isEmpty();
+    }
+
+    @Test
+    void snapshot_compacts_journal_and_recovery_replays_tail_only() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        journal.snapshot();
+        coworking.registerNewUser("u2", "pwd2");
+        coworking.addBooking(coworking.getUser("u2", "pwd2"), coworking.getFacility("cr001"),
+                LocalDateTime.of(DATE, LocalTime.of(12, 0)), LocalDateTime.of(DATE, LocalTime.of(13, 0)));
+        journal.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(path -> path.getFileName().toString().startsWith("journal-"))).hasSize(1);
+        }
+
+        Coworking recovered = new Coworking();
+        BookingJournal reopened = BookingJournal.open(directory, recovered);
+        assertThat(reopened.getReplayedRecords()).isEqualTo(2);
+        reopened.close();
+        assertThat(recovered.viewAllUsers()).hasSize(3);
+        assertThat(recovered.viewAllBookings()).hasSize(5);
+    }
+
+    private void bookBackToBack(Facility facility) {
+        for (int hour = 8; hour < 12; hour++) {
+            assertThat(coworking.addBooking(null, facility,
+                    LocalDateTime.of(DATE.plusDays(1), LocalTime.of(hour, 0)),
+                    LocalDateTime.of(DATE.plusDays(1), LocalTime.of(hour + 1, 0))))
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void gap_policies_restored_before_bookings_replay() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        coworking.setGapPolicy(Workstation.class, GapPolicy.fixed(0));
+        coworking.setGapPolicy(coworking.getFacility("cr001"), GapPolicy.fixed(0));
+        bookBackToBack(coworking.getFacility("ws001"));
+        bookBackToBack(coworking.getFacility("cr001"));
+        journal.close();
+
+        Coworking recovered = reopen();
+        assertThat(recovered.viewAllBookings()).hasSize(12);
+        assertThat(recovered.getFacility("ws001").getGapPolicy().maxGap()).isZero();
+        assertThat(recovered.getFacility("ws001").hasOwnGapPolicy()).isFalse();
+        assertThat(recovered.getFacility("cr001").getGapPolicy().maxGap()).isZero();
+        assertThat(recovered.getFacility("cr001").hasOwnGapPolicy()).isTrue();
+        assertThat(recovered.viewTypeGapPolicies()).containsOnlyKeys(Workstation.class);
+    }
+
+    @Test
+    void bookings_made_before_gap_widened_survive_snapshot() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        coworking.setGapPolicy(Workstation.class, GapPolicy.fixed(0));
+        bookBackToBack(coworking.getFacility("ws001"));
+        TreeMap<LocalTime, Integer> byTimeOfDay = new TreeMap<>(Map.of(LocalTime.MIDNIGHT, 5, LocalTime.of(8, 0), 30));
+        GapPolicy widened = GapPolicy.byTimeOfDay(byTimeOfDay);
+        assertThat(coworking.setGapPolicy(Workstation.class, widened)).hasSize(3);
+        journal.snapshot();
+        journal.close();
+
+        Coworking recovered = reopen();
+        assertThat(recovered.viewAllBookings())
+                .filteredOn(booking -> booking.getFacility().getIdNumber().equals("ws001"))
+                .hasSize(3 + 4);
+        assertThat(recovered.getFacility("ws001").getGapPolicy().toString()).isEqualTo(widened.toString());
+        assertThat(recovered.getFacility("cr001").getGapPolicy()).isSameAs(GapPolicy.DEFAULT);
+    }
+
+    @Test
+    void failed_journal_stops_further_changes() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        Files.createFile(directory);
+
+        assertThatThrownBy(journal::snapshot).isInstanceOf(IOException.class);
+        assertThat(journal.getFailure()).isNotNull();
+        Facility room = coworking.getFacility("cr001");
+        assertThatThrownBy(() -> coworking.addBooking(null, room,
+                LocalDateTime.of(DATE, LocalTime.of(12, 0)), LocalDateTime.of(DATE, LocalTime.of(13, 0))))
+                .isInstanceOf(JournalFailedException.class)
+                .hasMessageStartingWith("Changes can no longer be saved");
+        assertThatThrownBy(() -> coworking.registerNewUser("u2", "pwd2")).isInstanceOf(JournalFailedException.class);
+        assertThat(coworking.viewAllBookings()).hasSize(4);
+        journal.close();
+
+        Files.delete(directory);
+        Files.createDirectory(directory);
+    }
+
+    @Test
+    void torn_tail_record_discarded() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        journal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Coworking recovered = new Coworking();
+        BookingJournal reopened = BookingJournal.open(directory, recovered);
+        assertThat(recovered.viewAllBookings()).hasSize(4);
+        recovered.registerNewUser("u2", "pwd2");
+        reopened.close();
+        assertThat(reopen().viewAllUsers()).hasSize(3);
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+        }
+    }
+
+    private List<Booking> batch() throws MemberNotFoundException {
+        Facility workstation = coworking.getFacility("ws001");
+        Facility room = coworking.getFacility("cr001");
+        List<Booking> batch = new ArrayList<>();
+        for (int day = 1; day <= 3; day++) {
+            batch.add(new Booking(null, workstation, DATE.plusDays(day).atTime(9, 0), DATE.plusDays(day).atTime(10, 0)));
+            batch.add(new Booking(null, room, DATE.plusDays(day).atTime(9, 0), DATE.plusDays(day).atTime(10, 0)));
+        }
+        return batch;
+    }
+
+    @Test
+    void batch_journaled_as_one_record() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        assertThat(coworking.addBookings(batch()).isCommitted()).isTrue();
+        journal.close();
+
+        Coworking recovered = new Coworking();
+        BookingJournal reopened = BookingJournal.open(directory, recovered);
+        assertThat(reopened.getReplayedRecords()).isEqualTo(8 + 1);
+        reopened.close();
+        assertThat(recovered.viewAllBookings()).hasSize(4 + 6);
+    }
+
+    @Test
+    void batch_cut_off_mid_record_replays_none_of_it() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        journal.sync();
+        long beforeBatch = Files.size(segment());
+        assertThat(coworking.addBookings(batch()).isCommitted()).isTrue();
+        journal.close();
+        long afterBatch = Files.size(segment());
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            channel.truncate(beforeBatch + (afterBatch - beforeBatch) / 2);
+        }
+
+        Coworking recovered = reopen();
+        assertThat(recovered.viewAllBookings()).hasSize(4);
+    }
+
+    @Test
+    void recurring_bookings_restored_from_journal_and_snapshot() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        User user = coworking.getUser("u1", "pwd1");
+        Facility room = coworking.getFacility("cr001");
+        var weekdays = new Recurrence(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+                LocalTime.of(12, 0), LocalTime.of(13, 0), DATE, DATE.plusMonths(3));
+        var weekends = new Recurrence(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                LocalTime.of(12, 0), LocalTime.of(13, 0), DATE, DATE.plusMonths(3));
+        coworking.addRecurringBooking(user, room, weekdays);
+        journal.snapshot();
+        coworking.addRecurringBooking(user, room, weekends);
+        coworking.removeRecurringBooking(new RecurringBooking(null, room, weekdays), user);
+        journal.close();
+
+        Coworking recovered = reopen();
+        assertThat(recovered.viewRecurringBookings()).extracting(RecurringBooking::getRecurrence).containsExactly(weekends);
+        assertThat(recovered.viewRecurringBookings().get(0).getUser().getLogin()).isEqualTo("u1");
+    }
+
+    @Test
+    void passwords_journaled_as_hashes() throws Exception {
+        BookingJournal journal = BookingJournal.open(directory, coworking);
+        populate();
+        journal.snapshot();
+        coworking.registerNewUser("u2", "secret-pwd2");
+        journal.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                assertThat(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1))
+                        .doesNotContain("pwd1").doesNotContain("secret-pwd2");
+            }
+        }
+        Coworking recovered = reopen();
+        assertThat(recovered.getUser("u2", "secret-pwd2").getLogin()).isEqualTo("u2");
+        assertThatThrownBy(() -> recovered.getUser("u1", "pwd2")).isInstanceOf(WrongPasswordException.class);
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.persistence;
+
+import org.example.TestUtils;
+import org.example.model.*;
+import org.example.service.BookingResult;
+import org.example.service.Coworking;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MappedBookingArchiveTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    @TempDir
+    Path directory;
+    Coworking coworking;
+    Facility workstation;
+    MappedBookingArchive archive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coworking = new Coworking();
+        coworking.registerNewUser("u1", "pwd1");
+        workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
+        TestUtils.addFiveBookings(workstation, coworking, DATE);
+        archive = MappedBookingArchive.open(directory);
+        coworking.attachArchive(archive);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+    }
+
+    @Test
+    void archived_bookings_leave_schedules_but_stay_visible() {
+        Map<Facility, TreeSet<Booking>> slotsBefore = coworking.getAvailableBookingSlots(DATE);
+
+        assertThat(coworking.archiveBookingsBefore(DATE.atTime(18, 0))).isEqualTo(3);
+
+        assertThat(archive.size()).isEqualTo(3);
+        assertThat(coworking.viewScheduledBookings()).hasSize(2);
+        assertThat(coworking.viewAllBookings()).hasSize(5);
+        assertThat(coworking.viewAllBookings()).contains(
+                new Booking(null, workstation, DATE.atTime(12, 0), DATE.atTime(13, 0))
+        );
+        assertThat(new ArrayList<>(coworking.viewUserBookings("u1"))).hasSize(5).isSorted();
+        assertThat(coworking.viewUserBookings("u1", DATE.atStartOfDay(), DATE.plusDays(1).atStartOfDay(), 0, 10))
+                .extracting(Booking::getStart)
+                .containsExactly(DATE.minusDays(1).atTime(19, 0), DATE.atTime(11, 0), DATE.atTime(21, 0));
+        assertThat(coworking.getAvailableBookingSlots(DATE).get(workstation))
+                .extracting(Booking::getStart, Booking::getEnd)
+                .containsExactlyElementsOf(slotsBefore.get(workstation).stream()
+                        .map(slot -> tuple(slot.getStart(), slot.getEnd()))
+                        .toList());
+    }
+
+    @Test
+    void bookings_before_cutoff_rejected() {
+        coworking.archiveBookingsBefore(DATE.atTime(18, 0));
+        User user = new User("u2", "pwd2");
+
+        assertThat(coworking.addBooking(user, workstation, DATE.atTime(17, 30), DATE.atTime(18, 30))).isFalse();
+        assertThat(coworking.addBooking(user, workstation, DATE.atTime(18, 0), DATE.atTime(19, 0))).isTrue();
+        assertThat(coworking.addBooking(user, new Workstation("ws002", "Pentium"),
+                DATE.atTime(16, 0), DATE.atTime(17, 0))).isFalse();
+    }
+
+    @Test
+    void gap_to_archived_booking_enforced() {
+        coworking.archiveBookingsBefore(DATE.atTime(17, 5));
+
+        assertThat(coworking.addBooking(null, workstation, DATE.atTime(17, 10), DATE.atTime(18, 0))).isFalse();
+        BookingResult result = coworking.book(null, workstation, DATE.atTime(17, 10), DATE.atTime(18, 0));
+        assertThat(result.getConflicts()).extracting(Booking::getStart).containsExactly(DATE.atTime(11, 0));
+        assertThat(result.getFreeBefore()).isNull();
+        assertThat(result.getFreeAfter().getStart()).isEqualTo(DATE.atTime(17, 15));
+        assertThat(coworking.addBooking(null, workstation, DATE.atTime(17, 15), DATE.atTime(18, 0))).isTrue();
+    }
+
+    @Test
+    void archive_reopened_and_bound_to_new_coworking() throws Exception {
+        coworking.archiveBookingsBefore(DATE.atTime(18, 0));
+        archive.close();
+
+        Coworking recovered = new Coworking();
+        recovered.registerNewUser("u1", "pwd1");
+        Facility facility = new Workstation("ws001", "Celeron");
+        recovered.addFacility(facility);
+        archive = MappedBookingArchive.open(directory);
+        recovered.attachArchive(archive);
+
+        assertThat(archive.getCutoff()).isEqualTo(DATE.atTime(18, 0));
+        assertThat(recovered.viewAllBookings()).hasSize(3)
+                .allSatisfy(booking -> {
+                    assertThat(booking.getFacility()).isSameAs(facility);
+                    assertThat(booking.getUser().getLogin()).isEqualTo("u1");
+                });
+        assertThat(archive.between(facility, DATE.atStartOfDay(), DATE.atTime(12, 0)))
+                .extracting(Booking::getStart)
+                .containsExactly(DATE.minusDays(1).atTime(19, 0), DATE.atTime(11, 0));
+    }
+
+    @Test
+    void scheduled_bookings_already_archived_dropped_on_attach() throws Exception {
+        coworking.archiveBookingsBefore(DATE.atTime(18, 0));
+        archive.close();
+
+        Coworking replayed = new Coworking();
+        Facility facility = new Workstation("ws001", "Celeron");
+        replayed.addFacility(facility);
+        TestUtils.addFiveBookings(facility, replayed, DATE);
+        archive = MappedBookingArchive.open(directory);
+        replayed.attachArchive(archive);
+
+        assertThat(replayed.viewScheduledBookings()).hasSize(2);
+        assertThat(replayed.viewAllBookings()).hasSize(5);
+    }
+
+    @Test
+    void archived_bookings_counted_once_in_analytics() throws Exception {
+        var first = DATE.minusDays(1);
+        var last = DATE.plusDays(1);
+        coworking.archiveBookingsBefore(DATE.atTime(18, 0));
+
+        assertThat(coworking.getAnalytics().bookedMinutes(workstation, first, last)).isEqualTo(42 * 60);
+        archive.close();
+
+        Coworking replayed = new Coworking();
+        Facility facility = new Workstation("ws001", "Celeron");
+        replayed.addFacility(facility);
+        replayed.addBooking(null, facility, DATE.atTime(21, 0), DATE.plusDays(1).atTime(11, 0));
+        replayed.addBooking(null, facility, DATE.minusDays(1).atTime(11, 0), DATE.minusDays(1).atTime(17, 0));
+        archive = MappedBookingArchive.open(directory);
+        replayed.attachArchive(archive);
+
+        assertThat(replayed.getAnalytics().bookedMinutes(facility, first, last)).isEqualTo((6 + 11 + 6 + 14) * 60);
+        assertThat(replayed.getAnalytics().userHours("u1", first, last)).isEqualTo(6 + 11 + 6);
+    }
+
+    @Test
+    void user_bookings_read_through_user_index_across_runs_and_reopen() throws Exception {
+        coworking.registerNewUser("u2", "pwd2");
+        User other = coworking.getUser("u2", "pwd2");
+        coworking.addBooking(other, workstation, DATE.atTime(18, 0), DATE.atTime(19, 0));
+        coworking.archiveBookingsBefore(DATE.atTime(7, 0));
+        coworking.archiveBookingsBefore(DATE.atTime(20, 0));
+
+        assertThat(archive.userBookings("u1")).extracting(Booking::getStart)
+                .containsExactly(DATE.minusDays(1).atTime(11, 0), DATE.minusDays(1).atTime(19, 0), DATE.atTime(11, 0));
+        assertThat(archive.userBookings("u2")).extracting(Booking::getStart).containsExactly(DATE.atTime(18, 0));
+        assertThat(archive.userBookings("nobody")).isEmpty();
+        archive.close();
+
+        archive = MappedBookingArchive.open(directory);
+        assertThat(archive.userBookings("u1")).hasSize(3);
+        assertThat(archive.userBookings("u2")).hasSize(1);
+    }
+
+    @Test
+    void user_index_built_for_archive_written_without_one() throws Exception {
+        coworking.archiveBookingsBefore(DATE.atTime(18, 0));
+        archive.close();
+        Files.delete(directory.resolve(MappedBookingArchive.USER_INDEX));
+        try (FileChannel records = FileChannel.open(directory.resolve(MappedBookingArchive.RECORDS),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            records.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1), 4);
+        }
+
+        archive = MappedBookingArchive.open(directory);
+        assertThat(archive.userBookings("u1")).hasSize(3).isSorted();
+        archive.close();
+        archive = MappedBookingArchive.open(directory);
+        assertThat(archive.userBookings("u1")).hasSize(3);
+    }
+
+    @Test
+    void sorted_iteration_merges_runs_and_schedules_from_any_booking() throws Exception {
+        Facility other = new Workstation("ws002", "Pentium");
+        coworking.addFacility(other);
+        TestUtils.addFiveBookings(other, coworking, DATE);
+        coworking.addBooking(null, other, DATE.atTime(6, 30), DATE.atTime(8, 0));
+        coworking.archiveBookingsBefore(DATE.atTime(7, 0));
+        coworking.archiveBookingsBefore(DATE.atTime(18, 0));
+
+        List<Booking> all = new ArrayList<>(coworking.viewAllBookings());
+        all.sort(null);
+        List<Booking> iterated = new ArrayList<>();
+        coworking.iterateBookings(null).forEachRemaining(iterated::add);
+        assertThat(iterated).hasSize(11).containsExactlyElementsOf(all);
+        for (int i = 0; i < all.size(); i++) {
+            List<Booking> rest = new ArrayList<>();
+            coworking.iterateBookings(all.get(i)).forEachRemaining(rest::add);
+            assertThat(rest).containsExactlyElementsOf(all.subList(i + 1, all.size()));
+        }
+        List<Booking> ofOther = new ArrayList<>();
+        coworking.iterateFacilityBookings(other, all.get(0)).forEachRemaining(ofOther::add);
+        assertThat(ofOther).containsExactlyElementsOf(all.stream()
+                .skip(1).filter(booking -> booking.getFacility().equals(other)).toList());
+    }
+}
@@ -0,0 +1,254 @@
+package org.example.server;
+
+import org.example.model.ConferenceRoom;
+import org.example.model.Workstation;
+import org.example.service.Coworking;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoworkingServerTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    CoworkingServer server;
+    HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coworking = new Coworking();
+        coworking.createAdminUser("admin", "admin");
+        coworking.registerNewUser("u1", "pwd1");
+        coworking.addFacility(new Workstation("ws001", "Celeron"));
+        coworking.addFacility(new ConferenceRoom("cr001", 10));
+        server = new CoworkingServer(coworking, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> send(String method, String path, String login, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (login != null) {
+            request.header("Authorization", basic(login, login.equals("admin") ? "admin" : "pwd1"));
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String basic(String login, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((login + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void booking_lifecycle_over_http() throws Exception {
+        assertThat(send("GET", "/facilities", null, null).statusCode()).isEqualTo(401);
+        assertThat(send("GET", "/facilities", "u1", null).body()).isEqualTo(
+                "[{\"id\":\"cr001\",\"type\":\"conference_room\",\"seats\":10}," +
+                        "{\"id\":\"ws001\",\"type\":\"workstation\",\"description\":\"Celeron\"}]"
+        );
+
+        String booking = "{\"facility\": \"WS001\", \"start\": \"2024-07-07T09:00\", \"end\": \"2024-07-07T12:00\"}";
+        assertThat(send("POST", "/bookings", "u1", booking).statusCode()).isEqualTo(201);
+        HttpResponse<String> rejected = send("POST", "/bookings", "u1", booking);
+        assertThat(rejected.statusCode()).isEqualTo(409);
+        assertThat(rejected.body()).isEqualTo(
+                "{\"status\":\"CONFLICT\",\"conflicts\":[{\"facility\":\"ws001\",\"user\":\"u1\"," +
+                        "\"start\":\"2024-07-07T09:00\",\"end\":\"2024-07-07T12:00\"}]," +
+                        "\"freeBefore\":{\"facility\":\"ws001\",\"start\":\"2024-07-07T05:45\",\"end\":\"2024-07-07T08:45\"}," +
+                        "\"freeAfter\":{\"facility\":\"ws001\",\"start\":\"2024-07-07T12:15\",\"end\":\"2024-07-07T15:15\"}}"
+        );
+        assertThat(send("GET", "/bookings", "u1", null).body()).isEqualTo(
+                "{\"recurring\":[],\"bookings\":[{\"facility\":\"ws001\",\"user\":\"u1\"," +
+                        "\"start\":\"2024-07-07T09:00\",\"end\":\"2024-07-07T12:00\"}]}"
+        );
+        assertThat(send("GET", "/availability?date=2024-07-07", "u1", null).body())
+                .contains("\"ws001\":[{\"start\":\"2024-07-07T00:00\",\"end\":\"2024-07-07T08:45\"}");
+        assertThat(send("GET", "/slots?from=2024-07-07T09:00&duration=60&limit=1&type=workstation", "u1", null).body())
+                .isEqualTo("[{\"facility\":\"ws001\",\"start\":\"2024-07-07T12:15\",\"end\":\"2024-07-07T13:15\"}]");
+
+        String remove = "/bookings?facility=ws001&start=2024-07-07T09:00&end=2024-07-07T12:00";
+        assertThat(send("GET", "/bookings?all=true", "u1", null).statusCode()).isEqualTo(403);
+        assertThat(send("GET", "/bookings?limit=", "u1", null).statusCode()).isEqualTo(200);
+        assertThat(send("DELETE", remove, "admin", null).statusCode()).isEqualTo(200);
+        assertThat(send("DELETE", remove, "u1", null).statusCode()).isEqualTo(404);
+        assertThat(coworking.viewAllBookings()).isEmpty();
+    }
+
+    @Test
+    void admin_listing_paged_with_cursor() throws Exception {
+        for (int hour = 8; hour < 13; hour += 2) {
+            String booking = String.format(
+                    "{\"facility\": \"ws001\", \"start\": \"2024-07-07T%02d:00\", \"end\": \"2024-07-07T%02d:00\"}",
+                    hour, hour + 1);
+            assertThat(send("POST", "/bookings", "u1", booking).statusCode()).isEqualTo(201);
+        }
+        String first = send("GET", "/bookings?all=true&limit=2", "admin", null).body();
+        assertThat(first).isEqualTo(
+                "{\"recurring\":[],\"bookings\":[" +
+                        "{\"facility\":\"ws001\",\"user\":\"u1\",\"start\":\"2024-07-07T08:00\",\"end\":\"2024-07-07T09:00\"}," +
+                        "{\"facility\":\"ws001\",\"user\":\"u1\",\"start\":\"2024-07-07T10:00\",\"end\":\"2024-07-07T11:00\"}]," +
+                        "\"next\":\"2024-07-07T10:00/2024-07-07T11:00/ws001\"}"
+        );
+        assertThat(send("GET", "/bookings?all=true&limit=2&cursor=2024-07-07T10:00/2024-07-07T11:00/ws001", "admin", null).body())
+                .isEqualTo("{\"recurring\":[],\"bookings\":[" +
+                        "{\"facility\":\"ws001\",\"user\":\"u1\",\"start\":\"2024-07-07T12:00\",\"end\":\"2024-07-07T13:00\"}]," +
+                        "\"next\":null}");
+        assertThat(send("GET", "/bookings?facility=cr001", "admin", null).body())
+                .isEqualTo("{\"recurring\":[],\"bookings\":[],\"next\":null}");
+        assertThat(send("GET", "/bookings?all=true&cursor=garbage", "admin", null).statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void registration_and_facility_management() throws Exception {
+        assertThat(send("POST", "/users", null, "{\"login\":\"u2\",\"password\":\"p\\\"w\"}").statusCode()).isEqualTo(201);
+        assertThat(coworking.authenticateUser("u2", "p\"w").getLogin()).isEqualTo("u2");
+        assertThat(send("POST", "/users", null, "{\"login\":\"u2\",\"password\":\"x\"}").statusCode()).isEqualTo(409);
+
+        String room = "{\"type\":\"conference_room\",\"id\":\"cr002\",\"seats\":25}";
+        assertThat(send("POST", "/facilities", "u1", room).statusCode()).isEqualTo(403);
+        assertThat(send("POST", "/facilities", "admin", room).statusCode()).isEqualTo(201);
+        assertThat(((ConferenceRoom) coworking.getFacility("cr002")).getSeats()).isEqualTo(25);
+        assertThat(send("DELETE", "/facilities/cr002", "admin", null).statusCode()).isEqualTo(200);
+        assertThat(send("DELETE", "/facilities/cr002", "admin", null).statusCode()).isEqualTo(404);
+        assertThat(send("POST", "/facilities", "admin", "{\"type\":").statusCode()).isEqualTo(400);
+        assertThat(send("PUT", "/bookings", "u1", null).statusCode()).isEqualTo(405);
+    }
+
+    @Test
+    void session_token_replaces_credentials() throws Exception {
+        HttpResponse<String> opened = send("POST", "/sessions", "u1", null);
+        assertThat(opened.statusCode()).isEqualTo(201);
+        String token = JsonRequest.parseObject(opened.body()).get("token");
+        HttpRequest.Builder bookings = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/bookings"))
+                .header("Authorization", "Bearer " + token);
+
+        assertThat(client.send(bookings.GET().build(), HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+        HttpRequest close = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/sessions"))
+                .header("Authorization", "Bearer " + token).DELETE().build();
+        assertThat(client.send(close, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+        assertThat(client.send(bookings.GET().build(), HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    void paths_outside_endpoints_and_oversized_bodies_refused() throws Exception {
+        assertThat(send("GET", "/facilitiesX", "u1", null).statusCode()).isEqualTo(404);
+        assertThat(send("GET", "/bookings/anything", "u1", null).statusCode()).isEqualTo(404);
+        assertThat(send("GET", "/facilities/ws001", "u1", null).statusCode()).isEqualTo(405);
+        assertThat(send("DELETE", "/facilities/ws001/x", "admin", null).statusCode()).isEqualTo(404);
+        assertThat(send("DELETE", "/facilities/", "admin", null).statusCode()).isEqualTo(404);
+
+        String huge = "{\"login\":\"u2\",\"password\":\"" + "x".repeat(32 * 1024) + "\"}";
+        assertThat(send("POST", "/users", null, huge).statusCode()).isEqualTo(413);
+        assertThat(send("GET", "/facilities", "u1", null).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void changes_refused_once_journal_failed() throws Exception {
+        coworking.stopWrites("Changes can no longer be saved: disk full", null);
+
+        String booking = "{\"facility\": \"ws001\", \"start\": \"2024-07-07T09:00\", \"end\": \"2024-07-07T12:00\"}";
+        HttpResponse<String> refused = send("POST", "/bookings", "u1", booking);
+        assertThat(refused.statusCode()).isEqualTo(503);
+        assertThat(refused.body()).contains("disk full");
+        assertThat(send("GET", "/bookings", "u1", null).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void request_body_parsing() {
+        assertThat(JsonRequest.parseObject(" { \"a\" : \"x\\u0041\\n\", \"b\": 12, \"c\": true, \"d\": null } "))
+                .containsEntry("a", "xA\n").containsEntry("b", "12").containsEntry("c", "true").containsEntry("d", null);
+        assertThat(JsonRequest.parseObject("{}")).isEmpty();
+        assertThatThrownBy(() -> JsonRequest.parseObject("{\"a\": [1]}")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JsonRequest.parseObject("{\"a\": 1} x")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JsonRequest.parseObject("{\"a\": nope}")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void serves_thousands_of_concurrent_connections() throws Exception {
+        int connections = 2000;
+        int requestsPerConnection = 3;
+        for (int i = 0; i < 50; i++) {
+            coworking.addBooking(null, coworking.getFacility("ws001"), DATE.atTime(0, 0).plusHours(i * 2), DATE.atTime(1, 0).plusHours(i * 2));
+        }
+        byte[] request = ("GET /availability?date=" + DATE + " HTTP/1.1\r\nHost: localhost\r\nAuthorization: "
+                + basic("u1", "pwd1") + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        List<Socket> sockets = new ArrayList<>(connections);
+        ExecutorService clients = Executors.newFixedThreadPool(64);
+        AtomicInteger ok = new AtomicInteger();
+        try {
+            for (int i = 0; i < connections; i++) {
+                sockets.add(new Socket("127.0.0.1", server.getPort()));
+            }
+            List<Future<?>> done = new ArrayList<>(connections);
+            for (Socket socket : sockets) {
+                done.add(clients.submit(() -> {
+                    OutputStream out = socket.getOutputStream();
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    for (int r = 0; r < requestsPerConnection; r++) {
+                        out.write(request);
+                        out.flush();
+                        if (readResponse(in) == 200) {
+                            ok.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        assertThat(ok.get()).isEqualTo(connections * requestsPerConnection);
+    }
+
+    /**
+     * Reads one keep-alive response and returns its status.
+     */
+    private static int readResponse(BufferedReader in) throws Exception {
+        int status = Integer.parseInt(in.readLine().split(" ")[1]);
+        int length = 0;
+        for (String line = in.readLine(); !line.isEmpty(); line = in.readLine()) {
+            int colon = line.indexOf(':');
+            if (line.substring(0, colon).equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(line.substring(colon + 1).trim());
+            }
+        }
+        char[] body = new char[length];
+        int read = 0;
+        while (read < length) {
+            read += in.read(body, read, length - read);
+        }
+        assertThat(new String(body)).startsWith("{");
+        return status;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.service;
+
+import org.example.TestUtils;
+import org.example.model.*;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityCacheTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    AvailabilityCache cache;
+    Workstation workstation;
+    ConferenceRoom room;
+    User user;
+
+    @BeforeEach
+    void setUp() throws MemberAlreadyExistsException {
+        coworking = new Coworking();
+        cache = coworking.getAvailabilityCache();
+        workstation = new Workstation("ws001", "Celeron");
+        room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        user = new User("u1", "pwd1");
+        TestUtils.addFiveBookings(workstation, coworking, DATE);
+    }
+
+    private void warm(LocalDate first, LocalDate last) {
+        coworking.getAvailableBookingSlots(first, last);
+    }
+
+    @Test
+    void repeated_reads_hit_and_match_fresh_sweep() {
+        var first = coworking.getAvailableBookingSlots(DATE);
+        var second = coworking.getAvailableBookingSlots(DATE);
+
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(second).isEqualTo(first);
+        assertThat(second.get(workstation)).extracting(Booking::getStart)
+                .containsExactlyElementsOf(first.get(workstation).stream().map(Booking::getStart).toList());
+        second.get(workstation).clear();
+        assertThat(coworking.getAvailableBookingSlots(DATE).get(workstation)).isNotEmpty();
+    }
+
+    @Test
+    void booking_invalidates_only_the_dates_it_spans() {
+        warm(DATE.minusDays(3), DATE.plusDays(3));
+        assertThat(cache.size()).isEqualTo(14);
+
+        coworking.addBooking(user, room, DATE.atTime(22, 0), DATE.plusDays(2).atTime(9, 0));
+
+        assertThat(cache.size()).isEqualTo(11);
+        long misses = cache.getMisses();
+        var slots = coworking.getAvailableBookingSlots(DATE.plusDays(1));
+        assertThat(slots.get(room)).isEmpty();
+        assertThat(cache.getMisses()).isEqualTo(misses + 1);
+        assertThat(coworking.getAvailableBookingSlots(DATE.plusDays(3)).get(room)).hasSize(1);
+        assertThat(cache.getMisses()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void booking_near_midnight_invalidates_neighbouring_date() {
+        warm(DATE, DATE.plusDays(1));
+        coworking.addBooking(user, room, DATE.plusDays(1).atTime(0, 10), DATE.plusDays(1).atTime(2, 0));
+
+        assertThat(coworking.getAvailableBookingSlots(DATE).get(room))
+                .isEqualTo(room.getFreeBookingSlotsForDate(DATE, coworking.viewAllBookings()));
+        assertThat(coworking.getAvailableBookingSlots(DATE.plusDays(1)).get(room)).hasSize(1);
+    }
+
+    @Test
+    void removals_and_gap_changes_invalidate() throws MemberNotFoundException {
+        warm(DATE, DATE);
+        coworking.removeBooking(workstation, DATE.atTime(11, 0), DATE.atTime(17, 0), user);
+        assertThat(coworking.getAvailableBookingSlots(DATE).get(workstation)).hasSize(1);
+
+        workstation.setGapPolicy(GapPolicy.fixed(60));
+        assertThat(coworking.getAvailableBookingSlots(DATE).get(workstation).first().getStart())
+                .isEqualTo(DATE.atTime(7, 0));
+
+        coworking.removeFacility("ws001");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void least_recently_used_entries_evicted() {
+        AvailabilityCache small = new AvailabilityCache(2);
+        TreeSet<Booking> slots = new TreeSet<>();
+        small.put(room, DATE, slots, room.getGapPolicy(), small.version(room));
+        small.put(room, DATE.plusDays(1), slots, room.getGapPolicy(), small.version(room));
+        small.get(room, DATE);
+        small.put(room, DATE.plusDays(2), slots, room.getGapPolicy(), small.version(room));
+
+        assertThat(small.size()).isEqualTo(2);
+        assertThat(small.get(room, DATE)).isNotNull();
+        assertThat(small.get(room, DATE.plusDays(1))).isNull();
+    }
+
+    @Test
+    void slots_computed_before_a_change_not_cached() {
+        long version = cache.version(room);
+        var stale = room.getFreeBookingSlotsForDate(DATE, coworking.viewAllBookings());
+        coworking.addBooking(user, room, DATE.atTime(9, 0), DATE.atTime(10, 0));
+        cache.put(room, DATE, stale, room.getGapPolicy(), version);
+
+        assertThat(cache.get(room, DATE)).isNull();
+        assertThat(coworking.getAvailableBookingSlots(DATE).get(room)).hasSize(2);
+    }
+
+    @Test
+    void events_touch_only_their_facility_and_removal_drops_it() throws MemberNotFoundException {
+        warm(DATE, DATE.plusDays(2));
+        long version = cache.version(room);
+
+        cache.invalidate(workstation, DATE.minusYears(1), DATE.plusYears(1));
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.version(room)).isEqualTo(version);
+
+        coworking.removeFacility("cr001");
+        assertThat(cache.size()).isZero();
+        cache.put(room, DATE, new TreeSet<>(), room.getGapPolicy(), version);
+        assertThat(cache.get(room, DATE)).isNull();
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.service;
+
+import org.example.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingScheduleTest {
+    Workstation workstation;
+    User user;
+    BookingSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        workstation = new Workstation("ws001", "Celeron");
+        user = new User("u1", "pwd1");
+        schedule = new BookingSchedule(workstation);
+    }
+
+    private Booking booking(int startDay, int startHour, int endDay, int endHour) {
+        return new Booking(
+                user, workstation,
+                LocalDateTime.of(2024, 7, startDay, startHour, 0),
+                LocalDateTime.of(2024, 7, endDay, endHour, 0)
+        );
+    }
+
+    @Test
+    void non_overlapping_bookings_added_in_start_order() {
+        assertThat(schedule.add(booking(7, 15, 7, 17))).isTrue();
+        assertThat(schedule.add(booking(7, 11, 7, 13))).isTrue();
+        assertThat(schedule.add(booking(8, 9, 8, 10))).isTrue();
+        assertThat(new ArrayList<>(schedule.getBookings())).hasSize(3).isSorted();
+    }
+
+    @Test
+    void overlap_with_previous_neighbour_rejected() {
+        schedule.add(booking(7, 11, 7, 13));
+        assertThat(schedule.add(booking(7, 12, 7, 14))).isFalse();
+        assertThat(schedule.size()).isEqualTo(1);
+    }
+
+    @Test
+    void overlap_with_next_neighbour_rejected() {
+        schedule.add(booking(7, 11, 7, 13));
+        assertThat(schedule.add(booking(7, 9, 7, 11))).isFalse();
+        assertThat(schedule.size()).isEqualTo(1);
+    }
+
+    @Test
+    void booking_spanning_several_others_rejected() {
+        schedule.add(booking(7, 9, 7, 10));
+        schedule.add(booking(7, 12, 7, 13));
+        schedule.add(booking(7, 16, 7, 17));
+        var conflict = schedule.findConflict(booking(7, 8, 7, 18));
+        assertThat(conflict).isNotNull();
+        assertThat(schedule.add(booking(7, 8, 7, 18))).isFalse();
+    }
+
+    @Test
+    void between_includes_booking_started_before_range() {
+        var overnight = booking(6, 19, 7, 6);
+        schedule.add(booking(6, 11, 6, 17));
+        schedule.add(overnight);
+        schedule.add(booking(7, 11, 7, 17));
+        schedule.add(booking(8, 11, 8, 17));
+        var found = schedule.between(
+                LocalDateTime.of(2024, 7, 7, 0, 0),
+                LocalDateTime.of(2024, 7, 8, 0, 0)
+        );
+        assertThat(found).hasSize(2).first().isSameAs(overnight);
+    }
+
+    @Test
+    void find_and_remove_by_exact_times() {
+        var booking = booking(7, 11, 7, 13);
+        schedule.add(booking);
+        assertThat(schedule.find(booking.getStart(), booking.getEnd().plusMinutes(1))).isNull();
+        assertThat(schedule.find(booking.getStart(), booking.getEnd())).isSameAs(booking);
+        assertThat(schedule.remove(booking)).isTrue();
+        assertThat(schedule.isEmpty()).isTrue();
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return LocalDateTime.of(2024, 7, 7, hour, minute);
+    }
+
+    @Test
+    void rejected_booking_explained_with_all_conflicts_and_nearest_slots() {
+        schedule.add(booking(7, 9, 7, 10));
+        schedule.add(booking(7, 11, 7, 12));
+        schedule.add(booking(7, 13, 7, 14));
+
+        BookingResult spanning = schedule.book(booking(7, 9, 7, 14));
+
+        assertThat(spanning.getStatus()).isEqualTo(BookingResult.Status.CONFLICT);
+        assertThat(spanning.getConflicts()).extracting(Booking::getStart).containsExactly(at(9, 0), at(11, 0), at(13, 0));
+        assertThat(spanning.getFreeBefore()).extracting(Booking::getStart, Booking::getEnd).containsExactly(at(3, 45), at(8, 45));
+        assertThat(spanning.getFreeAfter()).extracting(Booking::getStart, Booking::getEnd).containsExactly(at(14, 15), at(19, 15));
+
+        BookingResult squeezed = schedule.book(booking(7, 10, 7, 11));
+
+        assertThat(squeezed.getConflicts()).extracting(Booking::getStart).containsExactly(at(9, 0), at(11, 0));
+        assertThat(squeezed.getFreeBefore().getStart()).isEqualTo(at(7, 45));
+        assertThat(squeezed.getFreeAfter().getStart()).isEqualTo(at(14, 15));
+        assertThat(schedule.size()).isEqualTo(3);
+        assertThat(schedule.book(squeezed.getFreeAfter()).isBooked()).isTrue();
+        assertThat(schedule.size()).isEqualTo(4);
+    }
+
+    @Test
+    void recurring_occurrences_explained_and_stepped_over() {
+        schedule.addRecurring(new RecurringBooking(user, workstation, new Recurrence(
+                EnumSet.allOf(DayOfWeek.class), LocalTime.of(12, 0), LocalTime.of(13, 0),
+                LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 31))));
+        schedule.add(booking(7, 14, 7, 15));
+
+        BookingResult result = schedule.book(booking(7, 12, 7, 14));
+
+        assertThat(result.getConflicts()).extracting(Booking::getStart).containsExactly(at(12, 0), at(14, 0));
+        assertThat(result.getFreeBefore().getStart()).isEqualTo(at(9, 45));
+        assertThat(result.getFreeAfter().getStart()).isEqualTo(at(15, 15));
+    }
+
+    @Test
+    void booking_before_closed_time_offered_the_first_slot_after() {
+        schedule.add(booking(7, 13, 7, 14));
+        schedule.closeBefore(at(12, 0));
+
+        BookingResult result = schedule.book(booking(7, 9, 7, 11));
+
+        assertThat(result.getStatus()).isEqualTo(BookingResult.Status.CLOSED);
+        assertThat(result.getConflicts()).isEmpty();
+        assertThat(result.getFreeBefore()).isNull();
+        assertThat(result.getFreeAfter().getStart()).isEqualTo(at(14, 15));
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.service;
+
+import org.example.model.Booking;
+import org.example.model.Facility;
+import org.example.model.Recurrence;
+import org.example.model.User;
+import org.example.model.Workstation;
+import org.example.utils.MemberAlreadyExistsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoworkingConcurrencyTest {
+    static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        coworking = new Coworking();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private List<Facility> addWorkstations(int count) throws MemberAlreadyExistsException {
+        List<Facility> facilities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Facility facility = new Workstation("ws" + i, "Celeron");
+            coworking.addFacility(facility);
+            facilities.add(facility);
+        }
+        return facilities;
+    }
+
+    @Test
+    void racing_for_same_slot_has_exactly_one_winner() throws Exception {
+        Facility facility = addWorkstations(1).get(0);
+        for (int round = 0; round < 50; round++) {
+            var start = LocalDateTime.of(DATE, LocalTime.of(8, 0)).plusDays(round);
+            var end = start.plusHours(2);
+            CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                User user = new User("u" + t, "pwd");
+                attempts.add(executor.submit(() -> {
+                    barrier.await();
+                    return coworking.addBooking(user, facility, start, end);
+                }));
+            }
+            int winners = 0;
+            for (var attempt : attempts) {
+                if (attempt.get(10, TimeUnit.SECONDS)) winners++;
+            }
+            assertThat(winners).isEqualTo(1);
+        }
+        assertThat(coworking.viewAllBookings()).hasSize(50);
+    }
+
+    @Test
+    void overlapping_racers_never_leave_overlaps_behind() throws Exception {
+        Facility facility = addWorkstations(1).get(0);
+        var base = LocalDateTime.of(DATE, LocalTime.MIN);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            var start = base.plusMinutes(ThreadLocalRandom.current().nextInt(0, 30 * 24 * 60));
+            var end = start.plusMinutes(ThreadLocalRandom.current().nextInt(30, 240));
+            tasks.add(() -> coworking.addBooking(null, facility, start, end));
+        }
+        executor.invokeAll(tasks);
+        var bookings = new ArrayList<>(coworking.viewAllBookings());
+        bookings.sort(null);
+        for (int i = 1; i < bookings.size(); i++) {
+            assertThat(bookings.get(i - 1).isOverlapping(bookings.get(i))).isFalse();
+        }
+    }
+
+    @Test
+    void readers_see_consistent_schedules_while_writers_book() throws Exception {
+        List<Facility> facilities = addWorkstations(8);
+        User user = new User("u1", "pwd1");
+        AtomicInteger failures = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int writer = t;
+            tasks.add(() -> {
+                for (int i = 0; i < 500; i++) {
+                    Facility facility = facilities.get((writer + i) % facilities.size());
+                    var start = LocalDateTime.of(DATE, LocalTime.of(i % 24, 0));
+                    coworking.addBooking(user, facility, start, start.plusMinutes(40));
+                    if (i % 3 == 0) {
+                        try {
+                            coworking.removeBooking(facility, start, start.plusMinutes(40), user);
+                        } catch (NoSuchElementException ignored) {}
+                    }
+                }
+                return null;
+            });
+            tasks.add(() -> {
+                for (int i = 0; i < 200; i++) {
+                    coworking.getAvailableBookingSlots(DATE).values().forEach(slots -> {
+                        Booking previous = null;
+                        for (Booking slot : slots) {
+                            if (previous != null && previous.getEnd().isAfter(slot.getStart())) {
+                                failures.incrementAndGet();
+                            }
+                            previous = slot;
+                        }
+                    });
+                    coworking.viewAllFacilities();
+                }
+                return null;
+            });
+        }
+        for (var result : executor.invokeAll(tasks)) {
+            result.get();
+        }
+        assertThat(failures.get()).isZero();
+    }
+
+    @Test
+    void user_index_keeps_bookings_added_while_another_facility_removes() throws Exception {
+        List<Facility> facilities = addWorkstations(2);
+        User user = new User("u1", "pwd1");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Facility facility : facilities) {
+            tasks.add(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    var start = LocalDateTime.of(DATE, LocalTime.MIN).plusHours(i);
+                    coworking.addBooking(user, facility, start, start.plusMinutes(30));
+                    if (i % 2 == 1) {
+                        coworking.removeBooking(facility, start, start.plusMinutes(30), user);
+                    }
+                }
+                return null;
+            });
+        }
+        for (var result : executor.invokeAll(tasks)) {
+            result.get();
+        }
+        assertThat(new ArrayList<>(coworking.viewUserBookings("u1")))
+                .hasSize(2_000)
+                .containsExactlyInAnyOrderElementsOf(coworking.viewAllBookings());
+    }
+
+    @Test
+    void bookings_racing_facility_removal_leave_nothing_behind() throws Exception {
+        var start = LocalDateTime.of(DATE, LocalTime.of(9, 0));
+        var weekly = new Recurrence(EnumSet.of(DATE.getDayOfWeek()), LocalTime.of(12, 0), LocalTime.of(13, 0),
+                DATE, DATE.plusMonths(1));
+        for (int round = 0; round < 200; round++) {
+            Facility facility = addWorkstations(1).get(0);
+            CyclicBarrier barrier = new CyclicBarrier(4);
+            List<Callable<Object>> tasks = List.of(
+                    () -> {
+                        barrier.await();
+                        return coworking.removeFacility(facility.getIdNumber());
+                    },
+                    () -> {
+                        barrier.await();
+                        return coworking.book(null, facility, start, start.plusHours(1));
+                    },
+                    () -> {
+                        barrier.await();
+                        return coworking.addRecurringBooking(null, facility, weekly);
+                    },
+                    () -> {
+                        barrier.await();
+                        return coworking.addBookings(List.of(new Booking(null, facility, start.plusDays(1), start.plusDays(1).plusHours(1))));
+                    }
+            );
+            for (var result : executor.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class)
+                            .hasMessageContaining("is not registered");
+                }
+            }
+            assertThat(coworking.viewAllBookings()).isEmpty();
+            assertThat(coworking.viewRecurringBookings()).isEmpty();
+            assertThat(coworking.viewAllFacilities()).isEmpty();
+        }
+        assertThatThrownBy(() -> coworking.addBooking(null, new Workstation("ws0", "Celeron"), start, start.plusHours(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
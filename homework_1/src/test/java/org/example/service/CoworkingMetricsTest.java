@@ -0,0 +1,135 @@
+package org.example.service;
+
+import org.example.model.Facility;
+import org.example.model.User;
+import org.example.model.Workstation;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.WrongPasswordException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CoworkingMetricsTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    CoworkingMetrics metrics;
+    Facility workstation;
+    User user;
+
+    @BeforeEach
+    void setUp() throws MemberAlreadyExistsException {
+        coworking = new Coworking();
+        metrics = coworking.getMetrics();
+        workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
+        coworking.registerNewUser("u1", "pwd1");
+        user = coworking.viewAllUsers().iterator().next();
+    }
+
+    private void exercise() throws MemberNotFoundException, WrongPasswordException {
+        coworking.addBooking(user, workstation, DATE.atTime(9, 0), DATE.atTime(10, 0));
+        coworking.addBooking(user, workstation, DATE.atTime(9, 30), DATE.atTime(11, 0));
+        coworking.getAvailableBookingSlots(DATE);
+        coworking.authenticateUser("u1", "pwd1");
+        coworking.removeBooking(workstation, DATE.atTime(9, 0), DATE.atTime(10, 0), user);
+    }
+
+    @Test
+    void nothing_recorded_while_disabled() throws MemberNotFoundException, WrongPasswordException {
+        exercise();
+
+        for (CoworkingMetrics.Operation operation : CoworkingMetrics.Operation.values()) {
+            assertThat(metrics.getCalls(operation)).isZero();
+            assertThat(metrics.getLatency(operation).getCount()).isZero();
+        }
+        assertThat(metrics.getBookingConflicts()).isZero();
+    }
+
+    @Test
+    void operations_and_conflicts_recorded_while_enabled() throws MemberNotFoundException, WrongPasswordException {
+        metrics.setEnabled(true);
+        metrics.setSamplingInterval(1);
+
+        exercise();
+
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.ADD_BOOKING).getCount()).isEqualTo(2);
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.REMOVE_BOOKING).getCount()).isEqualTo(1);
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.AUTHENTICATE_USER).getCount()).isEqualTo(1);
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.AVAILABLE_SLOTS).getCount()).isEqualTo(1);
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.ADD_BOOKING).getMax()).isPositive();
+        assertThat(metrics.getBookingConflicts()).isEqualTo(1);
+        assertThat(metrics.getSizes()).containsEntry("users", 1L).containsEntry("facilities", 1L)
+                .containsEntry("scheduledBookings", 0L);
+        assertThat(metrics.getCalls()).containsEntry("addBooking", 2L).containsEntry("getAvailableBookingSlots", 1L);
+        assertThat(metrics.dump()).contains("addBooking", "calls=2 timed=2", "bookingConflicts=1", "users=1");
+
+        metrics.reset();
+
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.ADD_BOOKING).getCount()).isZero();
+        assertThat(metrics.getBookingConflicts()).isZero();
+    }
+
+    @Test
+    void every_call_counted_but_only_samples_timed() {
+        metrics.setEnabled(true);
+        metrics.setSamplingInterval(8);
+
+        for (int i = 0; i < 800; i++) {
+            coworking.getAvailableBookingSlots(DATE);
+        }
+
+        assertThat(metrics.getCalls(CoworkingMetrics.Operation.AVAILABLE_SLOTS)).isEqualTo(800);
+        assertThat(metrics.getLatency(CoworkingMetrics.Operation.AVAILABLE_SLOTS).getCount()).isBetween(40L, 200L);
+        assertThatThrownBy(() -> metrics.setSamplingInterval(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void histogram_percentiles_within_bucket_precision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 25);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertThat(histogram.getCount()).isEqualTo(values.length);
+        assertThat(histogram.getMax()).isEqualTo(values[values.length - 1]);
+        for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            assertThat((double) histogram.getPercentile(quantile)).isCloseTo(exact, within(exact * 0.04 + 1));
+        }
+        assertThat(LatencyHistogram.highestInBucket(LatencyHistogram.bucket(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void published_over_jmx() throws Exception {
+        metrics.setEnabled(true);
+        coworking.addBooking(user, workstation, DATE.atTime(9, 0), DATE.atTime(10, 0));
+        metrics.registerMBeans("metrics-test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("org.example:type=Coworking,name=\"metrics-test\"");
+
+            assertThat(server.getAttribute(name, "Enabled")).isEqualTo(true);
+            assertThat(server.getAttribute(name, "BookingConflicts")).isEqualTo(0L);
+            assertThat(server.getAttribute(name, "SamplingInterval")).isEqualTo(CoworkingMetrics.DEFAULT_SAMPLING_INTERVAL);
+            assertThat(server.getAttribute(new ObjectName(name + ",operation=addBooking"), "Count")).isIn(0L, 1L);
+        } finally {
+            metrics.unregisterMBeans();
+        }
+    }
+}
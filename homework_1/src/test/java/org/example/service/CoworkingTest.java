@@ -8,12 +8,22 @@ import org.example.utils.WrongPasswordException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.BDDAssertions.thenNoException;
@@ -176,10 +186,12 @@ class CoworkingTest {
     }
 
     @Test
-    void addBooking() {
+    void addBooking() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         Workstation workstation = new Workstation("ws001", "Celeron");
         ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
         var start = LocalDateTime.of(2024, 7, 1, 11, 0);
         var end = LocalDateTime.of(2024, 7, 1, 17, 0);
         var expectedBooking1 = new Booking(user, workstation, start, end);
@@ -191,10 +203,12 @@ class CoworkingTest {
     }
 
     @Test
-    void whole_day_bookings_added() {
+    void whole_day_bookings_added() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         Workstation workstation = new Workstation("ws001", "Celeron");
         ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
         var start = LocalDateTime.of(2024, 7, 7, 0, 0);
         var end = LocalDateTime.of(2024, 7, 7, 23, 59);
         coworking.addBooking(user, workstation, start, end);
@@ -203,9 +217,10 @@ class CoworkingTest {
     }
 
     @Test
-    void overlapping_booking_not_added() {
+    void overlapping_booking_not_added() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
         var start1 = LocalDateTime.of(2024, 7, 1, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 1, 17, 0);
         var start2 = LocalDateTime.of(2024, 7, 1, 12, 0);
@@ -222,9 +237,10 @@ class CoworkingTest {
     }
 
     @Test
-    void same_start_same_end_not_added() {
+    void same_start_same_end_not_added() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
         var start1 = LocalDateTime.of(2024, 7, 1, 11, 0);
         var end1 = LocalDateTime.of(2024, 7, 1, 17, 0);
         var booking1 = new Booking(user, workstation, start1, end1);
@@ -238,10 +254,12 @@ class CoworkingTest {
     }
 
     @Test
-    void removeBooking() {
+    void removeBooking() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         Workstation workstation = new Workstation("ws001", "Celeron");
         ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
         var start = LocalDateTime.of(2024, 7, 1, 11, 0);
         var end = LocalDateTime.of(2024, 7, 1, 17, 0);
         var workstationBooking = new Booking(user, workstation, start, end);
@@ -254,10 +272,11 @@ class CoworkingTest {
     }
 
     @Test
-    void wrong_user_cant_remove_booking() {
+    void wrong_user_cant_remove_booking() throws MemberAlreadyExistsException {
         User user1 = new User("u1", "pwd1");
         User user2 = new User("u2", "pwd2");
         Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
         var start = LocalDateTime.of(2024, 7, 1, 11, 0);
         var end = LocalDateTime.of(2024, 7, 1, 17, 0);
         var workstationBooking = new Booking(user1, workstation, start, end);
@@ -269,11 +288,13 @@ class CoworkingTest {
     }
 
     @Test
-    void admin_can_remove_others_booking() {
+    void admin_can_remove_others_booking() throws MemberAlreadyExistsException {
         User user = new User("u1", "pwd1");
         User admin = new User("adm1", "apwd1", true);
         Workstation workstation = new Workstation("ws001", "Celeron");
         ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
         var start = LocalDateTime.of(2024, 7, 1, 11, 0);
         var end = LocalDateTime.of(2024, 7, 1, 17, 0);
         var workstationBooking = new Booking(user, workstation, start, end);
@@ -312,4 +333,426 @@ class CoworkingTest {
         freeSlots.values().forEach(System.out::println);
     }
 
-}
\ No newline at end of file
+    @Test
+    void multi_day_booking_blocks_every_spanned_date() throws MemberAlreadyExistsException {
+        User user = new User("u2", "pwd2");
+        Workstation workstation = new Workstation("ws003", "Core i7");
+        coworking.addFacility(workstation);
+        for (int month = 1; month <= 6; month++) {
+            coworking.addBooking(user, workstation,
+                    LocalDateTime.of(2024, month, 7, 11, 0), LocalDateTime.of(2024, month, 7, 13, 0));
+        }
+        coworking.addBooking(user, workstation,
+                LocalDateTime.of(2024, 7, 7, 11, 0), LocalDateTime.of(2024, 7, 9, 17, 0));
+        assertThat(coworking.getAvailableBookingSlots(LocalDate.of(2024, 7, 8)).get(workstation)).isEmpty();
+        var lastDay = coworking.getAvailableBookingSlots(LocalDate.of(2024, 7, 9)).get(workstation);
+        assertThat(lastDay).hasSize(1);
+        assertThat(lastDay.first().getStart()).isEqualTo(LocalDateTime.of(2024, 7, 9, 17, 15));
+        var firstDay = coworking.getAvailableBookingSlots(LocalDate.of(2024, 7, 7)).get(workstation);
+        assertThat(firstDay).hasSize(1);
+        assertThat(firstDay.first().getEnd()).isEqualTo(LocalDateTime.of(2024, 7, 7, 10, 45));
+    }
+
+    @Test
+    void range_availability_matches_single_days() throws MemberAlreadyExistsException {
+        LocalDate date = LocalDate.of(2024, 7, 7);
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 17);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        TestUtils.addFiveBookings(workstation, coworking, date);
+        coworking.addBooking(null, room, date.atTime(23, 50), date.plusDays(1).atTime(0, 5));
+
+        var range = coworking.getAvailableBookingSlots(date.minusDays(2), date.plusDays(2));
+
+        assertThat(range.keySet()).containsExactly(
+                date.minusDays(2), date.minusDays(1), date, date.plusDays(1), date.plusDays(2)
+        );
+        range.forEach((day, slots) -> assertThat(slots).isEqualTo(coworking.getAvailableBookingSlots(day)));
+        assertThat(range.get(date.plusDays(1)).get(room).first().getStart()).isEqualTo(date.plusDays(1).atTime(0, 20));
+        assertThat(coworking.getAvailableBookingSlots(date, date.minusDays(1))).isEmpty();
+    }
+
+    @Test
+    void remove_booking_by_exact_times_only() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
+        var start = LocalDateTime.of(2024, 7, 1, 11, 0);
+        var end = LocalDateTime.of(2024, 7, 1, 17, 0);
+        coworking.addBooking(user, workstation, start, end);
+        assertThatThrownBy(() -> coworking.removeBooking(workstation, start, end.minusHours(1), user))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> coworking.removeBooking(new Workstation("ws002", "Celeron"), start, end, user))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThat(coworking.viewAllBookings()).hasSize(1);
+    }
+
+    @Test
+    void removeUserBookings() throws MemberAlreadyExistsException {
+        User user1 = new User("u1", "pwd1");
+        User user2 = new User("u2", "pwd2");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        var start = LocalDateTime.of(2024, 7, 1, 11, 0);
+        coworking.addBooking(user1, workstation, start, start.plusHours(2));
+        coworking.addBooking(user1, room, start, start.plusHours(2));
+        coworking.addBooking(user2, room, start.plusDays(1), start.plusDays(1).plusHours(2));
+        assertThat(coworking.removeUserBookings(user1)).isEqualTo(2);
+        assertThat(coworking.viewAllBookings()).hasSize(1)
+                .allMatch(booking -> booking.getUser().equals(user2));
+    }
+
+    @Test
+    void removed_user_bookings_removed() throws MemberAlreadyExistsException, MemberNotFoundException,
+            WrongPasswordException {
+        coworking.registerNewUser("u1", "pwd1");
+        User user = coworking.getUser("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
+        var start = LocalDateTime.of(2024, 7, 1, 11, 0);
+        coworking.addBooking(user, workstation, start, start.plusHours(2));
+        coworking.removeUser("u1", "pwd1");
+        assertThat(coworking.viewAllBookings()).isEmpty();
+    }
+
+    @Test
+    void removed_facility_bookings_removed() throws MemberAlreadyExistsException, MemberNotFoundException {
+        User user = new User("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 7);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        TestUtils.addFiveBookings(workstation, coworking, LocalDate.of(2024, 7, 7));
+        TestUtils.addFiveBookings(room, coworking, LocalDate.of(2024, 7, 7));
+        coworking.removeFacility("cr001");
+        assertThat(coworking.viewAllBookings()).hasSize(5)
+                .allMatch(booking -> booking.getFacility() == workstation);
+    }
+
+    @Test
+    void remove_bookings_in_time_range() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        User admin = new User("adm1", "apwd1", true);
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 7);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        LocalDate date = LocalDate.of(2024, 7, 7);
+        TestUtils.addFiveBookings(workstation, coworking, date);
+        TestUtils.addFiveBookings(room, coworking, date);
+        assertThatThrownBy(() -> coworking.removeBookings(date.atStartOfDay(), date.plusDays(1).atStartOfDay(), user))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(coworking.removeBookings(date.atStartOfDay(), date.plusDays(1).atStartOfDay(), admin))
+                .isEqualTo(6);
+        assertThat(coworking.viewAllBookings()).hasSize(4);
+    }
+
+    @Test
+    void viewUserBookings_sorted_and_paged() throws MemberAlreadyExistsException {
+        User user1 = new User("u1", "pwd1");
+        User user2 = new User("u2", "pwd2");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        var start = LocalDateTime.of(2024, 7, 1, 11, 0);
+        for (int day = 4; day >= 0; day--) {
+            coworking.addBooking(user1, workstation, start.plusDays(day), start.plusDays(day).plusHours(2));
+            coworking.addBooking(user2, room, start.plusDays(day), start.plusDays(day).plusHours(2));
+        }
+        assertThat(new ArrayList<>(coworking.viewUserBookings("u1"))).hasSize(5).isSorted()
+                .allMatch(booking -> booking.getUser().equals(user1));
+        var page = coworking.viewUserBookings("u1", start.plusDays(1), start.plusDays(4), 1, 10);
+        assertThat(page).extracting(Booking::getStart)
+                .containsExactly(start.plusDays(2), start.plusDays(3));
+        assertThat(coworking.viewUserBookings("u1", start, start.plusDays(5), 0, 2)).hasSize(2);
+        coworking.removeBooking(workstation, start, start.plusHours(2), user1);
+        assertThat(coworking.viewUserBookings("u1")).hasSize(4);
+        assertThat(coworking.viewUserBookings("nobody")).isEmpty();
+    }
+
+    @Test
+    void viewUserBookings_window_includes_bookings_started_before_it() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 35);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        var start = LocalDateTime.of(2024, 7, 1, 11, 0);
+        for (int day = 0; day < 100; day++) {
+            coworking.addBooking(user, workstation, start.plusDays(day), start.plusDays(day).plusHours(1));
+        }
+        coworking.addBooking(user, room, start.plusDays(40), start.plusDays(52));
+        var page = coworking.viewUserBookings("u1", start.plusDays(50), start.plusDays(52), 0, 10);
+        assertThat(page).extracting(Booking::getStart)
+                .containsExactly(start.plusDays(40), start.plusDays(50), start.plusDays(51));
+        assertThat(coworking.viewUserBookings("u1", start.plusDays(53), start.plusDays(60), 2, 2))
+                .extracting(Booking::getStart)
+                .containsExactly(start.plusDays(55), start.plusDays(56));
+    }
+
+    @Test
+    void views_are_live_and_read_only() throws MemberAlreadyExistsException, MemberNotFoundException {
+        User user = new User("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        var bookings = coworking.viewAllBookings();
+        var facilities = coworking.viewAllFacilities();
+        assertThat(coworking.viewAllBookings()).isSameAs(bookings);
+        assertThat(coworking.viewAllFacilities()).isSameAs(facilities);
+        coworking.addFacility(workstation);
+        TestUtils.addFiveBookings(workstation, coworking, LocalDate.of(2024, 7, 7));
+        assertThat(facilities).containsExactly(workstation);
+        assertThat(bookings).hasSize(5);
+        var start = LocalDateTime.of(2024, 7, 7, 12, 0);
+        assertThat(bookings.contains(new Booking(user, workstation, start, start.plusHours(1)))).isTrue();
+        assertThatThrownBy(() -> bookings.add(new Booking(user, workstation, start, start.plusHours(1))))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(bookings::clear).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> facilities.remove(workstation)).isInstanceOf(UnsupportedOperationException.class);
+        coworking.removeFacility("ws001");
+        assertThat(facilities).isEmpty();
+        assertThat(bookings).isEmpty();
+    }
+
+    @Test
+    void recurring_batch_booked_as_a_whole() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(room);
+        var recurrence = new Recurrence(
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), LocalTime.of(10, 0), LocalTime.of(11, 0),
+                LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 14)
+        );
+        var result = coworking.addBookings(user, room, recurrence);
+        assertThat(result.isCommitted()).isTrue();
+        assertThat(result.getItems()).hasSize(10)
+                .allMatch(item -> item.getStatus() == BatchBookingResult.Status.BOOKED);
+        assertThat(coworking.viewAllBookings()).hasSize(10);
+        assertThat(coworking.viewUserBookings("u1")).extracting(Booking::getStart)
+                .doesNotContain(LocalDateTime.of(2024, 7, 6, 10, 0), LocalDateTime.of(2024, 7, 7, 10, 0));
+    }
+
+    @Test
+    void batch_with_conflict_adds_nothing() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        var day = LocalDate.of(2024, 7, 1);
+        coworking.addBooking(user, workstation, day.atTime(12, 0), day.atTime(13, 0));
+        var requests = List.of(
+                new Booking(user, room, day.atTime(9, 0), day.atTime(10, 0)),
+                new Booking(user, workstation, day.atTime(13, 10), day.atTime(14, 0)),
+                new Booking(user, room, day.atTime(9, 30), day.atTime(11, 0)),
+                new Booking(user, workstation, day.atTime(8, 0), day.atTime(9, 0))
+        );
+        var result = coworking.addBookings(requests);
+        assertThat(result.isCommitted()).isFalse();
+        assertThat(result.getItems()).extracting(BatchBookingResult.Item::getBooking).containsExactlyElementsOf(requests);
+        assertThat(result.getItems()).extracting(BatchBookingResult.Item::getStatus).containsExactly(
+                BatchBookingResult.Status.NOT_BOOKED,
+                BatchBookingResult.Status.CONFLICT,
+                BatchBookingResult.Status.BATCH_CONFLICT,
+                BatchBookingResult.Status.NOT_BOOKED
+        );
+        assertThat(result.getItems().get(1).getConflict().getStart()).isEqualTo(day.atTime(12, 0));
+        assertThat(result.getItems().get(2).getConflict()).isSameAs(requests.get(0));
+        assertThat(coworking.viewAllBookings()).hasSize(1);
+    }
+
+    @Test
+    void batch_merge_pass_matches_single_checks() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
+        var start = LocalDateTime.of(2024, 7, 1, 0, 0);
+        for (int hour = 0; hour < 48; hour += 3) {
+            coworking.addBooking(user, workstation, start.plusHours(hour), start.plusHours(hour + 1));
+        }
+        List<Booking> requests = new ArrayList<>();
+        for (int minute = 0; minute < 48 * 60; minute += 50) {
+            requests.add(new Booking(user, workstation, start.plusMinutes(minute), start.plusMinutes(minute + 20)));
+        }
+        var items = coworking.addBookings(requests).getItems();
+        for (var item : items) {
+            boolean clashes = coworking.viewAllBookings().stream().anyMatch(item.getBooking()::isOverlapping);
+            assertThat(item.getStatus() == BatchBookingResult.Status.CONFLICT).isEqualTo(clashes);
+        }
+        assertThat(coworking.viewAllBookings()).hasSize(16);
+    }
+
+    @Test
+    void recurring_booking_blocks_occurrences_only() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(room);
+        var monday = LocalDate.of(2024, 7, 1);
+        var recurrence = new Recurrence(
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), LocalTime.of(10, 0), LocalTime.of(11, 0),
+                monday, monday.plusYears(1)
+        );
+        coworking.addBooking(user, room, monday.plusDays(2).atTime(10, 45), monday.plusDays(2).atTime(12, 0));
+        assertThat(coworking.addRecurringBooking(user, room, recurrence)).isFalse();
+        coworking.removeBooking(room, monday.plusDays(2).atTime(10, 45), monday.plusDays(2).atTime(12, 0), user);
+        assertThat(coworking.addRecurringBooking(user, room, recurrence)).isTrue();
+
+        var thursday = monday.plusWeeks(30).plusDays(3);
+        assertThat(coworking.addBooking(user, room, thursday.atTime(9, 0), thursday.atTime(9, 50))).isFalse();
+        assertThat(coworking.addBooking(user, room, thursday.atTime(11, 15), thursday.atTime(12, 0))).isTrue();
+        assertThat(coworking.addBooking(user, room, monday.plusDays(5).atTime(10, 0), monday.plusDays(5).atTime(11, 0)))
+                .isTrue();
+        assertThat(coworking.viewAllBookings().contains(new Booking(user, room, thursday.atTime(10, 30), thursday.atTime(10, 40))))
+                .isTrue();
+        assertThat(coworking.addRecurringBooking(user, room, new Recurrence(
+                EnumSet.of(DayOfWeek.WEDNESDAY), LocalTime.of(10, 30), LocalTime.of(12, 0), monday.plusWeeks(50), monday.plusWeeks(60)
+        ))).isFalse();
+        var batch = coworking.addBookings(List.of(new Booking(user, room, thursday.plusDays(7).atTime(10, 50), thursday.plusDays(7).atTime(12, 0))));
+        assertThat(batch.getItems().get(0).getStatus()).isEqualTo(BatchBookingResult.Status.CONFLICT);
+        assertThat(batch.getItems().get(0).getConflict().getStart()).isEqualTo(thursday.plusDays(7).atTime(10, 0));
+    }
+
+    @Test
+    void recurring_booking_expanded_for_queried_window() throws MemberAlreadyExistsException {
+        User user = new User("u1", "pwd1");
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(room);
+        var monday = LocalDate.of(2024, 7, 1);
+        coworking.addRecurringBooking(user, room, new Recurrence(
+                EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), LocalTime.of(10, 0), LocalTime.of(11, 0),
+                monday, monday.plusYears(5)
+        ));
+        var wednesday = monday.plusWeeks(100).plusDays(2);
+        assertThat(coworking.getAvailableBookingSlots(wednesday).get(room)).extracting(Booking::getStart, Booking::getEnd)
+                .containsExactly(
+                        tuple(wednesday.atStartOfDay(), wednesday.atTime(9, 45)),
+                        tuple(wednesday.atTime(11, 15), wednesday.atTime(LocalTime.MAX))
+                );
+        assertThat(coworking.getAvailableBookingSlots(wednesday.plusDays(1)).get(room)).hasSize(1);
+        var slots = coworking.findAvailableSlots(new SlotQuery(wednesday.atTime(9, 0), Duration.ofHours(1), 1));
+        assertThat(slots).extracting(Booking::getStart).containsExactly(wednesday.atTime(11, 15));
+        assertThat(coworking.viewAllBookings()).isEmpty();
+        assertThat(coworking.viewRecurringBookings()).hasSize(1);
+        assertThat(coworking.viewUserRecurringBookings("u1")).hasSize(1);
+
+        var rule = coworking.viewRecurringBookings().get(0);
+        assertThatThrownBy(() -> coworking.removeRecurringBooking(rule, new User("u2", "pwd2")))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(coworking.removeRecurringBooking(rule, user)).isTrue();
+        assertThat(coworking.getAvailableBookingSlots(wednesday).get(room)).hasSize(1);
+        assertThat(coworking.viewRecurringBookings()).isEmpty();
+    }
+
+    private static Coworking campus(int facilities, long seed) throws MemberAlreadyExistsException {
+        Coworking campus = new Coworking();
+        Random random = new Random(seed);
+        var origin = LocalDate.of(2024, 7, 1).atStartOfDay();
+        for (int i = 0; i < facilities; i++) {
+            Facility facility = i % 5 == 0 ? new ConferenceRoom(String.format("cr%04d", i), 10) : new Workstation(String.format("ws%04d", i), "");
+            campus.addFacility(facility);
+            var start = origin.plusMinutes(random.nextInt(600));
+            for (int j = 0; j < 20; j++) {
+                var end = start.plusMinutes(30 + random.nextInt(300));
+                campus.addBooking(null, facility, start, end);
+                start = end.plusMinutes(15 + random.nextInt(300));
+            }
+        }
+        return campus;
+    }
+
+    private static List<String> describe(Map<Facility, TreeSet<Booking>> slots) {
+        return slots.entrySet().stream()
+                .map(entry -> entry.getKey().getIdNumber() + entry.getValue().stream()
+                        .map(slot -> slot.getStart() + "-" + slot.getEnd()).toList())
+                .toList();
+    }
+
+    @Test
+    void parallel_availability_matches_sequential() throws MemberAlreadyExistsException {
+        Coworking sequential = campus(300, 7);
+        Coworking parallel = campus(300, 7);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.setParallelAvailability(pool, 100);
+            var date = LocalDate.of(2024, 7, 2);
+
+            assertThat(describe(parallel.getAvailableBookingSlots(date)))
+                    .containsExactlyElementsOf(describe(sequential.getAvailableBookingSlots(date)));
+            var parallelWeek = parallel.getAvailableBookingSlots(date.minusDays(1), date.plusDays(5));
+            var sequentialWeek = sequential.getAvailableBookingSlots(date.minusDays(1), date.plusDays(5));
+            assertThat(parallelWeek.keySet()).containsExactlyElementsOf(sequentialWeek.keySet());
+            sequentialWeek.forEach((day, slots) ->
+                    assertThat(describe(parallelWeek.get(day))).containsExactlyElementsOf(describe(slots)));
+        } finally {
+            pool.shutdown();
+        }
+        assertThatThrownBy(() -> parallel.setParallelAvailability(pool, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void gap_policies_by_type_and_by_facility() throws MemberAlreadyExistsException {
+        var date = LocalDate.of(2024, 7, 1);
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        Workstation workstation = new Workstation("ws001", "");
+        coworking.addFacility(room);
+        coworking.addFacility(workstation);
+        coworking.addBooking(null, workstation, date.atTime(9, 0), date.atTime(10, 0));
+        coworking.addBooking(null, room, date.atTime(9, 0), date.atTime(10, 0));
+        coworking.addBooking(null, room, date.atTime(10, 30), date.atTime(11, 0));
+
+        List<GapViolation> violations = coworking.setGapPolicy(ConferenceRoom.class, GapPolicy.fixed(45));
+
+        assertThat(violations).singleElement().satisfies(violation -> {
+            assertThat(violation.getEarlier().getStart()).isEqualTo(date.atTime(9, 0));
+            assertThat(violation.getLater().getStart()).isEqualTo(date.atTime(10, 30));
+            assertThat(violation.getRequiredGap()).isEqualTo(45);
+            assertThat(violation.getActualGap()).isEqualTo(30);
+        });
+        assertThat(coworking.setGapPolicy(Workstation.class, GapPolicy.fixed(0))).isEmpty();
+        assertThat(coworking.addBooking(null, workstation, date.atTime(10, 0), date.atTime(11, 0))).isTrue();
+        assertThat(coworking.addBooking(null, room, date.atTime(11, 30), date.atTime(12, 0))).isFalse();
+        assertThat(coworking.addBooking(null, room, date.atTime(11, 45), date.atTime(12, 0))).isTrue();
+
+        ConferenceRoom added = new ConferenceRoom("cr002", 4);
+        coworking.addFacility(added);
+        assertThat(added.getGapPolicy()).isSameAs(room.getGapPolicy());
+
+        assertThat(coworking.setGapPolicy(room, GapPolicy.fixed(15))).isEmpty();
+        coworking.setGapPolicy(ConferenceRoom.class, GapPolicy.fixed(60));
+        assertThat(room.getGapPolicy().maxGap()).isEqualTo(15);
+        assertThat(added.getGapPolicy().maxGap()).isEqualTo(60);
+        coworking.setGapPolicy(room, null);
+        assertThat(room.getGapPolicy().maxGap()).isEqualTo(60);
+    }
+
+    @Test
+    void time_of_day_gaps_shape_free_slots() throws MemberAlreadyExistsException {
+        var date = LocalDate.of(2024, 7, 1);
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(room);
+        coworking.addBooking(null, room, date.atTime(9, 0), date.atTime(10, 0));
+        coworking.addBooking(null, room, date.atTime(19, 0), date.atTime(20, 0));
+        coworking.getAvailableBookingSlots(date);
+
+        coworking.setGapPolicy(room, GapPolicy.byTimeOfDay(new TreeMap<>(Map.of(
+                LocalTime.of(8, 0), 30, LocalTime.of(18, 0), 10
+        ))));
+
+        assertThat(coworking.getAvailableBookingSlots(date).get(room))
+                .extracting(Booking::getStart, Booking::getEnd)
+                .containsExactly(
+                        tuple(date.atStartOfDay(), date.atTime(8, 30)),
+                        tuple(date.atTime(10, 30), date.atTime(18, 50)),
+                        tuple(date.atTime(20, 10), date.atTime(LocalTime.MAX))
+                );
+        assertThat(coworking.findAvailableSlots(new SlotQuery(date.atTime(10, 0), Duration.ofMinutes(500), 1)))
+                .singleElement().extracting(Booking::getStart).isEqualTo(date.atTime(10, 30));
+        assertThat(coworking.findAvailableSlots(new SlotQuery(date.atTime(10, 0), Duration.ofMinutes(501), 1)))
+                .singleElement().extracting(Booking::getStart).isEqualTo(date.atTime(20, 10));
+        assertThat(coworking.addBooking(null, room, date.atTime(10, 29), date.atTime(11, 0))).isFalse();
+        assertThat(coworking.addBooking(null, room, date.atTime(10, 30), date.atTime(18, 50))).isTrue();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.service;
+
+import org.example.model.User;
+import org.example.utils.MemberNotFoundException;
+import org.example.utils.PasswordHash;
+import org.example.utils.WrongPasswordException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CredentialCacheTest {
+    final AtomicLong now = new AtomicLong();
+    final CredentialCache cache = new CredentialCache(Duration.ofMinutes(1), 2, now::get);
+
+    @Test
+    void password_hashed_with_salt_and_configured_work_factor() {
+        PasswordHash first = PasswordHash.of("pwd1");
+        PasswordHash second = PasswordHash.of("pwd1");
+
+        assertThat(first.getIterations()).isEqualTo(PasswordHash.configuredIterations());
+        assertThat(first.toString()).isNotEqualTo(second.toString()).doesNotContain("pwd1");
+        assertThat(PasswordHash.parse(first.toString()).matches("pwd1")).isTrue();
+        assertThat(first.matches("pwd2")).isFalse();
+        assertThat(User.withoutPassword("u1", false).checkPassword("")).isFalse();
+    }
+
+    @Test
+    void verified_password_remembered_until_expiry() {
+        User user = new User("u1", "pwd1");
+        cache.put(user, "pwd1");
+
+        assertThat(cache.contains(user, "pwd1")).isTrue();
+        assertThat(cache.contains(user, "pwd2")).isFalse();
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(cache.contains(user, "pwd1")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void entry_dropped_when_password_changes_or_user_replaced() {
+        User user = new User("u1", "pwd1");
+        cache.put(user, "pwd1");
+        assertThat(cache.contains(new User("u1", "pwd1"), "pwd1")).isFalse();
+
+        cache.put(user, "pwd1");
+        user.setPassword("pwd2");
+        assertThat(cache.contains(user, "pwd1")).isFalse();
+    }
+
+    @Test
+    void capacity_bounds_remembered_logins() {
+        User[] users = {new User("u1", "p"), new User("u2", "p"), new User("u3", "p")};
+        for (User user : users) {
+            cache.put(user, "p");
+        }
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.contains(users[2], "p")).isFalse();
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.put(users[2], "p");
+        assertThat(cache.contains(users[2], "p")).isTrue();
+    }
+
+    @Test
+    void removed_user_cannot_log_in_with_cached_password() throws Exception {
+        Coworking coworking = new Coworking();
+        coworking.registerNewUser("u1", "pwd1");
+        User user = coworking.authenticateUser("u1", "pwd1");
+        assertThat(coworking.authenticateUser("u1", "pwd1")).isSameAs(user);
+        assertThatThrownBy(() -> coworking.authenticateUser("u1", "pwd2")).isInstanceOf(WrongPasswordException.class);
+
+        coworking.removeUser(user);
+        assertThatThrownBy(() -> coworking.authenticateUser("u1", "pwd1")).isInstanceOf(MemberNotFoundException.class);
+        coworking.registerNewUser("u1", "other");
+        assertThatThrownBy(() -> coworking.authenticateUser("u1", "pwd1")).isInstanceOf(WrongPasswordException.class);
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.service;
+
+import org.example.model.*;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class FreeGapIndexTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    Workstation workstation;
+    ConferenceRoom smallRoom;
+    ConferenceRoom bigRoom;
+    User user;
+
+    @BeforeEach
+    void setUp() throws MemberAlreadyExistsException {
+        coworking = new Coworking();
+        workstation = new Workstation("ws001", "Celeron");
+        smallRoom = new ConferenceRoom("cr001", 5);
+        bigRoom = new ConferenceRoom("cr002", 30);
+        coworking.addFacility(workstation);
+        coworking.addFacility(smallRoom);
+        coworking.addFacility(bigRoom);
+        user = new User("u1", "pwd1");
+        coworking.addBooking(user, workstation, DATE.atTime(9, 0), DATE.atTime(12, 0));
+        coworking.addBooking(user, smallRoom, DATE.atTime(8, 0), DATE.atTime(10, 0));
+        coworking.addBooking(user, bigRoom, DATE.atTime(9, 30), DATE.atTime(18, 0));
+    }
+
+    @Test
+    void earliest_slots_across_facilities() {
+        var slots = coworking.findAvailableSlots(new SlotQuery(DATE.atTime(9, 0), Duration.ofHours(1), 3));
+
+        assertThat(slots).extracting(booking -> booking.getFacility().getIdNumber(), Booking::getStart)
+                .containsExactly(
+                        tuple("cr001", DATE.atTime(10, 15)),
+                        tuple("ws001", DATE.atTime(12, 15)),
+                        tuple("cr002", DATE.atTime(18, 15))
+                );
+        slots.forEach(slot -> assertThat(coworking.addBooking(user, slot.getFacility(), slot.getStart(), slot.getEnd())).isTrue());
+    }
+
+    @Test
+    void short_gaps_skipped() {
+        coworking.addBooking(user, workstation, DATE.atTime(13, 0), DATE.atTime(14, 0));
+
+        var slots = coworking.findAvailableSlots(
+                new SlotQuery(DATE.atTime(11, 0), Duration.ofMinutes(45), 1).ofType(Workstation.class)
+        );
+
+        assertThat(slots).extracting(Booking::getStart).containsExactly(DATE.atTime(14, 15));
+    }
+
+    @Test
+    void type_and_seats_filters() {
+        var rooms = coworking.findAvailableSlots(
+                new SlotQuery(DATE.atTime(9, 0), Duration.ofHours(1), 5).ofType(ConferenceRoom.class)
+        );
+        var bigRooms = coworking.findAvailableSlots(
+                new SlotQuery(DATE.atTime(9, 0), Duration.ofHours(1), 5).withMinSeats(10)
+        );
+
+        assertThat(rooms).extracting(Booking::getFacility).containsExactly(smallRoom, bigRoom);
+        assertThat(bigRooms).extracting(Booking::getFacility).containsExactly(bigRoom);
+    }
+
+    @Test
+    void time_of_day_window_respected() {
+        var slots = coworking.findAvailableSlots(
+                new SlotQuery(DATE.atTime(9, 0), Duration.ofHours(2), 5)
+                        .withMinSeats(10)
+                        .between(LocalTime.of(8, 0), LocalTime.of(17, 0))
+        );
+
+        assertThat(slots).extracting(Booking::getStart).containsExactly(DATE.plusDays(1).atTime(8, 0));
+    }
+
+    @Test
+    void removals_reopen_gaps() throws MemberNotFoundException {
+        User admin = new User("admin", "admin", true);
+        coworking.removeBooking(bigRoom, DATE.atTime(9, 30), DATE.atTime(18, 0), admin);
+        coworking.removeFacility("cr001");
+
+        var slots = coworking.findAvailableSlots(new SlotQuery(DATE.atTime(9, 0), Duration.ofHours(1), 5));
+
+        assertThat(slots).extracting(Booking::getFacility, Booking::getStart).containsExactly(
+                tuple(bigRoom, DATE.atTime(9, 0)),
+                tuple(workstation, DATE.atTime(12, 15))
+        );
+    }
+
+    @Test
+    void recurring_occurrences_stepped_over() {
+        coworking.addRecurringBooking(user, smallRoom, new Recurrence(EnumSet.allOf(DayOfWeek.class),
+                LocalTime.of(11, 0), LocalTime.of(12, 0), DATE, DATE.plusDays(7)));
+
+        var slots = coworking.findAvailableSlots(
+                new SlotQuery(DATE.atTime(9, 0), Duration.ofHours(1), 4).ofType(ConferenceRoom.class)
+        );
+
+        assertThat(slots).extracting(booking -> booking.getFacility().getIdNumber(), Booking::getStart)
+                .containsExactly(
+                        tuple("cr001", DATE.atTime(12, 15)),
+                        tuple("cr002", DATE.atTime(18, 15)),
+                        tuple("cr001", DATE.plusDays(1).atTime(12, 15)),
+                        tuple("cr001", DATE.plusDays(2).atTime(12, 15))
+                );
+    }
+
+    @Test
+    void recurring_bookings_indexed_as_rules() {
+        FreeGapIndex index = new FreeGapIndex();
+        index.facilityAdded(workstation);
+        index.recurringBookingAdded(new RecurringBooking(user, workstation, new Recurrence(
+                EnumSet.allOf(DayOfWeek.class), LocalTime.of(10, 0), LocalTime.of(11, 0), DATE, DATE.plusYears(1)
+        )));
+
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void matches_brute_force_search_with_recurring_bookings() throws MemberAlreadyExistsException {
+        Random random = new Random(9);
+        Coworking randomized = new Coworking();
+        List<Facility> facilities = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Facility facility = new Workstation("ws" + i, "");
+            randomized.addFacility(facility);
+            facilities.add(facility);
+            for (int j = 0; j < 3; j++) {
+                EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                days.add(DayOfWeek.of(1 + random.nextInt(7)));
+                days.add(DayOfWeek.of(1 + random.nextInt(7)));
+                int start = random.nextInt(22 * 60);
+                randomized.addRecurringBooking(user, facility, new Recurrence(days,
+                        LocalTime.ofSecondOfDay(start * 60L), LocalTime.ofSecondOfDay((start + 30 + random.nextInt(90)) * 60L),
+                        DATE, DATE.plusDays(random.nextInt(6))));
+            }
+        }
+        LocalDateTime base = DATE.atStartOfDay();
+        for (int i = 0; i < 150; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(3 * 24 * 60));
+            Facility facility = facilities.get(random.nextInt(facilities.size()));
+            randomized.addBooking(user, facility, start, start.plusMinutes(15 + random.nextInt(180)));
+        }
+
+        for (int q = 0; q < 50; q++) {
+            SlotQuery query = new SlotQuery(base.plusMinutes(random.nextInt(3 * 24 * 60)),
+                    Duration.ofMinutes(10 + random.nextInt(240)), 10_000);
+            if (q % 2 == 0) {
+                query.between(LocalTime.of(8, 0), LocalTime.of(20, 0));
+            }
+            Map<Facility, LocalDateTime> earliest = new HashMap<>();
+            for (Booking slot : randomized.findAvailableSlots(query)) {
+                earliest.putIfAbsent(slot.getFacility(), slot.getStart());
+            }
+            for (Facility facility : facilities) {
+                assertThat(earliest.get(facility))
+                        .as("query %d facility %s", q, facility)
+                        .isEqualTo(bruteForceEarliest(randomized, facility, query));
+            }
+        }
+    }
+
+    @Test
+    void matches_brute_force_search() throws MemberAlreadyExistsException {
+        Random random = new Random(7);
+        Coworking randomized = new Coworking();
+        List<Facility> facilities = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Facility facility = i % 2 == 0 ? new Workstation("ws" + i, "") : new ConferenceRoom("cr" + i, i * 3);
+            randomized.addFacility(facility);
+            facilities.add(facility);
+        }
+        LocalDateTime base = DATE.atStartOfDay();
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(3 * 24 * 60));
+            Facility facility = facilities.get(random.nextInt(facilities.size()));
+            randomized.addBooking(user, facility, start, start.plusMinutes(15 + random.nextInt(180)));
+        }
+        List<Booking> toRemove = new ArrayList<>(randomized.viewAllBookings()).subList(0, 100);
+        toRemove.forEach(booking -> randomized.removeBooking(booking.getFacility(), booking.getStart(), booking.getEnd(),
+                new User("admin", "admin", true)));
+
+        for (int q = 0; q < 50; q++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(3 * 24 * 60));
+            int duration = 10 + random.nextInt(240);
+            SlotQuery query = new SlotQuery(from, Duration.ofMinutes(duration), 10_000);
+            if (q % 2 == 0) {
+                query.between(LocalTime.of(8, 0), LocalTime.of(20, 0));
+            }
+            Map<Facility, LocalDateTime> earliest = new HashMap<>();
+            for (Booking slot : randomized.findAvailableSlots(query)) {
+                earliest.putIfAbsent(slot.getFacility(), slot.getStart());
+            }
+            for (Facility facility : facilities) {
+                assertThat(earliest.get(facility))
+                        .as("query %d facility %s", q, facility)
+                        .isEqualTo(bruteForceEarliest(randomized, facility, query));
+            }
+        }
+    }
+
+    private static LocalDateTime bruteForceEarliest(Coworking coworking, Facility facility, SlotQuery query) {
+        List<Booking> bookings = new ArrayList<>(coworking.viewAllBookings().stream()
+                .filter(booking -> booking.getFacility() == facility)
+                .toList());
+        for (RecurringBooking rule : coworking.viewRecurringBookings()) {
+            if (rule.getFacility() == facility) {
+                bookings.addAll(rule.occurrencesBetween(query.getFrom().minusDays(1), query.getFrom().plusDays(6)));
+            }
+        }
+        for (LocalDateTime start = query.getFrom(); start.isBefore(query.getFrom().plusDays(5)); start = start.plusMinutes(1)) {
+            LocalDateTime end = start.plus(query.getDuration());
+            boolean windowed = !query.getDayEnd().equals(LocalTime.MAX);
+            if (windowed && (start.toLocalTime().isBefore(query.getDayStart())
+                    || !end.toLocalDate().equals(start.toLocalDate())
+                    || end.toLocalTime().isAfter(query.getDayEnd()))) {
+                continue;
+            }
+            Booking candidate = new Booking(null, facility, start, end);
+            if (bookings.stream().noneMatch(candidate::isOverlapping)) {
+                return start;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.service;
+
+import org.example.model.*;
+import org.example.utils.MemberAlreadyExistsException;
+import org.example.utils.MemberNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class OccupancyAnalyticsTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 8); // a Monday
+
+    Coworking coworking;
+    OccupancyAnalytics analytics;
+    Workstation workstation;
+    ConferenceRoom room;
+    User user;
+
+    @BeforeEach
+    void setUp() throws MemberAlreadyExistsException {
+        coworking = new Coworking();
+        analytics = coworking.getAnalytics();
+        workstation = new Workstation("ws001", "Celeron");
+        room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        user = new User("u1", "pwd1");
+        coworking.addBooking(user, workstation, DATE.atTime(9, 0), DATE.atTime(15, 0));
+        coworking.addBooking(user, workstation, DATE.atTime(22, 0), DATE.plusDays(1).atTime(4, 0));
+        coworking.addBooking(null, room, DATE.plusDays(1).atTime(10, 30), DATE.plusDays(1).atTime(12, 0));
+    }
+
+    @Test
+    void utilisation_of_date_ranges() {
+        assertThat(analytics.bookedMinutes(workstation, DATE, DATE)).isEqualTo(8 * 60);
+        assertThat(analytics.utilisation(workstation, DATE, DATE)).isCloseTo(100.0 * 8 / 24, within(1e-9));
+        assertThat(analytics.utilisation(workstation, DATE, DATE.plusDays(1))).isCloseTo(100.0 * 12 / 48, within(1e-9));
+        assertThat(analytics.utilisation(workstation, DATE.plusDays(2), DATE.plusDays(9))).isZero();
+        assertThat(analytics.utilisation(DATE.plusDays(1), DATE.plusDays(1)))
+                .containsEntry(workstation, 100.0 * 4 / 24)
+                .containsEntry(room, 100.0 * 1.5 / 24);
+        assertThatThrownBy(() -> analytics.utilisation(workstation, DATE, DATE.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void user_hours_and_seat_hours() {
+        assertThat(analytics.userHours("u1", DATE, DATE)).isEqualTo(8);
+        assertThat(analytics.userHours("u1", DATE.minusDays(30), DATE.plusDays(30))).isEqualTo(12);
+        assertThat(analytics.userHours("u2", DATE, DATE)).isZero();
+        assertThat(analytics.seatHours(room, DATE, DATE.plusDays(1))).isEqualTo(15);
+        assertThat(analytics.seatHours(DATE, DATE.plusDays(1))).isEqualTo(15);
+
+        coworking.editConferenceRoom(room, 4);
+
+        assertThat(analytics.seatHours(DATE, DATE.plusDays(1))).isEqualTo(6);
+    }
+
+    @Test
+    void heatmap_by_day_of_week_and_hour() {
+        long[][] heatmap = analytics.heatmap(DATE, DATE.plusDays(6));
+
+        assertThat(heatmap[DayOfWeek.MONDAY.ordinal()]).containsExactly(
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 60, 60, 60, 60, 60, 60, 0, 0, 0, 0, 0, 0, 0, 60, 60);
+        assertThat(heatmap[DayOfWeek.TUESDAY.ordinal()][3]).isEqualTo(60);
+        assertThat(heatmap[DayOfWeek.TUESDAY.ordinal()][10]).isEqualTo(30);
+        assertThat(heatmap[DayOfWeek.TUESDAY.ordinal()][11]).isEqualTo(60);
+        assertThat(analytics.heatmap(DATE.plusDays(1), DATE.plusDays(7))[DayOfWeek.MONDAY.ordinal()]).containsOnly(0);
+    }
+
+    @Test
+    void removed_bookings_no_longer_counted() throws MemberNotFoundException {
+        coworking.removeBooking(workstation, DATE.atTime(9, 0), DATE.atTime(15, 0), user);
+
+        assertThat(analytics.bookedMinutes(workstation, DATE, DATE)).isEqualTo(2 * 60);
+        assertThat(analytics.userHours("u1", DATE, DATE.plusDays(1))).isEqualTo(6);
+        assertThat(analytics.heatmap(DATE, DATE)[DayOfWeek.MONDAY.ordinal()][9]).isZero();
+
+        coworking.removeFacility("ws001");
+
+        assertThat(analytics.bookedMinutes(workstation, DATE, DATE)).isZero();
+        assertThat(analytics.userHours("u1", DATE, DATE.plusDays(1))).isZero();
+    }
+
+    @Test
+    void recurring_occurrences_counted() {
+        var recurrence = new Recurrence(EnumSet.of(DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY),
+                LocalTime.of(8, 0), LocalTime.of(10, 0), DATE, DATE.plusWeeks(4));
+        RecurringBooking rule = new RecurringBooking(user, room, recurrence);
+        assertThat(coworking.addRecurringBooking(user, room, recurrence)).isTrue();
+
+        assertThat(analytics.bookedMinutes(room, DATE.plusDays(2), DATE.plusDays(4))).isEqualTo(4 * 60);
+        assertThat(analytics.userHours("u1", DATE, DATE.plusWeeks(4))).isEqualTo(12 + 8 * 2);
+
+        coworking.removeRecurringBooking(rule, user);
+
+        assertThat(analytics.userHours("u1", DATE, DATE.plusWeeks(4))).isEqualTo(12);
+    }
+
+    @Test
+    void range_queries_match_a_scan_of_the_bookings() throws MemberAlreadyExistsException {
+        Random random = new Random(42);
+        List<Booking> booked = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Facility facility = new Workstation("ws1" + i, "");
+            coworking.addFacility(facility);
+            // walk back and forth from the middle so the trees grow towards both ends
+            LocalDateTime later = DATE.atStartOfDay();
+            LocalDateTime earlier = later;
+            for (int j = 0; j < 200; j++) {
+                long minutes = 15 + random.nextInt(36 * 60);
+                if (random.nextBoolean()) {
+                    Booking booking = new Booking(user, facility, later, later.plusMinutes(minutes));
+                    later = booking.getEnd().plusMinutes(15 + random.nextInt(3 * 24 * 60));
+                    booked.add(booking);
+                } else {
+                    earlier = earlier.minusMinutes(15 + random.nextInt(3 * 24 * 60) + minutes);
+                    booked.add(new Booking(user, facility, earlier, earlier.plusMinutes(minutes)));
+                }
+            }
+        }
+        booked.forEach(booking -> coworking.addBooking(booking.getUser(), booking.getFacility(), booking.getStart(), booking.getEnd()));
+
+        for (int i = 0; i < 200; i++) {
+            LocalDate first = DATE.plusDays(random.nextInt(1200) - 600);
+            LocalDate last = first.plusDays(random.nextInt(100));
+            Facility facility = booked.get(random.nextInt(booked.size())).getFacility();
+            long from = first.toEpochDay() * Booking.MINUTES_PER_DAY;
+            long to = (last.toEpochDay() + 1) * Booking.MINUTES_PER_DAY;
+            long expected = booked.stream()
+                    .filter(booking -> booking.getFacility() == facility)
+                    .mapToLong(booking -> Math.max(0, Math.min(to, booking.getEndMinute()) - Math.max(from, booking.getStartMinute())))
+                    .sum();
+
+            assertThat(analytics.bookedMinutes(facility, first, last)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void concurrent_events_on_facilities_and_users_all_counted() throws Exception {
+        OccupancyAnalytics fresh = new OccupancyAnalytics();
+        List<Facility> facilities = List.of(workstation, room);
+        List<User> users = List.of(user, new User("u2", "pwd2"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Facility facility = facilities.get(t % 2);
+                User booker = users.get(t / 2);
+                tasks.add(() -> {
+                    for (int day = 0; day < 500; day++) {
+                        LocalDateTime start = DATE.plusDays(day).atTime(9, 0);
+                        Booking booking = new Booking(booker, facility, start, start.plusHours(2));
+                        fresh.bookingAdded(booking);
+                        if (day % 2 == 1) {
+                            fresh.bookingRemoved(booking);
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (var result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LocalDate last = DATE.plusDays(499);
+        assertThat(fresh.bookedMinutes(workstation, DATE, last)).isEqualTo(2 * 250 * 120);
+        assertThat(fresh.bookedMinutes(room, DATE, last)).isEqualTo(2 * 250 * 120);
+        assertThat(fresh.userHours("u1", DATE, last)).isEqualTo(2 * 250 * 2);
+        assertThat(fresh.userHours("u2", DATE, last)).isEqualTo(2 * 250 * 2);
+        assertThat(Arrays.stream(fresh.heatmap(DATE, last)).flatMapToLong(Arrays::stream).sum()).isEqualTo(4 * 250 * 120);
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.service;
+
+import org.example.model.ConferenceRoom;
+import org.example.model.User;
+import org.example.model.Workstation;
+import org.example.utils.InvalidSessionException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionManagerTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    final AtomicLong now = new AtomicLong();
+    final SessionManager sessions = new SessionManager(Duration.ofMinutes(10), now::get);
+    final User user = new User("u1", "pwd1");
+
+    @Test
+    void session_expires_after_idle_timeout_only() throws InvalidSessionException {
+        String token = sessions.open(user);
+        assertThat(token).isNotEqualTo(sessions.open(user)).hasSize(43);
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        assertThat(sessions.resolve(token)).isSameAs(user);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        assertThat(sessions.resolve(token)).isSameAs(user);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertThatThrownBy(() -> sessions.resolve(token)).isInstanceOf(InvalidSessionException.class);
+        assertThatThrownBy(() -> sessions.resolve(null)).isInstanceOf(InvalidSessionException.class);
+    }
+
+    @Test
+    void sweep_drops_expired_and_close_all_drops_users_sessions() {
+        sessions.open(user);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        String fresh = sessions.open(user);
+        sessions.open(new User("u2", "pwd2"));
+        now.addAndGet(TimeUnit.MINUTES.toNanos(6));
+
+        assertThat(sessions.sweep()).isEqualTo(1);
+        assertThat(sessions.closeAll(user)).isEqualTo(1);
+        assertThat(sessions.close(fresh)).isFalse();
+        assertThat(sessions.size()).isEqualTo(1);
+    }
+
+    @Test
+    void background_sweeper_drops_expired_sessions() throws InterruptedException {
+        SessionManager swept = new SessionManager(Duration.ofMillis(20), Duration.ofMillis(10));
+        swept.open(user);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (swept.size() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(swept.size()).isZero();
+    }
+
+    @Test
+    void coworking_operations_through_session() throws Exception {
+        Coworking coworking = new Coworking();
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        coworking.addFacility(workstation);
+        coworking.registerNewUser("u1", "pwd1");
+        CoworkingSession session = coworking.session(coworking.openSession("u1", "pwd1"));
+
+        assertThat(session.addBooking(workstation, DATE.atTime(9, 0), DATE.atTime(10, 0))).isTrue();
+        assertThat(session.viewBookings()).hasSize(1);
+        assertThatThrownBy(() -> session.removeBookings(DATE.atStartOfDay(), DATE.plusDays(1).atStartOfDay()))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(session.removeBooking(workstation, DATE.atTime(9, 0), DATE.atTime(10, 0))).isTrue();
+
+        String other = coworking.openSession("u1", "pwd1");
+        assertThat(session.removeUser()).isTrue();
+        assertThatThrownBy(session::getUser).isInstanceOf(InvalidSessionException.class);
+        assertThatThrownBy(() -> coworking.getUser(other)).isInstanceOf(InvalidSessionException.class);
+    }
+
+    @Test
+    void admin_operations_through_session_need_admin() throws Exception {
+        Coworking coworking = new Coworking();
+        coworking.createAdminUser("admin", "admin");
+        coworking.registerNewUser("u1", "pwd1");
+        CoworkingSession admin = coworking.session(coworking.openSession("admin", "admin"));
+        CoworkingSession user = coworking.session(coworking.openSession("u1", "pwd1"));
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+
+        assertThatThrownBy(() -> user.addFacility(room)).isInstanceOf(UnsupportedOperationException.class);
+        admin.addFacility(room);
+        assertThatThrownBy(() -> user.editConferenceRoom(room, 20)).isInstanceOf(UnsupportedOperationException.class);
+        admin.editConferenceRoom(room, 20);
+        assertThat(room.getSeats()).isEqualTo(20);
+        assertThat(user.book(room, DATE.atTime(9, 0), DATE.atTime(10, 0)).isBooked()).isTrue();
+        assertThatThrownBy(user::viewAllBookings).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(admin.viewAllBookings()).hasSize(1);
+        assertThatThrownBy(user::viewAllUsers).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(admin.viewAllUsers()).extracting(User::getLogin).containsExactlyInAnyOrder("admin", "u1");
+        assertThatThrownBy(() -> user.removeFacility("cr001")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(admin.removeFacility("cr001")).isSameAs(room);
+        assertThat(admin.viewAllBookings()).isEmpty();
+
+        admin.close();
+        assertThatThrownBy(admin::viewAllUsers).isInstanceOf(InvalidSessionException.class);
+    }
+}
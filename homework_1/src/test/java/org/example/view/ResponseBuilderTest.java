@@ -0,0 +1,64 @@
+package org.example.view;
+
+import org.example.TestUtils;
+import org.example.model.ConferenceRoom;
+import org.example.model.User;
+import org.example.model.Workstation;
+import org.example.service.Coworking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseBuilderTest {
+    static final LocalDate DATE = LocalDate.of(2024, 7, 7);
+
+    Coworking coworking;
+    User admin;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coworking = new Coworking();
+        admin = new User("admin", "admin", true);
+        Workstation workstation = new Workstation("ws001", "Celeron");
+        ConferenceRoom room = new ConferenceRoom("cr001", 10);
+        coworking.addFacility(workstation);
+        coworking.addFacility(room);
+        TestUtils.addFiveBookings(workstation, coworking, DATE);
+        TestUtils.addFiveBookings(room, coworking, DATE.plusDays(1));
+    }
+
+    @Test
+    void pages_add_up_to_full_listing() throws Exception {
+        String full = ResponseBuilder.listAllBookings(admin, coworking);
+        assertThat(full.lines()).hasSize(12).element(2).isEqualTo("2024-07-06T11:00 to 2024-07-06T17:00 - facility: WS001 - user: u1");
+
+        StringBuilder paged = new StringBuilder();
+        String cursor = null;
+        int pages = 0;
+        do {
+            cursor = ResponseBuilder.writeAllBookings(admin, coworking, paged, cursor, 3);
+            pages++;
+        } while (cursor != null);
+        assertThat(pages).isEqualTo(4);
+        assertThat(paged.toString()).isEqualTo(full);
+    }
+
+    @Test
+    void facility_listing_paged_and_empty_listing_says_none() throws Exception {
+        StringBuilder page = new StringBuilder();
+        String cursor = ResponseBuilder.writeFacilityBookings(admin, "cr001", coworking, page, null, 4);
+        assertThat(cursor).isEqualTo("2024-07-08T21:00/2024-07-09T11:00/cr001");
+        assertThat(ResponseBuilder.writeFacilityBookings(admin, "cr001", coworking, page, cursor, 4)).isNull();
+        assertThat(page.toString()).isEqualTo(ResponseBuilder.listFacilityBookings(admin, "cr001", coworking));
+
+        assertThat(ResponseBuilder.listFacilityBookings(admin, "ws404", coworking))
+                .isEqualTo("\nBookings placed for `ws404`:\nNone\n");
+        assertThat(ResponseBuilder.listAllBookings(new User("u1", "pwd1"), coworking)).isNull();
+        assertThatThrownBy(() -> ResponseBuilder.writeAllBookings(admin, coworking, page, "garbage", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}